@@ -0,0 +1,81 @@
+package org.stjs.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Function;
+import org.mozilla.javascript.Scriptable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures, in the Rhino engine used by the headless test driver and by the generator tests, the loops generated for
+ * <code>for (String i : array) sum += array.$get(i);</code> over an {@link org.stjs.javascript.Array}:
+ * <ul>
+ * <li><code>forIn</code>: the default for-in loop, checking hasOwnProperty</li>
+ * <li><code>indexed</code>: the loop generated with indexedArrayLoops, when the index is only used to access the elements</li>
+ * <li><code>indexedString</code>: the same loop, converting the index to a string. This is slower than the for-in loop, so
+ * the loops using their index as a string are left as for-in loops</li>
+ * </ul>
+ * The same scripts can be pasted in the console of a browser to compare the engines.
+ * <p>
+ * Run it with: java -cp benchmarks/target/benchmarks.jar:$JAVA_HOME/lib/tools.jar org.openjdk.jmh.Main ArrayLoopBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArrayLoopBenchmark {
+	private static final String FOR_IN = "function sum(a) {var s = 0; for (var i in a) {if (!(a).hasOwnProperty(i)) continue; s += a[i];} return s;}";
+
+	private static final String INDEXED = "function sum(a) {var s = 0; "
+			+ "for (var index$i = 0, arr$i = a, length$i = arr$i.length; index$i < length$i; index$i++) {var i = index$i; s += a[i];} "
+			+ "return s;}";
+
+	private static final String INDEXED_STRING = "function sum(a) {var s = 0; "
+			+ "for (var index$i = 0, arr$i = a, length$i = arr$i.length; index$i < length$i; index$i++) {var i = \"\" + index$i; s += a[i];} "
+			+ "return s;}";
+
+	@Param({ "forIn", "indexed", "indexedString" })
+	private String loop;
+
+	@Param({ "1000" })
+	private int size;
+
+	private Context context;
+	private Scriptable scope;
+	private Function sum;
+	private Object[] array;
+
+	@Setup
+	public void compile() {
+		context = Context.enter();
+		scope = context.initStandardObjects();
+		String function = "forIn".equals(loop) ? FOR_IN : "indexed".equals(loop) ? INDEXED : INDEXED_STRING;
+		context.evaluateString(scope, function + " var array = []; for (var k = 0; k < " + size + "; ++k) array.push(k);", loop, 1, null);
+		sum = (Function) scope.get("sum", scope);
+		array = new Object[]{ scope.get("array", scope) };
+	}
+
+	@TearDown
+	public void exit() {
+		Context.exit();
+	}
+
+	@Benchmark
+	public Object sum() {
+		return sum.call(context, scope, scope, array);
+	}
+}
@@ -0,0 +1,103 @@
+package org.stjs.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.concurrent.TimeUnit;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Function;
+import org.mozilla.javascript.Scriptable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.stjs.generator.Generator;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Closeables;
+
+/**
+ * Measures, in the Rhino engine used by the headless test driver and by the generator tests, the calls of the functions wrapped
+ * by the runtime (stjs.js) for the lambdas and the varargs methods:
+ * <ul>
+ * <li><code>bind</code> and <code>bind2</code>: a lambda with two parameters accessing <code>this</code>, wrapped by the
+ * generic stjs.bind or by stjs.bind2</li>
+ * <li><code>varargs</code> and <code>varargs1</code>: a method whose second parameter is a varargs, wrapped by the generic
+ * stjs.varargs or by stjs.varargs1</li>
+ * </ul>
+ * The same scripts can be pasted in the console of a browser, after stjs.js, to compare the engines.
+ * <p>
+ * Run it with: java -cp benchmarks/target/benchmarks.jar:$JAVA_HOME/lib/tools.jar org.openjdk.jmh.Main BindBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BindBenchmark {
+	private static final String LAMBDA = "function(a, b) {return this.x + a + b;}";
+	private static final String VARARGS_METHOD = "function(a, rest) {return a + rest.length;}";
+
+	private static final String RUN = "function run(n) {var s = 0; for (var i = 0; i < n; ++i) s += f(i, 1); return s;}";
+
+	@Param({ "bind", "bind2", "varargs", "varargs1" })
+	private String wrapper;
+
+	@Param({ "1000" })
+	private int calls;
+
+	private Context context;
+	private Scriptable scope;
+	private Function run;
+	private Object[] args;
+
+	@Setup
+	public void compile() throws IOException {
+		context = Context.enter();
+		scope = context.initStandardObjects();
+		Reader runtime = new InputStreamReader(Thread.currentThread().getContextClassLoader().getResourceAsStream(Generator.STJS_PATH),
+				Charsets.UTF_8);
+		try {
+			context.evaluateReader(scope, runtime, Generator.STJS_PATH, 1, null);
+		}
+		finally {
+			Closeables.closeQuietly(runtime);
+		}
+		context.evaluateString(scope, "var f = " + getWrapped() + "; " + RUN, wrapper, 1, null);
+		run = (Function) scope.get("run", scope);
+		args = new Object[]{ calls };
+	}
+
+	private String getWrapped() {
+		if ("bind".equals(wrapper)) {
+			return "stjs.bind({x: 1}, " + LAMBDA + ")";
+		}
+		if ("bind2".equals(wrapper)) {
+			return "stjs.bind2({x: 1}, " + LAMBDA + ")";
+		}
+		if ("varargs".equals(wrapper)) {
+			return "stjs.varargs(" + VARARGS_METHOD + ", 1)";
+		}
+		return "stjs.varargs1(" + VARARGS_METHOD + ")";
+	}
+
+	@TearDown
+	public void exit() {
+		Context.exit();
+	}
+
+	@Benchmark
+	public Object call() {
+		return run.call(context, scope, scope, args);
+	}
+}
@@ -0,0 +1,214 @@
+package org.stjs.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.stjs.generator.STJSRuntimeException;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+
+/**
+ * The Java sources given to the benchmarks, together with their compiled classes, as needed by the generator.
+ * <ul>
+ * <li><code>real</code> is a small application (the package org.stjs.benchmarks.corpus) using inheritance, the JavaScript collections
+ * and anonymous callbacks</li>
+ * <li><code>synthetic</code> is a generated tree of classes, each one having a few methods with loops, conditions and anonymous
+ * functions</li>
+ * </ul>
+ */
+public final class Corpus {
+	public static final String REAL = "real";
+	public static final String SYNTHETIC = "synthetic";
+
+	private static final String REAL_PACKAGE = "org.stjs.benchmarks.corpus";
+	private static final List<String> REAL_CLASSES = Arrays.asList("Shape", "Circle", "Rectangle", "Square", "ShapeStore", "Geometry");
+	private static final String SYNTHETIC_PACKAGE = "org.stjs.benchmarks.synthetic";
+	private static final int SYNTHETIC_CLASSES = 40;
+	private static final int SYNTHETIC_METHODS = 25;
+
+	private final File folder;
+	private final File sourceFolder;
+	private final String packageName;
+	private final List<String> classNames;
+	private final ClassLoader classLoader;
+
+	private Corpus(File folder, String packageName, List<String> classNames, ClassLoader classLoader) {
+		this.folder = folder;
+		this.sourceFolder = new File(folder, "src");
+		this.packageName = packageName;
+		this.classNames = classNames;
+		this.classLoader = classLoader;
+	}
+
+	/**
+	 * creates the given corpus in a new temporary folder.
+	 */
+	public static Corpus create(String name) throws IOException {
+		if (REAL.equals(name)) {
+			return real();
+		}
+		if (SYNTHETIC.equals(name)) {
+			return synthetic();
+		}
+		throw new IllegalArgumentException("Unknown corpus:" + name);
+	}
+
+	private static Corpus real() throws IOException {
+		List<String> classNames = new ArrayList<String>();
+		for (String simpleName : REAL_CLASSES) {
+			classNames.add(REAL_PACKAGE + "." + simpleName);
+		}
+		// the classes are already compiled in the benchmarks jar
+		Corpus corpus = new Corpus(Files.createTempDir(), REAL_PACKAGE, classNames, Corpus.class.getClassLoader());
+		for (String className : classNames) {
+			String path = className.replace('.', '/') + ".java";
+			File sourceFile = corpus.getSourceFile(className);
+			Files.createParentDirs(sourceFile);
+			Files.write(Resources.toByteArray(Resources.getResource(path)), sourceFile);
+		}
+		return corpus;
+	}
+
+	private static Corpus synthetic() throws IOException {
+		File folder = Files.createTempDir();
+		File sourceFolder = new File(folder, "src");
+		File classesFolder = new File(folder, "classes");
+		List<String> classNames = new ArrayList<String>();
+		List<File> sourceFiles = new ArrayList<File>();
+		for (int i = 0; i < SYNTHETIC_CLASSES; ++i) {
+			String className = SYNTHETIC_PACKAGE + ".Synthetic" + i;
+			File sourceFile = new File(sourceFolder, className.replace('.', File.separatorChar) + ".java");
+			Files.createParentDirs(sourceFile);
+			Files.write(syntheticSource(i), sourceFile, Charsets.UTF_8);
+			classNames.add(className);
+			sourceFiles.add(sourceFile);
+		}
+
+		// the generator needs the compiled classes too
+		if (!classesFolder.mkdirs()) {
+			throw new IOException("Cannot create " + classesFolder);
+		}
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, Charsets.UTF_8);
+		try {
+			List<String> options = Arrays.asList("-d", classesFolder.getAbsolutePath(), "-cp", System.getProperty("java.class.path"));
+			if (!compiler.getTask(null, fileManager, null, options, null, fileManager.getJavaFileObjectsFromFiles(sourceFiles)).call()) {
+				throw new STJSRuntimeException("Cannot compile the synthetic corpus in " + sourceFolder);
+			}
+		}
+		finally {
+			fileManager.close();
+		}
+		ClassLoader classLoader = new URLClassLoader(new URL[]{ classesFolder.toURI().toURL() }, Corpus.class.getClassLoader());
+		return new Corpus(folder, SYNTHETIC_PACKAGE, classNames, classLoader);
+	}
+
+	/**
+	 * the classes form a binary tree: SyntheticN extends Synthetic((N-1)/2).
+	 */
+	private static String syntheticSource(int index) {
+		StringBuilder source = new StringBuilder();
+		source.append("package ").append(SYNTHETIC_PACKAGE).append(";\n\n");
+		source.append("import static org.stjs.javascript.JSCollections.$array;\n");
+		source.append("import org.stjs.javascript.Array;\n");
+		source.append("import org.stjs.javascript.functions.Function1;\n\n");
+		source.append("public class Synthetic").append(index);
+		if (index > 0) {
+			source.append(" extends Synthetic").append((index - 1) / 2);
+		}
+		source.append(" {\n");
+		source.append("  public static final int CONSTANT").append(index).append(" = ").append(index).append(";\n");
+		source.append("  private Array<Integer> values").append(index).append(";\n\n");
+		source.append("  public Synthetic").append(index).append("() {\n");
+		source.append("    values").append(index).append(" = $array();\n");
+		source.append("  }\n");
+		for (int m = 0; m < SYNTHETIC_METHODS; ++m) {
+			String suffix = index + "_" + m;
+			source.append("\n  public int compute").append(suffix).append("(int a, int b) {\n");
+			source.append("    int c = a + b * CONSTANT").append(index).append(";\n");
+			source.append("    for (int k = 0; k < c; ++k) {\n");
+			source.append("      if (k % 2 == 0) {\n");
+			source.append("        c = c - a;\n");
+			source.append("      } else {\n");
+			source.append("        c += b;\n");
+			source.append("      }\n");
+			source.append("    }\n");
+			source.append("    values").append(index).append(".push(c);\n");
+			source.append("    return c > 0 ? c : -c;\n");
+			source.append("  }\n");
+			source.append("\n  public Function1<Integer, Integer> adder").append(suffix).append("(final int delta) {\n");
+			source.append("    final int size = values").append(index).append(".$length();\n");
+			source.append("    return new Function1<Integer, Integer>() {\n");
+			source.append("      @Override\n");
+			source.append("      public Integer $invoke(Integer value) {\n");
+			source.append("        return value + delta + size;\n");
+			source.append("      }\n");
+			source.append("    };\n");
+			source.append("  }\n");
+		}
+		return source.append("}\n").toString();
+	}
+
+	public File getSourceFolder() {
+		return sourceFolder;
+	}
+
+	public File getOutputFolder() {
+		return new File(folder, "out");
+	}
+
+	public String getPackageName() {
+		return packageName;
+	}
+
+	public List<String> getClassNames() {
+		return Collections.unmodifiableList(classNames);
+	}
+
+	public ClassLoader getClassLoader() {
+		return classLoader;
+	}
+
+	public File getSourceFile(String className) {
+		return new File(sourceFolder, className.replace('.', File.separatorChar) + ".java");
+	}
+
+	public List<File> getSourceFiles() {
+		List<File> files = new ArrayList<File>(classNames.size());
+		for (String className : classNames) {
+			files.add(getSourceFile(className));
+		}
+		return files;
+	}
+
+	/**
+	 * removes the temporary folder of the corpus.
+	 */
+	public void delete() {
+		delete(folder);
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		if (!file.delete()) {
+			file.deleteOnExit();
+		}
+	}
+}
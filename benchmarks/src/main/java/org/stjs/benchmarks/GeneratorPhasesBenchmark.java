@@ -0,0 +1,252 @@
+package org.stjs.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.StandardJavaFileManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.stjs.generator.ClassWithJavascript;
+import org.stjs.generator.DependencyCollector;
+import org.stjs.generator.GenerationContext;
+import org.stjs.generator.GenerationContext.AnnotationCacheKey;
+import org.stjs.generator.GenerationDirectory;
+import org.stjs.generator.Generator;
+import org.stjs.generator.GeneratorConfiguration;
+import org.stjs.generator.GeneratorConfigurationBuilder;
+import org.stjs.generator.javac.CustomClassloaderJavaFileManager;
+import org.stjs.generator.javascript.JavaScriptBuilder;
+import org.stjs.generator.javascript.rhino.RhinoJavaScriptBuilder;
+import org.stjs.generator.name.DefaultJavaScriptNameProvider;
+import org.stjs.generator.plugin.GenerationPlugins;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Maps;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.Trees;
+import com.sun.tools.javac.api.JavacTool;
+
+/**
+ * Measures each phase of the generation of a corpus, in the order the {@link Generator} runs them:
+ * <ol>
+ * <li><code>parse</code>: the javac parsing of all the sources</li>
+ * <li><code>analyze</code>: the parsing and the attribution of all the sources, as done by the generator</li>
+ * <li><code>check</code>: the scan of the {@link org.stjs.generator.check.CheckVisitor}</li>
+ * <li><code>write</code>: the scan of the {@link org.stjs.generator.writer.WriterVisitor}, building the JavaScript AST</li>
+ * <li><code>print</code>: the output of the JavaScript AST with the Rhino writer</li>
+ * <li><code>printWithSourceMap</code>: the same output, but also generating and writing the source map</li>
+ * <li><code>orderDependencies</code>: the ordering of the generated classes with {@link DependencyCollector}</li>
+ * <li><code>generate</code>: the whole generation, including the files written on disk</li>
+ * </ol>
+ * The phases after the analysis reuse the compilation units attributed once in the setup.
+ * <p>
+ * Run it with: java -cp benchmarks/target/benchmarks.jar:$JAVA_HOME/lib/tools.jar org.openjdk.jmh.Main GeneratorPhasesBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneratorPhasesBenchmark {
+	private static final List<String> JAVAC_OPTIONS = Arrays.asList("-proc:none");
+
+	@Param({ Corpus.REAL, Corpus.SYNTHETIC })
+	private String corpusName;
+
+	private Corpus corpus;
+	private GeneratorConfiguration config;
+	private GeneratorConfiguration sourceMapConfig;
+	private final GenerationPlugins<Object> plugins = new GenerationPlugins<Object>();
+	private final Map<AnnotationCacheKey, Object> cacheAnnotations = Maps.newConcurrentMap();
+
+	private JavaCompiler compiler;
+	private StandardJavaFileManager fileManager;
+	private JavaFileManager classLoaderFileManager;
+
+	private JavacTask analyzedTask;
+	private List<CompilationUnitTree> compilationUnits;
+	private List<GenerationContext<Object>> contexts;
+	private List<Object> javascriptRoots;
+	private List<GenerationContext<Object>> sourceMapContexts;
+	private List<Object> sourceMapJavascriptRoots;
+	private List<ClassWithJavascript> generatedClasses;
+
+	@Setup(Level.Trial)
+	public void prepare() throws IOException, URISyntaxException {
+		corpus = Corpus.create(corpusName);
+		config = newConfiguration(false);
+		sourceMapConfig = newConfiguration(true);
+
+		compiler = JavacTool.create();
+		fileManager = compiler.getStandardFileManager(null, null, Charsets.UTF_8);
+		classLoaderFileManager = new CustomClassloaderJavaFileManager(corpus.getClassLoader(), fileManager);
+
+		analyzedTask = newTask();
+		compilationUnits = parse(analyzedTask);
+		analyzedTask.analyze();
+
+		contexts = newContexts(config);
+		javascriptRoots = write(contexts);
+		sourceMapContexts = newContexts(sourceMapConfig);
+		sourceMapJavascriptRoots = write(sourceMapContexts);
+
+		generatedClasses = generate();
+	}
+
+	@TearDown(Level.Trial)
+	public void cleanup() throws IOException {
+		fileManager.close();
+		corpus.delete();
+	}
+
+	private GeneratorConfiguration newConfiguration(boolean generateSourceMap) throws URISyntaxException {
+		File outputFolder = corpus.getOutputFolder();
+		return new GeneratorConfigurationBuilder() //
+				.allowedPackage(corpus.getPackageName()) //
+				.stjsClassLoader(corpus.getClassLoader()) //
+				.generationFolder(new GenerationDirectory(outputFolder, null, new URI("/"))) //
+				.targetFolder(outputFolder) //
+				.generateSourceMap(generateSourceMap) //
+				.build();
+	}
+
+	private JavacTask newTask() {
+		return (JavacTask) compiler.getTask(null, classLoaderFileManager, null, JAVAC_OPTIONS, null,
+				fileManager.getJavaFileObjectsFromFiles(corpus.getSourceFiles()));
+	}
+
+	private static List<CompilationUnitTree> parse(JavacTask task) throws IOException {
+		List<CompilationUnitTree> units = new ArrayList<CompilationUnitTree>();
+		for (CompilationUnitTree cu : task.parse()) {
+			units.add(cu);
+		}
+		return units;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private List<GenerationContext<Object>> newContexts(GeneratorConfiguration configuration) {
+		Trees trees = Trees.instance(analyzedTask);
+		List<GenerationContext<Object>> newContexts = new ArrayList<GenerationContext<Object>>();
+		for (int i = 0; i < compilationUnits.size(); ++i) {
+			GenerationContext<Object> context = new GenerationContext<Object>(corpus.getSourceFiles().get(i), configuration,
+					new DefaultJavaScriptNameProvider(), trees, cacheAnnotations, (JavaScriptBuilder) new RhinoJavaScriptBuilder());
+			context.setElements(analyzedTask.getElements());
+			context.setTypes(analyzedTask.getTypes());
+			context.setCompilationUnit(compilationUnits.get(i));
+			newContexts.add(context);
+		}
+		return newContexts;
+	}
+
+	private Class<?> getCorpusClass(int index) {
+		try {
+			return corpus.getClassLoader().loadClass(corpus.getClassNames().get(index));
+		}
+		catch (ClassNotFoundException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private List<Object> write(List<GenerationContext<Object>> writeContexts) {
+		List<Object> roots = new ArrayList<Object>(writeContexts.size());
+		for (int i = 0; i < writeContexts.size(); ++i) {
+			GenerationContext<Object> context = writeContexts.get(i);
+			roots.add(plugins.forClass(getCorpusClass(i)).getWriterVisitor().scan(compilationUnits.get(i), context));
+			context.getChecks().check();
+		}
+		return roots;
+	}
+
+	@Benchmark
+	public List<CompilationUnitTree> parse() throws IOException {
+		return parse(newTask());
+	}
+
+	@Benchmark
+	public List<CompilationUnitTree> analyze() throws IOException {
+		JavacTask task = newTask();
+		List<CompilationUnitTree> units = parse(task);
+		task.analyze();
+		return units;
+	}
+
+	@Benchmark
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public List<GenerationContext<Object>> check() {
+		List<GenerationContext<Object>> checkContexts = newContexts(config);
+		for (int i = 0; i < checkContexts.size(); ++i) {
+			GenerationContext context = checkContexts.get(i);
+			plugins.forClass(getCorpusClass(i)).getCheckVisitor().scan(compilationUnits.get(i), context);
+			context.getChecks().check();
+		}
+		return checkContexts;
+	}
+
+	@Benchmark
+	public List<Object> write() {
+		return write(newContexts(config));
+	}
+
+	@Benchmark
+	public int print() {
+		int length = 0;
+		for (int i = 0; i < contexts.size(); ++i) {
+			StringWriter writer = new StringWriter();
+			contexts.get(i).writeJavaScript(javascriptRoots.get(i), writer);
+			length += writer.getBuffer().length();
+		}
+		return length;
+	}
+
+	@Benchmark
+	public int printWithSourceMap() throws IOException {
+		int length = 0;
+		for (int i = 0; i < sourceMapContexts.size(); ++i) {
+			StringWriter writer = new StringWriter();
+			sourceMapContexts.get(i).writeJavaScript(sourceMapJavascriptRoots.get(i), writer);
+			sourceMapContexts.get(i).writeSourceMap(writer);
+			length += writer.getBuffer().length();
+		}
+		return length;
+	}
+
+	@Benchmark
+	public List<ClassWithJavascript> orderDependencies() {
+		return new DependencyCollector().orderAllDependencies(generatedClasses);
+	}
+
+	@Benchmark
+	public List<ClassWithJavascript> generate() {
+		Generator generator = new Generator(config);
+		try {
+			return generator.generateJavascript(corpus.getClassNames(), corpus.getSourceFolder());
+		}
+		finally {
+			generator.close();
+		}
+	}
+}
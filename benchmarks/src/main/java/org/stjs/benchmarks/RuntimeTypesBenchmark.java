@@ -0,0 +1,110 @@
+package org.stjs.benchmarks;
+
+import static org.stjs.javascript.JSCollections.$array;
+import static org.stjs.javascript.JSCollections.$map;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.stjs.javascript.Array;
+import org.stjs.javascript.Date;
+import org.stjs.javascript.Map;
+import org.stjs.javascript.SortFunction;
+
+/**
+ * Measures the Java implementation of the shared JavaScript types ({@link Array}, {@link Map} and {@link Date}), used when the code
+ * written with ST-JS runs on the server side or in the unit tests.
+ * <p>
+ * Run it with: java -cp benchmarks/target/benchmarks.jar:$JAVA_HOME/lib/tools.jar org.openjdk.jmh.Main RuntimeTypesBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuntimeTypesBenchmark {
+	private static final SortFunction<Integer> DESCENDING = new SortFunction<Integer>() {
+		@Override
+		public int $invoke(Integer a, Integer b) {
+			return b - a;
+		}
+	};
+
+	@Param({ "1000" })
+	private int size;
+
+	@Benchmark
+	public Array<Integer> arrayPushAndGet() {
+		Array<Integer> array = $array();
+		for (int i = 0; i < size; ++i) {
+			array.push(i);
+		}
+		int sum = 0;
+		for (int i = 0; i < array.$length(); ++i) {
+			sum += array.$get(i);
+		}
+		array.push(sum);
+		return array;
+	}
+
+	@Benchmark
+	public int arrayIterateKeys() {
+		Array<Integer> array = $array();
+		for (int i = 0; i < size; ++i) {
+			array.push(i);
+		}
+		int sum = 0;
+		for (String key : array) {
+			sum += array.$get(key);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public String arraySpliceSortJoin() {
+		Array<Integer> array = $array();
+		for (int i = 0; i < size; ++i) {
+			array.push(i);
+		}
+		array.splice(size / 4, size / 4);
+		array.sort(DESCENDING);
+		return array.slice(0, size / 10).join(",");
+	}
+
+	@Benchmark
+	public Map<String, Integer> mapPutGetDelete() {
+		Map<String, Integer> map = $map();
+		for (int i = 0; i < size; ++i) {
+			map.$put("key" + i, i);
+		}
+		int sum = 0;
+		for (String key : map) {
+			sum += map.$get(key);
+		}
+		for (int i = 0; i < size; i += 2) {
+			map.$delete("key" + i);
+		}
+		map.$put("sum", sum);
+		return map;
+	}
+
+	@Benchmark
+	public double date() {
+		double total = 0;
+		for (int i = 0; i < size; ++i) {
+			Date date = new Date(2015, i % 12, 1 + i % 28, i % 24, i % 60);
+			total += date.getTime() + date.getDay() + date.getTimezoneOffset();
+		}
+		return total;
+	}
+}
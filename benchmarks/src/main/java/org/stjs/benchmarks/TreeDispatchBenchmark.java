@@ -0,0 +1,201 @@
+package org.stjs.benchmarks;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.stjs.generator.visitor.TreePathHolder;
+import org.stjs.generator.visitor.TreePathScannerContributors;
+import org.stjs.generator.visitor.VisitorContributor;
+
+import com.google.common.collect.Maps;
+import com.sun.source.tree.BinaryTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreeScanner;
+
+/**
+ * Measures the cost of dispatching each node of a large compilation unit to the contributors of a
+ * {@link TreePathScannerContributors}, as done by the check and the writer visitors. The <code>reflective</code> benchmark keeps the
+ * previous dispatch, that looked for the tree interface of the node's class for each visited node.
+ * <p>
+ * Run it with: java -cp benchmarks/target/benchmarks.jar:$JAVA_HOME/lib/tools.jar org.openjdk.jmh.Main TreeDispatchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeDispatchBenchmark {
+	@Param({ "2000" })
+	private int methods;
+
+	private CompilationUnitTree compilationUnit;
+	private CountingScanner scanner;
+	private ReflectiveScanner reflectiveScanner;
+
+	@Setup
+	public void parse() throws IOException {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		JavacTask task = (JavacTask) compiler.getTask(null, null, null, null, null,
+				Collections.singletonList(new SourceString("Large", generateSource(methods))));
+		compilationUnit = task.parse().iterator().next();
+
+		scanner = new CountingScanner();
+		scanner.setContinueScanning(true);
+		scanner.contribute(new IdentifierCounter());
+		scanner.contribute(new InvocationCounter());
+		scanner.contribute(new BinaryCounter());
+
+		reflectiveScanner = new ReflectiveScanner();
+	}
+
+	@Benchmark
+	public int table() {
+		Counter counter = new Counter();
+		scanner.scan(compilationUnit, counter);
+		return counter.count;
+	}
+
+	@Benchmark
+	public int reflective() {
+		Counter counter = new Counter();
+		reflectiveScanner.scan(compilationUnit, counter);
+		return counter.count;
+	}
+
+	private static String generateSource(int methods) {
+		StringBuilder source = new StringBuilder("public class Large {\n");
+		for (int i = 0; i < methods; ++i) {
+			source.append("  public int method").append(i).append("(int a, int b) {\n");
+			source.append("    int c = a + b * ").append(i).append(";\n");
+			source.append("    for (int k = 0; k < c; ++k) {\n");
+			source.append("      if (k % 2 == 0) { c = Math.max(c, k) - a; } else { c += method0(k, b); }\n");
+			source.append("    }\n");
+			source.append("    return c > 0 ? c : -c;\n");
+			source.append("  }\n");
+		}
+		return source.append("}\n").toString();
+	}
+
+	private static class SourceString extends SimpleJavaFileObject {
+		private final String code;
+
+		SourceString(String className, String code) {
+			super(URI.create("string:///" + className + Kind.SOURCE.extension), Kind.SOURCE);
+			this.code = code;
+		}
+
+		@Override
+		public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+			return code;
+		}
+	}
+
+	private static class Counter implements TreePathHolder {
+		private TreePath currentPath;
+		private int count;
+
+		@Override
+		public void setCurrentPath(TreePath path) {
+			currentPath = path;
+		}
+
+		@Override
+		public TreePath getCurrentPath() {
+			return currentPath;
+		}
+	}
+
+	private static class CountingScanner extends TreePathScannerContributors<Void, Counter, CountingScanner> {
+		//
+	}
+
+	private static class IdentifierCounter implements VisitorContributor<IdentifierTree, Void, Counter, CountingScanner> {
+		@Override
+		public Void visit(CountingScanner visitor, IdentifierTree tree, Counter p) {
+			p.count++;
+			return null;
+		}
+	}
+
+	private static class InvocationCounter implements VisitorContributor<MethodInvocationTree, Void, Counter, CountingScanner> {
+		@Override
+		public Void visit(CountingScanner visitor, MethodInvocationTree tree, Counter p) {
+			p.count++;
+			return null;
+		}
+	}
+
+	private static class BinaryCounter implements VisitorContributor<BinaryTree, Void, Counter, CountingScanner> {
+		@Override
+		public Void visit(CountingScanner visitor, BinaryTree tree, Counter p) {
+			p.count++;
+			return null;
+		}
+	}
+
+	/**
+	 * the previous dispatch: the tree interface of the node is searched in the interfaces of its class each time a node is visited.
+	 */
+	private static class ReflectiveScanner extends TreeScanner<Void, Counter> {
+		private final Map<Class<?>, Boolean> counted = Maps.newHashMap();
+
+		ReflectiveScanner() {
+			counted.put(IdentifierTree.class, Boolean.TRUE);
+			counted.put(MethodInvocationTree.class, Boolean.TRUE);
+			counted.put(BinaryTree.class, Boolean.TRUE);
+		}
+
+		@Override
+		public Void scan(Tree tree, Counter p) {
+			if (tree == null) {
+				return null;
+			}
+			TreePath prev = p.getCurrentPath();
+			p.setCurrentPath(new TreePath(prev, tree));
+			try {
+				if (counted.get(getTreeInterface(tree.getClass())) != null) {
+					p.count++;
+				}
+				return tree.accept(this, p);
+			}
+			finally {
+				p.setCurrentPath(prev);
+			}
+		}
+
+		private static Class<?> getTreeInterface(Class<?> clazz) {
+			for (Type iface : clazz.getGenericInterfaces()) {
+				if (iface instanceof Class<?> && Tree.class.isAssignableFrom((Class<?>) iface)) {
+					return (Class<?>) iface;
+				}
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package org.stjs.benchmarks.corpus;
+
+public class Circle extends Shape {
+	public static final double PI = 3.141592653589793;
+
+	private final double radius;
+
+	public Circle(String name, double radius) {
+		super(name);
+		this.radius = radius;
+	}
+
+	public double getRadius() {
+		return radius;
+	}
+
+	@Override
+	public double area() {
+		return PI * radius * radius;
+	}
+
+	@Override
+	public double perimeter() {
+		return 2 * PI * radius;
+	}
+}
@@ -0,0 +1,58 @@
+package org.stjs.benchmarks.corpus;
+
+import org.stjs.javascript.Array;
+import org.stjs.javascript.functions.Callback1;
+
+public class Geometry {
+	public static final int SMALL = 0;
+	public static final int MEDIUM = 1;
+	public static final int LARGE = 2;
+
+	private static int created;
+
+	public static ShapeStore createStore(int count) {
+		ShapeStore store = new ShapeStore();
+		store.addListener(new Callback1<Shape>() {
+			@Override
+			public void $invoke(Shape shape) {
+				created++;
+				if (shape.area() > 100) {
+					shape.setColor("red");
+				}
+			}
+		});
+		for (int i = 0; i < count; ++i) {
+			store.add(createShape(i));
+		}
+		return store;
+	}
+
+	private static Shape createShape(int i) {
+		switch (i % 3) {
+		case 0:
+			return new Circle("circle" + i, i + 1);
+		case 1:
+			return new Rectangle("rectangle" + i, i + 1, i + 2);
+		default:
+			return new Square("square" + i, i + 1);
+		}
+	}
+
+	public static int category(Shape shape) {
+		double area = shape.area();
+		if (area < 10) {
+			return SMALL;
+		}
+		return area < 1000 ? MEDIUM : LARGE;
+	}
+
+	public static String report(ShapeStore store) {
+		String report = "";
+		Array<Shape> sorted = store.sortedByArea();
+		for (int i = 0; i < sorted.$length(); ++i) {
+			Shape shape = sorted.$get(i);
+			report += category(shape) + ":" + shape.describe() + "\n";
+		}
+		return report + "total=" + store.totalArea() + " created=" + created;
+	}
+}
@@ -0,0 +1,33 @@
+package org.stjs.benchmarks.corpus;
+
+public abstract class Shape {
+	public static final String DEFAULT_COLOR = "black";
+
+	private final String name;
+	private String color;
+
+	protected Shape(String name) {
+		this.name = name;
+		this.color = DEFAULT_COLOR;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getColor() {
+		return color;
+	}
+
+	public void setColor(String color) {
+		this.color = color;
+	}
+
+	public abstract double area();
+
+	public abstract double perimeter();
+
+	public String describe() {
+		return name + "[" + color + "] area=" + area() + " perimeter=" + perimeter();
+	}
+}
@@ -0,0 +1,72 @@
+package org.stjs.benchmarks.corpus;
+
+import static org.stjs.javascript.JSCollections.$array;
+import static org.stjs.javascript.JSCollections.$map;
+
+import org.stjs.javascript.Array;
+import org.stjs.javascript.Map;
+import org.stjs.javascript.SortFunction;
+import org.stjs.javascript.functions.Callback1;
+
+public class ShapeStore {
+	private final Array<Shape> shapes;
+	private final Map<String, Shape> byName;
+	private final Array<Callback1<Shape>> listeners;
+
+	public ShapeStore() {
+		shapes = $array();
+		byName = $map();
+		listeners = $array();
+	}
+
+	public void addListener(Callback1<Shape> listener) {
+		listeners.push(listener);
+	}
+
+	public void add(Shape shape) {
+		shapes.push(shape);
+		byName.$put(shape.getName(), shape);
+		for (int i = 0; i < listeners.$length(); ++i) {
+			listeners.$get(i).$invoke(shape);
+		}
+	}
+
+	public Shape find(String name) {
+		return byName.$get(name);
+	}
+
+	public double totalArea() {
+		double total = 0;
+		for (String i : shapes) {
+			total += shapes.$get(i).area();
+		}
+		return total;
+	}
+
+	public Array<Shape> sortedByArea() {
+		Array<Shape> copy = shapes.slice(0);
+		copy.sort(new SortFunction<Shape>() {
+			@Override
+			public int $invoke(Shape a, Shape b) {
+				double diff = a.area() - b.area();
+				return diff < 0 ? -1 : diff > 0 ? 1 : 0;
+			}
+		});
+		return copy;
+	}
+
+	public Array<Shape> withColor(String color) {
+		Array<Shape> result = $array();
+		for (int i = 0; i < shapes.$length(); ++i) {
+			Shape shape = shapes.$get(i);
+			if (color.equals(shape.getColor())) {
+				result.push(shape);
+			}
+		}
+		return result;
+	}
+
+	public int count() {
+		return shapes.$length();
+	}
+}
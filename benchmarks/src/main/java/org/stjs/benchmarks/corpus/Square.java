@@ -0,0 +1,12 @@
+package org.stjs.benchmarks.corpus;
+
+public class Square extends Rectangle {
+	public Square(String name, double side) {
+		super(name, side, side);
+	}
+
+	@Override
+	public String describe() {
+		return "square " + super.describe();
+	}
+}
@@ -260,7 +260,8 @@ Boolean.valueOf=function(value){
 
 /************* STJS helper functions ***************/
 stjs.global=this;
-stjs.skipCopy = {"prototype":true, "constructor": true, "$typeDescription":true, "$inherit" : true};
+stjs.skipCopy = {"prototype":true, "constructor": true, "$typeDescription":true, "$inherit" : true, "$typeId" : true, "$ancestors" : true};
+stjs.lastTypeId = 0;
 
 stjs.ns=function(path){
 	var p = path.split(".");
@@ -300,6 +301,48 @@ stjs.varargs = function(func, varargsIndex){
     };
 };
 
+// the same as stjs.varargs, for the methods whose varargs parameter is the first, second, third or fourth one.
+// The parameters before the varargs are declared and arguments is only read, so the engines can optimize the call.
+stjs.varargs0 = function(func){
+    return function(){
+        var rest = [];
+        for (var i = 0; i < arguments.length; ++i) {
+            rest.push(arguments[i]);
+        }
+        return func.call(this, rest);
+    };
+};
+
+stjs.varargs1 = function(func){
+    return function(a){
+        var rest = [];
+        for (var i = 1; i < arguments.length; ++i) {
+            rest.push(arguments[i]);
+        }
+        return func.call(this, a, rest);
+    };
+};
+
+stjs.varargs2 = function(func){
+    return function(a, b){
+        var rest = [];
+        for (var i = 2; i < arguments.length; ++i) {
+            rest.push(arguments[i]);
+        }
+        return func.call(this, a, b, rest);
+    };
+};
+
+stjs.varargs3 = function(func){
+    return function(a, b, c){
+        var rest = [];
+        for (var i = 3; i < arguments.length; ++i) {
+            rest.push(arguments[i]);
+        }
+        return func.call(this, a, b, c, rest);
+    };
+};
+
 stjs.extend=function(_constructor, _super, _implements, _initializer, _typeDescription, _annotations){
 	if(typeof(_typeDescription) !== "object"){
 		// stjs 1.3+ always passes an non-null object to _typeDescription => The code calling stjs.extend
@@ -308,6 +351,12 @@ stjs.extend=function(_constructor, _super, _implements, _initializer, _typeDescr
 	}
 
 	_constructor.$inherit=[];
+	// the type id, and the ids of all the types this one inherits from, make stjs.isInstanceOf a simple lookup
+	if (!_constructor.hasOwnProperty("$typeId")) {
+		_constructor.$typeId = ++stjs.lastTypeId;
+	}
+	_constructor.$ancestors = {};
+	_constructor.$ancestors[_constructor.$typeId] = true;
 
 	if(_super != null){
 		// I is used as a no-op constructor that has the same prototype as _super
@@ -327,6 +376,7 @@ stjs.extend=function(_constructor, _super, _implements, _initializer, _typeDescr
 
 		//add the super class to inherit array
 		_constructor.$inherit.push(_super);
+		stjs.addAncestors(_constructor.$ancestors, _super);
 	}
 
 	// copy static properties and default methods from interfaces
@@ -335,6 +385,7 @@ stjs.extend=function(_constructor, _super, _implements, _initializer, _typeDescr
 		stjs.copyProps(_implements[a], _constructor);
 		stjs.copyInexistentProps(_implements[a].prototype, _constructor.prototype);
 		_constructor.$inherit.push(_implements[a]);
+		stjs.addAncestors(_constructor.$ancestors, _implements[a]);
 	}
 
 	// remember the correct constructor
@@ -414,13 +465,34 @@ stjs.getParameterAnnotation = function(clz, methodName, idx, annType) {
 };
 
 /**
- * checks if the child is an instanceof parent. it checks recursively if "parent" is the child itself or it's found somewhere in the $inherit array
+ * adds the ids of the given type and of all the types it inherits from. The types created by stjs.extend already know their
+ * ancestors, the other ones are walked through their $inherit array
+ */
+stjs.addAncestors=function(ancestors, type){
+	if (type.$ancestors) {
+		for(var id in type.$ancestors){
+			ancestors[id] = true;
+		}
+		return;
+	}
+	if (!type.$inherit)
+		return;
+	for(var i = 0; i < type.$inherit.length; ++i){
+		stjs.addAncestors(ancestors, type.$inherit[i]);
+	}
+};
+
+/**
+ * checks if the child is an instanceof parent. If both were created by stjs.extend, "parent" is looked up in the ancestors of
+ * the child. Otherwise it checks recursively if "parent" is the child itself or it's found somewhere in the $inherit array
  */
 stjs.isInstanceOf=function(child, parent){
 	if (child == null)
 		return false;
 	if (child === parent)
 		return true;
+	if (child.$ancestors && parent != null && parent.$typeId)
+		return child.$ancestors[parent.$typeId] === true;
 	if (!child.$inherit)
 		return false;
 	for(var i = 0; i < child.$inherit.length; ++i){
@@ -431,6 +503,16 @@ stjs.isInstanceOf=function(child, parent){
 	return false;
 }
 
+/**
+ * the same as stjs.isInstanceOf, for the interfaces: a constructor is never the interface itself, so the ancestors of the child
+ * are looked up first
+ */
+stjs.isInstanceOfInterface=function(child, parent){
+	if (child != null && child.$ancestors && parent != null && parent.$typeId)
+		return child.$ancestors[parent.$typeId] === true;
+	return stjs.isInstanceOf(child, parent);
+}
+
 stjs.enumEntry=function(idx, name){
 	this._name = name;
 	this._ordinal = idx;
@@ -487,6 +569,17 @@ if (typeof Math.trunc === "function") {
 	}
 }
 
+/**
+ * converts a floating point number to an int as Java does: the numbers out of the int range are saturated and NaN gives 0
+ */
+stjs.truncToInt=function(n) {
+	if (n >= 2147483647)
+		return 2147483647;
+	if (n <= -2147483648)
+		return -2147483648;
+	return n | 0;
+};
+
 stjs.converters = {
 	Date : function(s, type) {
 		var a = /^(\d{4})-(\d{2})-(\d{2}) (\d{2}):(\d{2}):(\d{2}(?:\.\d*)?)$/
@@ -564,6 +657,62 @@ stjs.bind=function(obj, method, thisParamPos) {
 	return f;
 };
 
+/**
+ * bind0 to bind4 are the same as bind(instance, "methodName"), bind(this, function) and bind("methodName"), for the lambdas
+ * and the method references whose number of parameters is known, from 0 to 4. The parameters are declared, so the bound
+ * function does not touch arguments and the engines can optimize the call. For bindN("methodName"), the object on which
+ * the method is called is an extra first parameter.
+ */
+stjs.bind0=function(obj, method) {
+	if (method == null) {
+		return function(o) {return o[obj]();};
+	}
+	if (typeof method === "string") {
+		return function() {return obj[method]();};
+	}
+	return function() {return method.call(obj);};
+};
+
+stjs.bind1=function(obj, method) {
+	if (method == null) {
+		return function(o, a) {return o[obj](a);};
+	}
+	if (typeof method === "string") {
+		return function(a) {return obj[method](a);};
+	}
+	return function(a) {return method.call(obj, a);};
+};
+
+stjs.bind2=function(obj, method) {
+	if (method == null) {
+		return function(o, a, b) {return o[obj](a, b);};
+	}
+	if (typeof method === "string") {
+		return function(a, b) {return obj[method](a, b);};
+	}
+	return function(a, b) {return method.call(obj, a, b);};
+};
+
+stjs.bind3=function(obj, method) {
+	if (method == null) {
+		return function(o, a, b, c) {return o[obj](a, b, c);};
+	}
+	if (typeof method === "string") {
+		return function(a, b, c) {return obj[method](a, b, c);};
+	}
+	return function(a, b, c) {return method.call(obj, a, b, c);};
+};
+
+stjs.bind4=function(obj, method) {
+	if (method == null) {
+		return function(o, a, b, c, d) {return o[obj](a, b, c, d);};
+	}
+	if (typeof method === "string") {
+		return function(a, b, c, d) {return obj[method](a, b, c, d);};
+	}
+	return function(a, b, c, d) {return method.call(obj, a, b, c, d);};
+};
+
 
 /** *********** global ************** */
 function exception(err){
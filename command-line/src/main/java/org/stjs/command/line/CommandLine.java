@@ -17,6 +17,7 @@ import javax.tools.StandardLocation;
 import javax.tools.ToolProvider;
 
 import org.stjs.generator.GenerationDirectory;
+import org.stjs.generator.GenerationMetrics;
 import org.stjs.generator.Generator;
 import org.stjs.generator.GeneratorConfiguration;
 import org.stjs.generator.GeneratorConfigurationBuilder;
@@ -39,6 +40,23 @@ public class CommandLine {
 	}
 
 	static void generate(final String path, final String className, List<File> dependencies, String outputDir) {
+		generate(path, Collections.singletonList(className), dependencies, outputDir);
+	}
+
+	static void generate(final String path, final List<String> classNames, List<File> dependencies, String outputDir) {
+		generate(path, classNames, dependencies, outputDir, 1);
+	}
+
+	static void generate(final String path, final List<String> classNames, List<File> dependencies, String outputDir,
+			int generationThreads) {
+		generate(path, classNames, dependencies, outputDir, generationThreads, null);
+	}
+
+	/**
+	 * generates all the given classes with the same generator. The packages of the given classes are all allowed.
+	 */
+	static void generate(final String path, final List<String> classNames, List<File> dependencies, String outputDir,
+			int generationThreads, GenerationMetrics metrics) {
 		Generator gen = null;
 		try {
 			List<URL> classpathElements = new ArrayList<URL>();
@@ -54,14 +72,20 @@ public class CommandLine {
 			GenerationDirectory generationFolder = new GenerationDirectory(new File(outputDir), null, new URI("/"));
 
 			GeneratorConfigurationBuilder configBuilder = new GeneratorConfigurationBuilder();
-			configBuilder.allowedPackage(builtProjectClassLoader.loadClass(className).getPackage().getName());
+			for (String className : classNames) {
+				// the package is deduced from the name, to avoid loading all the classes
+				int pos = className.lastIndexOf('.');
+				configBuilder.allowedPackage(pos < 0 ? "" : className.substring(0, pos));
+			}
+			configBuilder.generationThreads(generationThreads);
+			configBuilder.metrics(metrics);
 			configBuilder.generationFolder(generationFolder);
 			configBuilder.targetFolder(generationFolder.getGeneratedSourcesAbsolutePath());
 			configBuilder.stjsClassLoader(builtProjectClassLoader);
 
 			GeneratorConfiguration configuration = configBuilder.build();
 			gen = new Generator(configuration);
-			gen.generateJavascript(className, sourceFolder);
+			gen.generateJavascript(classNames, sourceFolder);
 		}
 		catch (Exception e) {
 			throw Throwables.propagate(e);
@@ -93,4 +117,4 @@ public class CommandLine {
 		}
 
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,474 @@
+/**
+ * Copyright 2011 Alexandru Craciun, Eyal Kaspi
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stjs.command.line;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.AclEntry;
+import java.nio.file.attribute.AclEntryPermission;
+import java.nio.file.attribute.AclEntryType;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import org.stjs.generator.BridgeClass;
+import org.stjs.generator.ClassWithJavascript;
+import org.stjs.generator.GenerationDirectory;
+import org.stjs.generator.Generator;
+import org.stjs.generator.GeneratorConfiguration;
+import org.stjs.generator.GeneratorConfigurationBuilder;
+import org.stjs.generator.JavascriptFileGenerationException;
+import org.stjs.generator.MultipleFileGenerationException;
+import org.stjs.generator.STJSRuntimeException;
+import org.stjs.generator.plugin.GenerationPlugins;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.base.Throwables;
+import com.google.common.io.BaseEncoding;
+
+/**
+ * A long running generator process, meant to be used by editors that generate the Javascript each time a file is saved. The daemon keeps
+ * in memory, for each project, the class loader of the project's libraries, the javac file managers and the generator, so that only the
+ * first request pays for opening the jars and warming up the JVM. Only the most recently used projects are kept.
+ * <p>
+ * The daemon serves the projects of a root folder and listens on a local TCP port. At startup, it writes a random token in a file only
+ * its owner can read. The first line of a connection must be <code>AUTH token</code>, otherwise the connection is closed, so the other
+ * users of the machine cannot use the daemon. Then each request is a line whose fields are separated by tabs:
+ * <ul>
+ * <li><code>PING</code> answers <code>OK</code></li>
+ * <li><code>GENERATE srcDir libDir outputDir className...</code> compiles and generates the given classes. The folders must be inside
+ * the root folder, and the relative paths are resolved against it. libDir may be empty. Each error is sent as a line
+ * <code>ERROR file line column message</code>, then the last line is <code>OK generatedFileCount</code> or
+ * <code>FAILED errorCount</code></li>
+ * <li><code>RESET</code> forgets all the projects (for example after the libraries changed) and answers <code>OK</code></li>
+ * <li><code>SHUTDOWN</code> answers <code>OK</code> and stops the daemon</li>
+ * </ul>
+ * The requests are processed one at a time. So that a client cannot block the others, a connection is closed when the AUTH line does
+ * not arrive within a few seconds, or when no request arrives for a minute. The clients connect again for their next request.
+ */
+public class GeneratorDaemon {
+	private static final String SEPARATOR = "\t";
+	private static final String OK = "OK";
+	private static final String FAILED = "FAILED";
+	private static final String ERROR = "ERROR";
+	private static final int MAX_PROJECTS = 8;
+	private static final int TOKEN_BYTES = 32;
+	private static final String TOKEN_FILE = ".stjs-daemon.token";
+	private static final int AUTH_TIMEOUT_MILLIS = 5000;
+	private static final int IDLE_TIMEOUT_MILLIS = 60000;
+
+	private static final Logger LOG = Logger.getLogger(GeneratorDaemon.class.getName());
+
+	private final ServerSocket serverSocket;
+	private final File rootFolder;
+	private final File tokenFile;
+	private final String token;
+	private final int authTimeoutMillis;
+	private final int idleTimeoutMillis;
+	// the least recently used project is closed when there are too many of them
+	private final Map<String, Project> projects = new LinkedHashMap<String, Project>(MAX_PROJECTS, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Project> eldest) {
+			if (size() <= MAX_PROJECTS) {
+				return false;
+			}
+			eldest.getValue().close();
+			return true;
+		}
+	};
+	private final GenerationPlugins<Object> plugins = new GenerationPlugins<Object>();
+	private volatile boolean running = true;
+
+	/**
+	 * @param port the port to listen on, or 0 to choose a free one
+	 * @param rootFolder the folder containing the sources, libraries and output folders of the projects
+	 * @param tokenFile the file where the token of the clients is written
+	 */
+	public GeneratorDaemon(int port, File rootFolder, File tokenFile) throws IOException {
+		this(port, rootFolder, tokenFile, AUTH_TIMEOUT_MILLIS, IDLE_TIMEOUT_MILLIS);
+	}
+
+	/**
+	 * @param authTimeoutMillis the time given to a new connection to send its AUTH line
+	 * @param idleTimeoutMillis the time after which a connection without any request is closed
+	 */
+	GeneratorDaemon(int port, File rootFolder, File tokenFile, int authTimeoutMillis, int idleTimeoutMillis) throws IOException {
+		this.rootFolder = rootFolder.getCanonicalFile();
+		this.tokenFile = tokenFile;
+		this.authTimeoutMillis = authTimeoutMillis;
+		this.idleTimeoutMillis = idleTimeoutMillis;
+		this.token = newToken();
+		writeToken(tokenFile, token);
+		serverSocket = new ServerSocket(port, 0, InetAddress.getByName(null));
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1 || args.length > 2) {
+			System.err.println("Usage: st-js-daemon rootFolder [port]");
+			return;
+		}
+		File rootFolder = new File(args[0]);
+		File tokenFile = new File(rootFolder, TOKEN_FILE);
+		GeneratorDaemon daemon = new GeneratorDaemon(args.length == 1 ? 0 : Integer.parseInt(args[1]), rootFolder, tokenFile);
+		System.out.println("st-js daemon listening on port " + daemon.getPort() + ", token in " + tokenFile.getAbsolutePath());
+		daemon.run();
+	}
+
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	private static String newToken() {
+		byte[] bytes = new byte[TOKEN_BYTES];
+		new SecureRandom().nextBytes(bytes);
+		return BaseEncoding.base16().lowerCase().encode(bytes);
+	}
+
+	/**
+	 * writes the token in a file that only the owner of the daemon can read. The file is created with these permissions, so the token is
+	 * never readable by the others, even for a short time.
+	 */
+	private static void writeToken(File tokenFile, String token) throws IOException {
+		Path path = tokenFile.toPath();
+		Files.deleteIfExists(path);
+		Set<String> views = path.getFileSystem().supportedFileAttributeViews();
+		if (views.contains("posix")) {
+			Files.createFile(path, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+		} else if (views.contains("acl")) {
+			// the file is still empty when its access is restricted
+			Files.createFile(path);
+			AclFileAttributeView view = Files.getFileAttributeView(path, AclFileAttributeView.class);
+			AclEntry ownerOnly = AclEntry.newBuilder().setType(AclEntryType.ALLOW).setPrincipal(view.getOwner())
+					.setPermissions(EnumSet.allOf(AclEntryPermission.class)).build();
+			view.setAcl(Collections.singletonList(ownerOnly));
+		} else {
+			throw new IOException("Cannot restrict the access to the token file " + tokenFile);
+		}
+		Files.write(path, token.getBytes(Charsets.UTF_8));
+	}
+
+	/**
+	 * serves the requests until a SHUTDOWN request is received. An error on a connection only closes this connection.
+	 */
+	public void run() throws IOException {
+		try {
+			while (running) {
+				Socket socket = serverSocket.accept();
+				try {
+					serve(socket);
+				}
+				catch (SocketTimeoutException e) {
+					LOG.fine("Closing the idle connection " + socket.getRemoteSocketAddress());
+				}
+				catch (IOException e) {
+					LOG.log(Level.WARNING, "Error on the connection " + socket.getRemoteSocketAddress(), e);
+				}
+				finally {
+					close(socket);
+				}
+			}
+		}
+		finally {
+			serverSocket.close();
+			reset();
+			Files.deleteIfExists(tokenFile.toPath());
+		}
+	}
+
+	private void serve(Socket socket) throws IOException {
+		BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), Charsets.UTF_8));
+		PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), Charsets.UTF_8));
+		socket.setSoTimeout(authTimeoutMillis);
+		if (!isAuthenticated(in.readLine())) {
+			out.println(FAILED + SEPARATOR + "Authentication required");
+			out.flush();
+			return;
+		}
+		out.println(OK);
+		out.flush();
+
+		// the timeout only applies while waiting for a request, not while the request is processed
+		socket.setSoTimeout(idleTimeoutMillis);
+
+		String line;
+		while (running && (line = in.readLine()) != null) {
+			if (line.isEmpty()) {
+				continue;
+			}
+			handle(line.split(SEPARATOR, -1), out);
+			out.flush();
+		}
+	}
+
+	private boolean isAuthenticated(String line) {
+		String prefix = "AUTH" + SEPARATOR;
+		if (line == null || !line.startsWith(prefix)) {
+			return false;
+		}
+		// constant time comparison, not to give any hint about the token
+		return MessageDigest.isEqual(token.getBytes(Charsets.UTF_8), line.substring(prefix.length()).getBytes(Charsets.UTF_8));
+	}
+
+	/**
+	 * @return the canonical file of the given path, that must be inside the root folder. The relative paths are resolved against the root
+	 *         folder.
+	 */
+	private File resolve(String path) throws IOException {
+		File file = new File(path);
+		if (!file.isAbsolute()) {
+			file = new File(rootFolder, path);
+		}
+		file = file.getCanonicalFile();
+		for (File parent = file; parent != null; parent = parent.getParentFile()) {
+			if (parent.equals(rootFolder)) {
+				return file;
+			}
+		}
+		throw new STJSRuntimeException("The folder " + path + " is outside of the root folder " + rootFolder);
+	}
+
+	private void handle(String[] request, PrintWriter out) {
+		String command = request[0];
+		if ("PING".equals(command)) {
+			out.println(OK);
+		} else if ("GENERATE".equals(command) && request.length > 4) {
+			generate(request[1], request[2], request[3], Arrays.asList(request).subList(4, request.length), out);
+		} else if ("RESET".equals(command)) {
+			reset();
+			out.println(OK);
+		} else if ("SHUTDOWN".equals(command)) {
+			running = false;
+			out.println(OK);
+		} else {
+			out.println(FAILED + SEPARATOR + "Unknown request: " + command);
+		}
+	}
+
+	private void generate(String path, String libDir, String outputDir, List<String> classNames, PrintWriter out) {
+		URLClassLoader projectClassLoader = null;
+		try {
+			Project project = getProject(resolve(path), libDir.isEmpty() ? null : resolve(libDir));
+			File outputFolder = resolve(outputDir);
+			List<Diagnostic<? extends JavaFileObject>> compileErrors = project.compile(classNames);
+			if (!compileErrors.isEmpty()) {
+				for (Diagnostic<? extends JavaFileObject> error : compileErrors) {
+					out.println(Joiner.on(SEPARATOR).join(ERROR, error.getSource() == null ? path : error.getSource().getName(),
+							error.getLineNumber(), error.getColumnNumber(), oneLine(error.getMessage(null))));
+				}
+				out.println(FAILED + SEPARATOR + compileErrors.size());
+				return;
+			}
+
+			// the classes of the project change between two requests, so they need a new class loader each time
+			projectClassLoader = new URLClassLoader(new URL[]{ project.sourceFolder.toURI().toURL() }, project.libraryClassLoader);
+			GenerationDirectory generationFolder = new GenerationDirectory(outputFolder, null, new URI("/"));
+			GeneratorConfigurationBuilder configBuilder = new GeneratorConfigurationBuilder();
+			configBuilder.allowedPackages(project.packages);
+			configBuilder.generationFolder(generationFolder);
+			configBuilder.targetFolder(generationFolder.getGeneratedSourcesAbsolutePath());
+			configBuilder.stjsClassLoader(projectClassLoader);
+
+			Generator generator = project.getGenerator(configBuilder.build(), plugins);
+			int generatedFiles = 0;
+			for (ClassWithJavascript stjsClass : generator.generateJavascript(classNames, project.sourceFolder)) {
+				if (!(stjsClass instanceof BridgeClass)) {
+					++generatedFiles;
+				}
+			}
+			out.println(OK + SEPARATOR + generatedFiles);
+		}
+		catch (MultipleFileGenerationException e) {
+			for (JavascriptFileGenerationException error : e.getExceptions()) {
+				printError(error, out);
+			}
+			out.println(FAILED + SEPARATOR + e.getExceptions().size());
+		}
+		catch (JavascriptFileGenerationException e) {
+			printError(e, out);
+			out.println(FAILED + SEPARATOR + 1);
+		}
+		catch (Exception e) {
+			out.println(ERROR + SEPARATOR + path + SEPARATOR + 0 + SEPARATOR + 0 + SEPARATOR + oneLine(e.toString()));
+			out.println(FAILED + SEPARATOR + 1);
+		}
+		finally {
+			if (projectClassLoader != null) {
+				close(projectClassLoader);
+			}
+		}
+	}
+
+	private void printError(JavascriptFileGenerationException e, PrintWriter out) {
+		out.println(Joiner.on(SEPARATOR).join(ERROR, e.getSourcePosition().getFile().getPath(), e.getSourcePosition().getLine(),
+				e.getSourcePosition().getColumn(), oneLine(e.getMessage())));
+	}
+
+	private static void close(Socket socket) {
+		try {
+			socket.close();
+		}
+		catch (IOException e) {
+			LOG.log(Level.WARNING, "Cannot close the connection " + socket.getRemoteSocketAddress(), e);
+		}
+	}
+
+	private static void close(URLClassLoader classLoader) {
+		try {
+			classLoader.close();
+		}
+		catch (IOException e) {
+			throw Throwables.propagate(e);
+		}
+	}
+
+	private static String oneLine(String message) {
+		return String.valueOf(message).replace('\n', ' ').replace('\r', ' ').replace('\t', ' ');
+	}
+
+	private Project getProject(File sourceFolder, File libFolder) throws IOException {
+		String key = sourceFolder + SEPARATOR + libFolder;
+		Project project = projects.get(key);
+		if (project == null) {
+			project = new Project(sourceFolder, libFolder == null ? Collections.<File> emptyList() : ProjectCommandLine.listFiles(libFolder,
+					".jar"));
+			projects.put(key, project);
+		}
+		project.refreshPackages();
+		return project;
+	}
+
+	private void reset() {
+		for (Project project : projects.values()) {
+			project.close();
+		}
+		projects.clear();
+	}
+
+	/**
+	 * the resources kept for a source folder and its libraries. The generator is kept too: only its configuration, holding the class
+	 * loader of the recompiled classes, changes between two requests.
+	 */
+	private static class Project {
+		private final File sourceFolder;
+		private final URLClassLoader libraryClassLoader;
+		private final JavaCompiler compiler;
+		private final StandardJavaFileManager compileFileManager;
+		private final StandardJavaFileManager generationFileManager;
+		private Generator generator;
+		private Set<String> packages;
+
+		Project(File sourceFolder, List<File> libraries) throws IOException {
+			this.sourceFolder = sourceFolder;
+			List<URL> urls = new ArrayList<URL>(libraries.size());
+			for (File library : libraries) {
+				urls.add(library.toURI().toURL());
+			}
+			libraryClassLoader = new URLClassLoader(urls.toArray(new URL[urls.size()]), Thread.currentThread().getContextClassLoader());
+
+			compiler = ToolProvider.getSystemJavaCompiler();
+			if (compiler == null) {
+				throw new STJSRuntimeException("A Java compiler is not available for this project. "
+						+ "You may have configured your environment to run with a JRE instead of a JDK");
+			}
+			List<File> classpath = new ArrayList<File>(libraries);
+			classpath.add(sourceFolder);
+			compileFileManager = compiler.getStandardFileManager(null, null, null);
+			compileFileManager.setLocation(StandardLocation.CLASS_PATH, classpath);
+			generationFileManager = compiler.getStandardFileManager(null, null, Charsets.UTF_8);
+		}
+
+		Generator getGenerator(GeneratorConfiguration config, GenerationPlugins<Object> plugins) {
+			if (generator == null) {
+				generator = new Generator(config, plugins, generationFileManager);
+			} else {
+				generator.setConfiguration(config);
+			}
+			return generator;
+		}
+
+		void refreshPackages() {
+			packages = ProjectCommandLine.listPackages(sourceFolder);
+		}
+
+		/**
+		 * @return the compilation errors
+		 */
+		List<Diagnostic<? extends JavaFileObject>> compile(List<String> classNames) {
+			List<File> sourceFiles = new ArrayList<File>(classNames.size());
+			for (String className : classNames) {
+				sourceFiles.add(new File(sourceFolder, className.replace('.', File.separatorChar) + ".java"));
+			}
+			Iterable<? extends JavaFileObject> compilationUnits = compileFileManager.getJavaFileObjectsFromFiles(sourceFiles);
+			DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+			// the annotation processors of the libraries are not run
+			compiler.getTask(null, compileFileManager, diagnostics, Collections.singletonList("-proc:none"), null, compilationUnits).call();
+
+			List<Diagnostic<? extends JavaFileObject>> errors = new ArrayList<Diagnostic<? extends JavaFileObject>>();
+			for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+				if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+					errors.add(diagnostic);
+				}
+			}
+			return errors;
+		}
+
+		void close() {
+			if (generator != null) {
+				generator.close();
+			}
+			try {
+				compileFileManager.close();
+				generationFileManager.close();
+				libraryClassLoader.close();
+			}
+			catch (IOException e) {
+				throw Throwables.propagate(e);
+			}
+		}
+	}
+}
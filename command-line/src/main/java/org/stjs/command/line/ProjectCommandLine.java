@@ -3,13 +3,21 @@ package org.stjs.command.line;
 import static com.google.common.collect.Lists.newArrayList;
 
 import java.io.File;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.stjs.generator.GenerationMetricsCollector;
+import org.stjs.generator.GenerationPhase;
+import org.stjs.generator.utils.Timers;
 
 public class ProjectCommandLine {
+	private static final int SLOWEST_FILES = 10;
 
 	public static void main(String[] args) {
-		if (args.length != 3) {
-			System.err.println("Usage: st-js <srcDir> <libDir> <outputDir>");
+		if (args.length != 3 && args.length != 4) {
+			System.err.println("Usage: st-js <srcDir> <libDir> <outputDir> [generationThreads]");
 			return;
 		}
 		String path = args[0];
@@ -22,23 +30,57 @@ public class ProjectCommandLine {
 		String outputDir = args[2];
 		List<File> classNames = listFiles(new File(path), ".java");
 
+		int generationThreads = args.length == 4 ? Integer.parseInt(args[3]) : 1;
+
+		Timers.start("compile-java");
 		CommandLine.compile(path, classNames, dependencies);
-		generate(path, classNames, dependencies, outputDir);
+		Timers.end("compile-java");
+
+		// the generator times each of its phases
+		GenerationMetricsCollector metrics = new GenerationMetricsCollector();
+		generate(path, classNames, dependencies, outputDir, generationThreads, metrics);
+
+		Timers.dump();
+		dump(metrics);
+	}
 
+	private static void dump(GenerationMetricsCollector metrics) {
+		for (GenerationPhase phase : GenerationPhase.values()) {
+			System.out.println(phase + "=" + TimeUnit.NANOSECONDS.toMillis(metrics.getPhaseNanos(phase)));
+		}
+		System.out.println("----------------------------");
+		System.out.println("Slowest files:");
+		for (GenerationMetricsCollector.FileMetrics file : metrics.getSlowestFiles(SLOWEST_FILES)) {
+			System.out.println(file.getInputFile() + "=" + TimeUnit.NANOSECONDS.toMillis(file.getTotalNanos()));
+		}
 	}
 
-	private static void generate(String path, List<File> files, List<File> dependencies, String outputDir) {
+	private static void generate(String path, List<File> files, List<File> dependencies, String outputDir, int generationThreads,
+			GenerationMetricsCollector metrics) {
 		File srcPath = new File(path);
+		List<String> classNames = newArrayList();
 		for (File file : files) {
 			// remove the leading srcPath from each file to get the source name
-			CommandLine.generate(
-					path,
-					file.getAbsolutePath().substring(srcPath.getAbsolutePath().length() + 1).replace(".java", "")
-							.replace(File.separatorChar, '.'), dependencies, outputDir);
+			classNames.add(file.getAbsolutePath().substring(srcPath.getAbsolutePath().length() + 1).replace(".java", "")
+					.replace(File.separatorChar, '.'));
+		}
+		CommandLine.generate(path, classNames, dependencies, outputDir, generationThreads, metrics);
+	}
+
+	/**
+	 * @return the packages of all the Java sources found in the given folder, deduced from their path
+	 */
+	static Set<String> listPackages(File srcDir) {
+		Set<String> packages = new HashSet<String>();
+		String srcPath = srcDir.getAbsolutePath();
+		for (File file : listFiles(srcDir, ".java")) {
+			String dir = file.getParentFile().getAbsolutePath();
+			packages.add(dir.length() <= srcPath.length() ? "" : dir.substring(srcPath.length() + 1).replace(File.separatorChar, '.'));
 		}
+		return packages;
 	}
 
-	private static List<File> listFiles(File srcDir, String suffix) {
+	static List<File> listFiles(File srcDir, String suffix) {
 		List<File> files = newArrayList();
 		listFiles0(srcDir, files, suffix);
 		return files;
@@ -59,4 +101,4 @@ public class ProjectCommandLine {
 			}
 		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,193 @@
+package org.stjs.command.line;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URISyntaxException;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+public class GeneratorDaemonTest {
+	private static final String OUTPUT_DIR = "daemon-out";
+	private static final int AUTH_TIMEOUT_MILLIS = 500;
+	private static final int IDLE_TIMEOUT_MILLIS = 2000;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File projectRoot;
+	private File tokenFile;
+	private GeneratorDaemon daemon;
+	private Thread daemonThread;
+	private Socket socket;
+	private BufferedReader in;
+	private PrintWriter out;
+
+	@Before
+	public void startDaemon() throws IOException, URISyntaxException {
+		projectRoot = new File(Thread.currentThread().getContextClassLoader().getResource("test-project").toURI());
+		tokenFile = new File(folder.getRoot(), "daemon.token");
+		daemon = new GeneratorDaemon(0, projectRoot, tokenFile, AUTH_TIMEOUT_MILLIS, IDLE_TIMEOUT_MILLIS);
+		daemonThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					daemon.run();
+				}
+				catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		});
+		daemonThread.start();
+		connect();
+	}
+
+	private void connect() throws IOException {
+		socket = new Socket(InetAddress.getByName(null), daemon.getPort());
+		in = new BufferedReader(new InputStreamReader(socket.getInputStream(), Charsets.UTF_8));
+		out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), Charsets.UTF_8), true);
+		out.println("AUTH\t" + Files.toString(tokenFile, Charsets.UTF_8));
+		assertEquals("OK", in.readLine());
+	}
+
+	@After
+	public void stopDaemon() throws IOException, InterruptedException {
+		out.println("SHUTDOWN");
+		assertEquals("OK", in.readLine());
+		socket.close();
+		daemonThread.join();
+		assertFalse(tokenFile.exists());
+	}
+
+	@Test
+	public void testPing() throws IOException {
+		out.println("PING");
+		assertEquals("OK", in.readLine());
+	}
+
+	@Test
+	public void testGenerateTwice() throws IOException {
+		String request = "GENERATE\t" + new File(projectRoot, "src").getAbsolutePath() + "\t" + new File(projectRoot, "lib").getAbsolutePath()
+				+ "\t" + OUTPUT_DIR + "\torg.stjs.hello.HelloWorld";
+
+		out.println(request);
+		assertEquals("OK\t1", in.readLine());
+		assertTrue(new File(projectRoot, OUTPUT_DIR + "/org/stjs/hello/HelloWorld.js").exists());
+
+		// the second request reuses the same project
+		out.println(request);
+		assertEquals("OK\t1", in.readLine());
+	}
+
+	@Test
+	public void testUnknownRequest() throws IOException {
+		out.println("FOO");
+		assertEquals("FAILED\tUnknown request: FOO", in.readLine());
+	}
+
+	@Test
+	public void testMissingToken() throws IOException {
+		assertRejected("PING");
+	}
+
+	@Test
+	public void testWrongToken() throws IOException {
+		assertRejected("AUTH\t" + Files.toString(tokenFile, Charsets.UTF_8) + "0");
+	}
+
+	@Test
+	public void testTokenFileIsOwnerOnly() throws IOException {
+		if (tokenFile.toPath().getFileSystem().supportedFileAttributeViews().contains("posix")) {
+			assertEquals("rw-------", PosixFilePermissions.toString(java.nio.file.Files.getPosixFilePermissions(tokenFile.toPath())));
+		}
+	}
+
+	@Test
+	public void testFolderOutsideRoot() throws IOException {
+		out.println("GENERATE\tsrc\tlib\t../daemon-outside\torg.stjs.hello.HelloWorld");
+		assertTrue(in.readLine().startsWith("ERROR\t"));
+		assertEquals("FAILED\t1", in.readLine());
+		assertFalse(new File(projectRoot.getParentFile(), "daemon-outside").exists());
+
+		out.println("GENERATE\tsrc\t" + folder.getRoot().getAbsolutePath() + "\t" + OUTPUT_DIR + "\torg.stjs.hello.HelloWorld");
+		assertTrue(in.readLine().startsWith("ERROR\t"));
+		assertEquals("FAILED\t1", in.readLine());
+	}
+
+	@Test
+	public void testSilentConnectionDoesNotBlockTheOthers() throws IOException {
+		socket.close();
+		Socket silentSocket = new Socket(InetAddress.getByName(null), daemon.getPort());
+		try {
+			// served once the silent connection did not authenticate in time
+			connect();
+			out.println("PING");
+			assertEquals("OK", in.readLine());
+			assertNull(new BufferedReader(new InputStreamReader(silentSocket.getInputStream(), Charsets.UTF_8)).readLine());
+		}
+		finally {
+			silentSocket.close();
+		}
+	}
+
+	@Test
+	public void testIdleConnectionIsClosed() throws IOException {
+		Socket idleSocket = socket;
+		BufferedReader idleIn = in;
+		try {
+			// served once the authenticated connection stayed idle for too long
+			connect();
+			out.println("PING");
+			assertEquals("OK", in.readLine());
+			assertNull(idleIn.readLine());
+		}
+		finally {
+			idleSocket.close();
+		}
+	}
+
+	@Test
+	public void testResetConnectionDoesNotStopTheDaemon() throws IOException {
+		socket.setSoLinger(true, 0);
+		socket.close();
+		connect();
+		out.println("PING");
+		assertEquals("OK", in.readLine());
+	}
+
+	private void assertRejected(String firstLine) throws IOException {
+		// the connections are served one at a time
+		socket.close();
+		Socket otherSocket = new Socket(InetAddress.getByName(null), daemon.getPort());
+		try {
+			BufferedReader otherIn = new BufferedReader(new InputStreamReader(otherSocket.getInputStream(), Charsets.UTF_8));
+			PrintWriter otherOut = new PrintWriter(new OutputStreamWriter(otherSocket.getOutputStream(), Charsets.UTF_8), true);
+			otherOut.println(firstLine);
+			assertEquals("FAILED\tAuthentication required", otherIn.readLine());
+			assertNull(otherIn.readLine());
+		}
+		finally {
+			otherSocket.close();
+		}
+		connect();
+	}
+}
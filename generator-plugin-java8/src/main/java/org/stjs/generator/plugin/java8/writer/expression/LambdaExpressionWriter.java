@@ -9,6 +9,7 @@ import javax.lang.model.element.Element;
 
 import org.stjs.generator.GenerationContext;
 import org.stjs.generator.GeneratorConstants;
+import org.stjs.generator.LanguageLevel;
 import org.stjs.generator.check.expression.IdentifierAccessOuterScopeCheck;
 import org.stjs.generator.javac.TreeUtils;
 import org.stjs.generator.javascript.JavaScriptBuilder;
@@ -41,10 +42,30 @@ import com.sun.source.util.TreeScanner;
  * 	return x + y;
  * }
  * </pre>
+ *
+ * or, when generating ES2015,
+ *
+ * <pre>
+ * (x, y) =&gt; x + y
+ * </pre>
+ *
+ * The lambdas accessing the outer scope are bound to it with stjs.bind, unless they are arrow functions, that keep the "this" of
+ * the outer scope.
  * @author acraciun
  * @param <JS>
  */
 public class LambdaExpressionWriter<JS> implements WriterContributor<LambdaExpressionTree, JS> {
+	/** the highest number of parameters of the stjs.bindN functions of the runtime */
+	private static final int MAX_BIND_ARITY = 4;
+
+	/**
+	 * @return stjs.bindN for a function with the given number of parameters, or the generic stjs.bind if the runtime has no
+	 *         such function (or the number is unknown, i.e. negative)
+	 */
+	static <JS> JS stjsBind(GenerationContext<JS> context, int arity) {
+		String name = arity >= 0 && arity <= MAX_BIND_ARITY ? "bind" + arity : "bind";
+		return context.js().property(context.js().name("stjs"), name);
+	}
 
 	private boolean accessOuterScope(LambdaExpressionTree lambda) {
 		AtomicBoolean outerScopeAccess = new AtomicBoolean(false);
@@ -114,17 +135,20 @@ public class LambdaExpressionWriter<JS> implements WriterContributor<LambdaExpre
 		if (!(tree.getBody() instanceof BlockTree)) {
 			body = js.block(Collections.singleton(body));
 		}
-		JS lambdaFunc = js.function(null, params, body);
 		int specialThisParamPos = MethodWriter.getTHISParamPos(tree.getParameters());
+		if (specialThisParamPos < 0 && context.getConfiguration().getLanguageLevel() == LanguageLevel.ES2015) {
+			// the arrow functions have no "this" of their own, so they need no binding
+			return js.arrowFunction(params, body);
+		}
+		JS lambdaFunc = js.function(null, params, body);
 
 		if (accessOuterScope(tree) || specialThisParamPos >= 0) {
 			// bind for lamdas accessing the outher scope
 			JS target = js.keyword(Keyword.THIS);
-			JS stjsBind = js.property(context.js().name("stjs"), "bind");
 			if (specialThisParamPos < 0) {
-				return js.functionCall(stjsBind, Arrays.asList(target, lambdaFunc));
+				return js.functionCall(stjsBind(context, params.size()), Arrays.asList(target, lambdaFunc));
 			}
-			return js.functionCall(stjsBind, Arrays.asList(target, lambdaFunc, js.number(specialThisParamPos)));
+			return js.functionCall(stjsBind(context, -1), Arrays.asList(target, lambdaFunc, js.number(specialThisParamPos)));
 		}
 		return lambdaFunc;
 	}
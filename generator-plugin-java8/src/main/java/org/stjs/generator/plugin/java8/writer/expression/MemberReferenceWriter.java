@@ -10,6 +10,8 @@ import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
 
 import org.stjs.generator.GenerationContext;
+import org.stjs.generator.GeneratorConstants;
+import org.stjs.generator.LanguageLevel;
 import org.stjs.generator.javascript.JavaScriptBuilder;
 import org.stjs.generator.name.DependencyType;
 import org.stjs.generator.utils.JavaNodes;
@@ -17,8 +19,11 @@ import org.stjs.generator.writer.JavascriptKeywords;
 import org.stjs.generator.writer.WriterContributor;
 import org.stjs.generator.writer.WriterVisitor;
 
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
 import com.sun.source.tree.MemberReferenceTree;
 import com.sun.source.tree.MemberReferenceTree.ReferenceMode;
+import com.sun.source.tree.MemberSelectTree;
 import com.sun.source.util.TreePath;
 
 /**
@@ -26,7 +31,8 @@ import com.sun.source.util.TreePath;
  * Static method reference: String::valueOf <br>
  * Non-static method reference: Object::toString <br>
  * Capturing method reference: x::toString <br>
- * Constructor reference: ArrayList::new
+ * Constructor reference: ArrayList::new<br>
+ * When generating ES2015, the references that would need stjs.bind use arrow functions or Function.bind instead.
  * @author acraciun
  */
 public class MemberReferenceWriter<JS> implements WriterContributor<MemberReferenceTree, JS> {
@@ -40,6 +46,36 @@ public class MemberReferenceWriter<JS> implements WriterContributor<MemberRefere
 		return args;
 	}
 
+	private List<JS> generateParams(GenerationContext<JS> context, int n) {
+		JavaScriptBuilder<JS> js = context.js();
+		List<JS> params = new ArrayList<>();
+		for (int i = 0; i < n; ++i) {
+			params.add(js.name("arg" + i));
+		}
+		return params;
+	}
+
+	/**
+	 * @return the number of parameters of the method, or -1 for a varargs method, whose number of parameters is not fixed
+	 */
+	private int getArity(ExecutableElement methodElement) {
+		return methodElement.isVarArgs() ? -1 : methodElement.getParameters().size();
+	}
+
+	private boolean isES2015(GenerationContext<JS> context) {
+		return context.getConfiguration().getLanguageLevel() == LanguageLevel.ES2015;
+	}
+
+	/**
+	 * @return true if the expression can be evaluated twice with the same result, i.e. if it's a variable or a chain of fields
+	 */
+	private boolean isSimpleTarget(ExpressionTree tree) {
+		if (tree instanceof IdentifierTree) {
+			return !GeneratorConstants.SUPER.equals(((IdentifierTree) tree).getName().toString());
+		}
+		return tree instanceof MemberSelectTree && isSimpleTarget(((MemberSelectTree) tree).getExpression());
+	}
+
 	/**
 	 * Type::method -> generate Type.method
 	 */
@@ -51,37 +87,52 @@ public class MemberReferenceWriter<JS> implements WriterContributor<MemberRefere
 	}
 
 	/**
-	 * Type::method -> stjs.bind("method")
+	 * Type::method -> stjs.bindN("method"), or (obj, arg0) =&gt; obj.method(arg0) in ES2015
 	 */
 	private JS generateInstanceRef(MemberReferenceTree tree, GenerationContext<JS> context, ExecutableElement methodElement) {
 		JavaScriptBuilder<JS> js = context.js();
 		Element type = methodElement.getEnclosingElement();
 		context.getNames().getTypeName(context, type, DependencyType.STATIC); // Make sure that we record the dependency on the type
-		JS stjsBind = context.js().property(context.js().name("stjs"), "bind");
+		if (isES2015(context) && !methodElement.isVarArgs()) {
+			List<JS> args = generateParams(context, methodElement.getParameters().size());
+			JS obj = js.name("obj");
+			List<JS> params = new ArrayList<>();
+			params.add(obj);
+			params.addAll(args);
+			return js.arrowFunction(params, js.returnStatement(js.functionCall(js.property(obj, tree.getName()), args)));
+		}
 		JS methodName = js.string(tree.getName().toString());
-		return js.functionCall(stjsBind, Collections.singletonList(methodName));
+		return js.functionCall(LambdaExpressionWriter.stjsBind(context, getArity(methodElement)), Collections.singletonList(methodName));
 	}
 
 	/**
-	 * x::method -> stjs.bind(x, "method")
+	 * x::method -> stjs.bindN(x, "method"), or x.method.bind(x) in ES2015 if x can be evaluated twice
 	 */
 	private JS generateCapturingRef(WriterVisitor<JS> visitor, MemberReferenceTree tree, GenerationContext<JS> context,
 			ExecutableElement methodElement) {
 		JavaScriptBuilder<JS> js = context.js();
 		JS target = visitor.scan(tree.getQualifierExpression(), context);
+		if (isES2015(context) && isSimpleTarget(tree.getQualifierExpression())) {
+			JS method = js.property(target, tree.getName());
+			JS sameTarget = visitor.scan(tree.getQualifierExpression(), context);
+			return js.functionCall(js.property(method, "bind"), Collections.singletonList(sameTarget));
+		}
 		JS methodName = js.string(tree.getName().toString());
-		JS stjsBind = context.js().property(context.js().name("stjs"), "bind");
-		return js.functionCall(stjsBind, Arrays.asList(target, methodName));
+		return js.functionCall(LambdaExpressionWriter.stjsBind(context, getArity(methodElement)), Arrays.asList(target, methodName));
 	}
 
 	/**
-	 * Type::new -> function() {new Type(arguments[0], arguments[1]);}
+	 * Type::new -> function() {new Type(arguments[0], arguments[1]);}, or (arg0, arg1) =&gt; new Type(arg0, arg1) in ES2015
 	 */
 	private JS generateConstructorRef(GenerationContext<JS> context, ExecutableElement methodElement) {
 		JavaScriptBuilder<JS> js = context.js();
 		Element type = methodElement.getEnclosingElement();
 
 		JS typeName = js.name(context.getNames().getTypeName(context, type, DependencyType.STATIC));
+		if (isES2015(context)) {
+			List<JS> args = generateParams(context, methodElement.getParameters().size());
+			return js.arrowFunction(args, js.returnStatement(context.js().newExpression(typeName, args)));
+		}
 		JS newExpr = context.js().newExpression(typeName, generateArguments(context, methodElement.getParameters().size()));
 		return js.function(null, Collections.emptyList(), js.returnStatement(newExpr));
 	}
@@ -3,7 +3,10 @@ package org.stjs.generator.plugin.java8.writer.lambda;
 import static org.junit.Assert.assertEquals;
 
 import org.junit.Test;
+import org.stjs.generator.GeneratorConfiguration;
+import org.stjs.generator.GeneratorConfigurationBuilder;
 import org.stjs.generator.JavascriptFileGenerationException;
+import org.stjs.generator.LanguageLevel;
 import org.stjs.generator.utils.AbstractStjsTest;
 
 public class LambdaGeneratorTest extends AbstractStjsTest {
@@ -29,17 +32,17 @@ public class LambdaGeneratorTest extends AbstractStjsTest {
 
 	@Test
 	public void testLambaAccessFieldOuterScope() {
-		assertCodeContains(Lambda5.class, "var c = stjs.bind(this, function() {return this.field + 1;});");
+		assertCodeContains(Lambda5.class, "var c = stjs.bind0(this, function() {return this.field + 1;});");
 	}
 
 	@Test
 	public void testLambaAccessQualifiedFieldOuterScope() {
-		assertCodeContains(Lambda5b.class, "var c = stjs.bind(this, function() {return this.field + 1;});");
+		assertCodeContains(Lambda5b.class, "var c = stjs.bind0(this, function() {return this.field + 1;});");
 	}
 
 	@Test
 	public void testLambaAccessMethodOuterScope() {
-		assertCodeContains(Lambda6.class, "var c = stjs.bind(this, function() {return this.outerMethod() + 1;});");
+		assertCodeContains(Lambda6.class, "var c = stjs.bind0(this, function() {return this.outerMethod() + 1;});");
 	}
 
 	@Test
@@ -109,4 +112,24 @@ public class LambdaGeneratorTest extends AbstractStjsTest {
 		generate(Lambda15.class);
 	}
 
+	@Test
+	public void testLambdaArrowFunction() {
+		GeneratorConfiguration config = new GeneratorConfigurationBuilder().languageLevel(LanguageLevel.ES2015).build();
+		assertCodeContains(Lambda1.class, "method((x) => x + 1)", config);
+		assertCodeContains(Lambda3.class, "method((x) => {var y = x;})", config);
+	}
+
+	@Test
+	public void testLambdaArrowFunctionAccessOuterScope() {
+		GeneratorConfiguration config = new GeneratorConfigurationBuilder().languageLevel(LanguageLevel.ES2015).build();
+		assertCodeContains(Lambda5.class, "var c = () => this.field + 1;", config);
+		assertCodeDoesNotContain(Lambda6.class, "stjs.bind", config);
+	}
+
+	@Test
+	public void testLambdaTHISParamNotArrowFunction() {
+		GeneratorConfiguration config = new GeneratorConfigurationBuilder().languageLevel(LanguageLevel.ES2015).build();
+		assertCodeContains(Lambda14.class, "stjs.bind(this, function(THIS) {", config);
+	}
+
 }
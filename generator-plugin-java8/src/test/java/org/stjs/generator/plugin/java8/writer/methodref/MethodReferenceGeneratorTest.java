@@ -1,5 +1,8 @@
 package org.stjs.generator.plugin.java8.writer.methodref;
 
+import org.stjs.generator.GeneratorConfiguration;
+import org.stjs.generator.GeneratorConfigurationBuilder;
+import org.stjs.generator.LanguageLevel;
 import org.stjs.generator.utils.AbstractStjsTest;
 
 import static org.junit.Assert.assertEquals;
@@ -16,20 +19,20 @@ public class MethodReferenceGeneratorTest extends AbstractStjsTest {
 	@Test
 	public void testInstanceMethodRef() {
 		assertCodeContains(MethodRef2.class,
-				"calculate(stjs.bind(\"inc2\"), new MethodRef2(), 1)");
+				"calculate(stjs.bind1(\"inc2\"), new MethodRef2(), 1)");
 		assertEquals(3, ((Number)execute(MethodRef2.class)).intValue());
 	}
 
 	@Test
 	public void testInstanceMethodRefWithInterface() {
 		assertCodeContains(MethodRef9.class,
-				"calculate(stjs.bind(\"inc2\"), new MethodRef9.IncImpl(), 1)");
+				"calculate(stjs.bind1(\"inc2\"), new MethodRef9.IncImpl(), 1)");
 		assertEquals(3, ((Number)execute(MethodRef9.class)).intValue());
 	}
 
 	@Test
 	public void testInstanceWithTargetMethodRef() {
-		assertCodeContains(MethodRef3.class, "calculate(stjs.bind(ref, \"inc2\"), 1)");
+		assertCodeContains(MethodRef3.class, "calculate(stjs.bind1(ref, \"inc2\"), 1)");
 		assertEquals(4, ((Number)execute(MethodRef3.class)).intValue());
 	}
 
@@ -41,21 +44,48 @@ public class MethodReferenceGeneratorTest extends AbstractStjsTest {
 
 	@Test
 	public void testUsageOfThisMethodRef() {
-		assertCodeContains(MethodRef5.class, "calculate(stjs.bind(this, \"method\"))");
+		assertCodeContains(MethodRef5.class, "calculate(stjs.bind0(this, \"method\"))");
 	}
 
 	@Test
 	public void testUsageOFieldMethodRef() {
-		assertCodeContains(MethodRef6.class, "calculate(stjs.bind(this.field, \"method\"))");
+		assertCodeContains(MethodRef6.class, "calculate(stjs.bind0(this.field, \"method\"))");
 	}
 
 	@Test
 	public void testUsageOMethodMethodRef() {
-		assertCodeContains(MethodRef7.class, "calculate(stjs.bind(this.method2(), \"method\"))");
+		assertCodeContains(MethodRef7.class, "calculate(stjs.bind0(this.method2(), \"method\"))");
 	}
 
 	@Test
 	public void testUsageOfChainMethodMethodRef() {
-		assertCodeContains(MethodRef8.class, "calculate(stjs.bind(this.x.x.method2(), \"method\"))");
+		assertCodeContains(MethodRef8.class, "calculate(stjs.bind0(this.x.x.method2(), \"method\"))");
+	}
+
+	@Test
+	public void testInstanceMethodRefArrowFunction() {
+		GeneratorConfiguration config = new GeneratorConfigurationBuilder().languageLevel(LanguageLevel.ES2015).build();
+		assertCodeContains(MethodRef2.class, "calculate((obj, arg0) => obj.inc2(arg0), new MethodRef2(), 1)", config);
+	}
+
+	@Test
+	public void testInstanceWithTargetMethodRefFunctionBind() {
+		GeneratorConfiguration config = new GeneratorConfigurationBuilder().languageLevel(LanguageLevel.ES2015).build();
+		assertCodeContains(MethodRef3.class, "calculate(ref.inc2.bind(ref), 1)", config);
+		assertCodeContains(MethodRef5.class, "calculate(this.method.bind(this))", config);
+		assertCodeContains(MethodRef6.class, "calculate(this.field.method.bind(this.field))", config);
+	}
+
+	@Test
+	public void testUsageOfMethodMethodRefES2015() {
+		// the target is evaluated only once
+		GeneratorConfiguration config = new GeneratorConfigurationBuilder().languageLevel(LanguageLevel.ES2015).build();
+		assertCodeContains(MethodRef7.class, "calculate(stjs.bind0(this.method2(), \"method\"))", config);
+	}
+
+	@Test
+	public void testNewMethodRefArrowFunction() {
+		GeneratorConfiguration config = new GeneratorConfigurationBuilder().languageLevel(LanguageLevel.ES2015).build();
+		assertCodeContains(MethodRef4.class, "calculate((arg0) => new MethodRef4(arg0), 1)", config);
 	}
 }
@@ -1,12 +1,22 @@
 package org.stjs.generator;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
 
 import org.stjs.generator.utils.ClassUtils;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
 /**
- * this class lazily generates the dependencies
+ * this class lazily generates the dependencies. The classes found in a {@link org.stjs.generator.DependencyManifest} are
+ * resolved from the manifest, the other ones from their own .stjs file.
+ * <p>
+ * The resolver can be shared by several threads: each class is resolved only once, the other threads asking for the
+ * same class wait for it.
  *
  * @author acraciun
  * @version $Id: $Id
@@ -14,7 +24,8 @@ import org.stjs.generator.utils.ClassUtils;
 public class DefaultClassResolver implements ClassResolver {
 
 	private final ClassLoader classLoader;
-	private final Map<String, ClassWithJavascript> cache = new HashMap<>();
+	// the resolver is shared by the threads of a parallel generation and by the ones of the test driver
+	private final LoadingCache<String, ClassWithJavascript> cache;
 
 	/**
 	 * <p>Constructor for DefaultClassResolver.</p>
@@ -22,20 +33,48 @@ public class DefaultClassResolver implements ClassResolver {
 	 * @param classLoader a {@link java.lang.ClassLoader} object.
 	 */
 	public DefaultClassResolver(ClassLoader classLoader) {
+		this(classLoader, 0);
+	}
+
+	/**
+	 * Constructor for a resolver that keeps at most the given number of classes, for the long running processes. The
+	 * least recently used classes are evicted and resolved again when needed.
+	 *
+	 * @param classLoader a {@link java.lang.ClassLoader} object.
+	 * @param maximumSize the maximum number of resolved classes to keep, or 0 to keep all of them
+	 */
+	public DefaultClassResolver(ClassLoader classLoader, long maximumSize) {
 		this.classLoader = classLoader;
+		CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder();
+		if (maximumSize > 0) {
+			cacheBuilder.maximumSize(maximumSize);
+		}
+		this.cache = cacheBuilder.build(new CacheLoader<String, ClassWithJavascript>() {
+			@Override
+			public ClassWithJavascript load(String className) {
+				ClassWithJavascript clazz = doResolve(className);
+				if (clazz == null) {
+					throw new UnresolvedClassException();
+				}
+				return clazz;
+			}
+		});
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public ClassWithJavascript resolve(String className) {
-		ClassWithJavascript clazz = this.cache.get(className);
-		if (clazz == null) {
-			clazz = doResolve(className);
-			if (clazz != null) {
-				cache.put(className, clazz);
+		try {
+			return cache.get(className);
+		}
+		catch (ExecutionException | UncheckedExecutionException e) {
+			if (e.getCause() instanceof UnresolvedClassException) {
+				return null;
 			}
+			// the exceptions of doResolve are unchecked, so they are thrown as they are
+			Throwables.propagateIfPossible(e.getCause());
+			throw new STJSRuntimeException(e);
 		}
-		return clazz;
 	}
 
 	/** {@inheritDoc} */
@@ -72,6 +111,12 @@ public class DefaultClassResolver implements ClassResolver {
 	 */
 	protected ClassWithJavascript doResolve(String className) {
 		String parentClassName = getParentClassName(className);
+		// the manifests only list generated classes, i.e. no bridge
+		Properties manifestEntry = DependencyManifest.forClassLoader(classLoader).getClassProperties(parentClassName);
+		if (manifestEntry != null) {
+			return new STJSClass(this, resolveJavaClass(parentClassName), manifestEntry);
+		}
+
 		// try first if to see if it's a bridge class
 		Class<?> clazz = resolveJavaClass(parentClassName);
 
@@ -81,4 +126,15 @@ public class DefaultClassResolver implements ClassResolver {
 
 		return new STJSClass(this, classLoader, clazz);
 	}
+
+	/**
+	 * thrown by the cache loader when a class cannot be resolved, as the cache does not keep null values.
+	 */
+	private static class UnresolvedClassException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		UnresolvedClassException() {
+			super(null, null, false, false);
+		}
+	}
 }
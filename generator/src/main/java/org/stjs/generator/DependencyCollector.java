@@ -12,21 +12,32 @@
  */
 package org.stjs.generator;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashSet;
-import java.util.LinkedHashSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import edu.umd.cs.findbugs.annotations.SuppressWarnings;
 
 /**
  * This class is used to arrange the list of all dependencies coming from the root classes, such that classes depend on
  * other classes found in the dependency list before they appear. This can be used for example to build the include list
  * of the scripts for a given html page. As in Java cyclic dependency is possible the list may be incorrect.
+ * <p>
+ * The dependency graph is split in strongly connected components (Tarjan), that come out with the dependencies first,
+ * so the ordering is linear in the number of classes and dependencies. Only the classes of a cycle are compared between
+ * them, to put the parent types before their child types. The results of the most recently used lists of roots are
+ * kept. A result is used again only for the same instances of the root classes, as the classes are equal by name and a
+ * class that is generated again is a new instance, maybe with other dependencies.
  *
  * @author acraciun
  * @version $Id: $Id
@@ -36,6 +47,12 @@ public class DependencyCollector {
 	private final DependencyComparator dependencyComparator = new DependencyComparator();
 	private final ClassWithJavascriptComparator classWithJsComparator = new ClassWithJavascriptComparator(dependencyComparator);
 
+	private static final Comparator<Node> FINISH_ORDER = new FinishOrderComparator();
+
+	private static final int MAX_ORDERS = 256;
+
+	private final Cache<List<ClassWithJavascript>, DependencyOrder> orders = CacheBuilder.newBuilder().maximumSize(MAX_ORDERS).build();
+
 	private int compareDeps(int withIndex, List<ClassWithJavascript> deps, Comparator<ClassWithJavascript> comparator) {
 		for (int j = 0; j < deps.size(); ++j) {
 			if (withIndex != j) {
@@ -71,14 +88,38 @@ public class DependencyCollector {
 	 * @return a {@link java.util.List} object.
 	 */
 	public List<ClassWithJavascript> orderAllDependencies(List<ClassWithJavascript> roots) {
-		List<ClassWithJavascript> deps = new ArrayList<>();
-		Set<ClassWithJavascript> visited = new HashSet<>();
-		for (ClassWithJavascript root : roots) {
-			visit(visited, new LinkedHashSet<ClassWithJavascript>(), deps, root);
+		return getOrder(roots).classes;
+	}
+
+	/**
+	 * @param roots
+	 *            the classes whose dependencies are ordered
+	 * @return the groups of classes (of at least two classes) that depend on each other, each group in the order used
+	 *         by {@link #orderAllDependencies(List)}. The list is empty if there is no cyclic dependency.
+	 */
+	public List<List<ClassWithJavascript>> getCyclicDependencies(List<ClassWithJavascript> roots) {
+		return getOrder(roots).cycles;
+	}
+
+	private DependencyOrder getOrder(List<ClassWithJavascript> roots) {
+		List<ClassWithJavascript> key = new ArrayList<>(roots);
+		DependencyOrder order = orders.getIfPresent(key);
+		if (order == null || !order.hasRoots(key)) {
+			order = new DependencyGraph().order(key);
+			orders.put(key, order);
 		}
+		return order;
+	}
 
-		List<ClassWithJavascript> orderedDeps = new ArrayList<>();
+	/**
+	 * puts the parent types before their child types inside a cycle, keeping otherwise the order in which the classes
+	 * were finished by the graph traversal.
+	 */
+	private List<ClassWithJavascript> orderCycle(List<ClassWithJavascript> cycle) {
+		List<ClassWithJavascript> deps = new ArrayList<>(cycle);
+		List<ClassWithJavascript> orderedDeps = new ArrayList<>(cycle.size());
 		while (!deps.isEmpty()) {
+			int before = deps.size();
 			// add to orderedDeps only the classes that have no "extends" dependency to any of the other from the
 			// remaining list.
 			// i.e. the result of the comparison is <= 0
@@ -88,30 +129,149 @@ public class DependencyCollector {
 					i--;
 				}
 			}
+			if (deps.size() == before) {
+				// the types cannot be ordered, keep them as they are
+				orderedDeps.addAll(deps);
+				deps.clear();
+			}
 		}
-
 		return orderedDeps;
 	}
 
+	private static final class DependencyOrder {
+		private final List<ClassWithJavascript> roots;
+		private final List<ClassWithJavascript> classes;
+		private final List<List<ClassWithJavascript>> cycles;
+
+		DependencyOrder(List<ClassWithJavascript> roots, List<ClassWithJavascript> classes, List<List<ClassWithJavascript>> cycles) {
+			this.roots = roots;
+			this.classes = Collections.unmodifiableList(classes);
+			this.cycles = Collections.unmodifiableList(cycles);
+		}
+
+		/**
+		 * @return true if the order was computed for the same instances of the given roots
+		 */
+		boolean hasRoots(List<ClassWithJavascript> otherRoots) {
+			for (int i = 0; i < roots.size(); ++i) {
+				if (roots.get(i) != otherRoots.get(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	private static final class Node {
+		private final ClassWithJavascript javascriptClass;
+		private final Iterator<ClassWithJavascript> dependencies;
+		private final int index;
+		private int lowLink;
+		private int finish;
+		private boolean onStack;
+
+		Node(ClassWithJavascript javascriptClass, int index) {
+			this.javascriptClass = javascriptClass;
+			this.dependencies = javascriptClass.getDirectDependencies().iterator();
+			this.index = index;
+			this.lowLink = index;
+		}
+	}
+
+	@SuppressWarnings(//
+			value = "SE_COMPARATOR_SHOULD_BE_SERIALIZABLE", //
+			justification = "This comparator will not be used with Serializable lists" //
+	)
+	private static final class FinishOrderComparator implements Comparator<Node> {
+		@Override
+		public int compare(Node o1, Node o2) {
+			return Integer.compare(o1.finish, o2.finish);
+		}
+	}
+
 	/**
-	 * use topological sort to find the order of processing cells
+	 * iterative version of Tarjan's algorithm, as the dependency chains can be too deep for a recursive visit. The
+	 * components come out in the reverse topological order, i.e. each class after all the classes it depends on.
 	 */
-	private void visit(Set<ClassWithJavascript> visited, Set<ClassWithJavascript> path, List<ClassWithJavascript> deps, ClassWithJavascript cj) {
-		if (path.contains(cj)) {
-			// cyclic dependency here
-			return;
+	private final class DependencyGraph {
+		private final Map<ClassWithJavascript, Node> nodes = new HashMap<>();
+		private final Deque<Node> componentStack = new ArrayDeque<>();
+		private final List<ClassWithJavascript> classes = new ArrayList<>();
+		private final List<List<ClassWithJavascript>> cycles = new ArrayList<>();
+		private int finished;
+
+		public DependencyOrder order(List<ClassWithJavascript> roots) {
+			for (ClassWithJavascript root : roots) {
+				if (!nodes.containsKey(root)) {
+					visit(root);
+				}
+			}
+			return new DependencyOrder(roots, classes, cycles);
 		}
-		if (!visited.contains(cj)) {
-			visited.add(cj);
-			path.add(cj);
 
-			for (ClassWithJavascript dep : cj.getDirectDependencies()) {
-				visit(visited, path, deps, dep);
-				path.remove(dep);
+		private Node push(ClassWithJavascript cj) {
+			Node node = new Node(cj, nodes.size());
+			nodes.put(cj, node);
+			componentStack.push(node);
+			node.onStack = true;
+			return node;
+		}
+
+		private void visit(ClassWithJavascript root) {
+			Deque<Node> path = new ArrayDeque<>();
+			path.push(push(root));
+			while (!path.isEmpty()) {
+				Node node = path.peek();
+				if (node.dependencies.hasNext()) {
+					visitDependency(path, node, node.dependencies.next());
+				} else {
+					finish(path);
+				}
 			}
+		}
 
-			deps.add(cj);
+		private void visitDependency(Deque<Node> path, Node node, ClassWithJavascript dep) {
+			Node depNode = nodes.get(dep);
+			if (depNode == null) {
+				path.push(push(dep));
+			} else if (depNode.onStack) {
+				node.lowLink = Math.min(node.lowLink, depNode.index);
+			}
+		}
 
+		private void finish(Deque<Node> path) {
+			Node node = path.pop();
+			node.finish = finished++;
+			if (!path.isEmpty()) {
+				path.peek().lowLink = Math.min(path.peek().lowLink, node.lowLink);
+			}
+			if (node.lowLink == node.index) {
+				addComponent(node);
+			}
+		}
+
+		private void addComponent(Node componentRoot) {
+			List<Node> component = new ArrayList<>();
+			Node node;
+			do {
+				node = componentStack.pop();
+				node.onStack = false;
+				component.add(node);
+			} while (!node.equals(componentRoot));
+
+			if (component.size() == 1) {
+				classes.add(componentRoot.javascriptClass);
+				return;
+			}
+			// start from the order in which the classes were finished, as done by the former depth-first ordering
+			Collections.sort(component, FINISH_ORDER);
+			List<ClassWithJavascript> componentClasses = new ArrayList<>(component.size());
+			for (Node member : component) {
+				componentClasses.add(member.javascriptClass);
+			}
+			List<ClassWithJavascript> cycle = orderCycle(componentClasses);
+			classes.addAll(cycle);
+			cycles.add(Collections.unmodifiableList(cycle));
 		}
 	}
 
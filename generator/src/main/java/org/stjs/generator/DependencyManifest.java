@@ -0,0 +1,276 @@
+/**
+ *  Copyright 2011 Alexandru Craciun, Eyal Kaspi
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.stjs.generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URL;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.base.Charsets;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.io.Closeables;
+import com.google.common.io.Files;
+
+/**
+ * This class gathers in a single file the information found in all the .stjs files of a module: the generated
+ * JavaScript file, the namespace and the dependencies of each class. The file is packed with the classes as
+ * {@value #MANIFEST_FILE}, so the classes of a library are resolved by reading one resource instead of one resource per
+ * class. The libraries built with older versions of ST-JS have no manifest, and their classes are still resolved with
+ * their own .stjs file.
+ * <p>
+ * The manifest is a properties file having the class names as keys, and the three values separated by tabs.
+ *
+ * @version $Id: $Id
+ */
+public final class DependencyManifest {
+	/** Constant <code>MANIFEST_FILE="META-INF/stjs.manifest"</code> */
+	public static final String MANIFEST_FILE = "META-INF/stjs.manifest";
+
+	private static final String SEPARATOR = "\t";
+	private static final int FIELD_COUNT = 3;
+
+	/**
+	 * the manifests found by a class loader are read once. The class loaders are weakly referenced, to not leak the
+	 * class loaders of the built projects.
+	 */
+	private static final LoadingCache<ClassLoader, DependencyManifest> MANIFESTS = CacheBuilder.newBuilder().weakKeys()
+			.build(new CacheLoader<ClassLoader, DependencyManifest>() {
+				@Override
+				public DependencyManifest load(ClassLoader classLoader) throws IOException {
+					return read(classLoader);
+				}
+			});
+
+	private final Map<String, String> entries;
+
+	private DependencyManifest(Map<String, String> entries) {
+		this.entries = entries;
+	}
+
+	/**
+	 * @param classLoader
+	 *            the class loader of the built project
+	 * @return the merged content of all the manifests visible from the given class loader. When a class appears in
+	 *         several manifests, the first one wins, as it is the case for the classes themselves.
+	 */
+	public static DependencyManifest forClassLoader(ClassLoader classLoader) {
+		try {
+			return MANIFESTS.get(classLoader);
+		}
+		catch (ExecutionException e) {
+			throw new STJSRuntimeException("Cannot read the " + MANIFEST_FILE + " files:" + e.getCause(), e);
+		}
+	}
+
+	private static DependencyManifest read(ClassLoader classLoader) throws IOException {
+		Map<String, String> entries = new HashMap<String, String>();
+		Enumeration<URL> manifests = classLoader.getResources(MANIFEST_FILE);
+		while (manifests.hasMoreElements()) {
+			Properties manifest = new Properties();
+			InputStream input = manifests.nextElement().openStream();
+			try {
+				manifest.load(input);
+			}
+			finally {
+				Closeables.closeQuietly(input);
+			}
+			for (String className : manifest.stringPropertyNames()) {
+				if (!entries.containsKey(className)) {
+					entries.put(className, manifest.getProperty(className));
+				}
+			}
+		}
+		return new DependencyManifest(entries.isEmpty() ? Collections.<String, String> emptyMap() : entries);
+	}
+
+	/**
+	 * @param className
+	 *            the name of a top level class
+	 * @return the properties of the class, as they were stored in its .stjs file, or null if the class is not part of
+	 *         any manifest
+	 */
+	public Properties getClassProperties(String className) {
+		String entry = entries.get(className);
+		if (entry == null) {
+			return null;
+		}
+		String[] fields = entry.split(SEPARATOR, -1);
+		if (fields.length != FIELD_COUNT) {
+			return null;
+		}
+		Properties properties = new Properties();
+		properties.setProperty(STJSClass.CLASS_PROP, className);
+		if (!fields[0].isEmpty()) {
+			properties.setProperty(STJSClass.GENERATED_JS_FILE_PROP, fields[0]);
+		}
+		properties.setProperty(STJSClass.JS_NAMESPACE, fields[1]);
+		properties.setProperty(STJSClass.DEPENDENCIES_PROP, fields[2]);
+		return properties;
+	}
+
+	/**
+	 * @return the number of classes found in the manifests
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * writes the manifest of all the .stjs files found in the given folder. The .stjs files written by versions of ST-JS
+	 * older than 3.1.2 have no namespace and are left out of the manifest.
+	 *
+	 * @param folder
+	 *            the folder with the generated .stjs files, i.e. the build output folder
+	 * @return the manifest file, or null if the folder has no generated class
+	 * @throws java.io.IOException
+	 *             if the files cannot be read or the manifest cannot be written
+	 */
+	public static File write(File folder) throws IOException {
+		Properties manifest = new Properties();
+		for (File file : Files.fileTreeTraverser().preOrderTraversal(folder)) {
+			if (file.isFile() && file.getName().endsWith(".stjs")) {
+				addEntry(manifest, file);
+			}
+		}
+		return store(folder, manifest);
+	}
+
+	/**
+	 * reads the manifest written in the given folder by a previous build.
+	 *
+	 * @param folder
+	 *            the build output folder
+	 * @return the content of the manifest, or null if the folder has no manifest
+	 * @throws java.io.IOException
+	 *             if the manifest cannot be read
+	 */
+	public static Properties load(File folder) throws IOException {
+		File manifestFile = new File(folder, MANIFEST_FILE);
+		if (!manifestFile.exists()) {
+			return null;
+		}
+		Properties manifest = new Properties();
+		Reader reader = Files.newReader(manifestFile, Charsets.UTF_8);
+		try {
+			manifest.load(reader);
+		}
+		finally {
+			Closeables.closeQuietly(reader);
+		}
+		return manifest;
+	}
+
+	/**
+	 * writes the manifest of the given folder by updating the one of the previous build, instead of reading all the .stjs
+	 * files again: only the .stjs files of the generated classes are read. Without a previous manifest, all the .stjs
+	 * files of the folder are read, as {@link #write(File)} does.
+	 *
+	 * @param folder
+	 *            the folder with the generated .stjs files, i.e. the build output folder
+	 * @param previousManifest
+	 *            the manifest of the previous build, as returned by {@link #load(File)}, or null
+	 * @param generatedClasses
+	 *            the top level classes generated since the previous manifest was written
+	 * @param removedClasses
+	 *            the top level classes whose source no longer exists
+	 * @return the manifest file, or null if the folder has no generated class
+	 * @throws java.io.IOException
+	 *             if the files cannot be read or the manifest cannot be written
+	 */
+	public static File update(File folder, Properties previousManifest, Collection<String> generatedClasses,
+			Collection<String> removedClasses) throws IOException {
+		if (previousManifest == null) {
+			return write(folder);
+		}
+		Properties manifest = new Properties();
+		manifest.putAll(previousManifest);
+		for (String className : removedClasses) {
+			manifest.remove(className);
+		}
+		for (String className : generatedClasses) {
+			manifest.remove(className);
+			File propertiesFile = new File(folder, className.replace('.', File.separatorChar) + ".stjs");
+			if (propertiesFile.isFile()) {
+				addEntry(manifest, propertiesFile);
+			}
+		}
+		return store(folder, manifest);
+	}
+
+	private static File store(File folder, Properties manifest) throws IOException {
+		if (manifest.isEmpty()) {
+			return null;
+		}
+
+		File manifestFile = new File(folder, MANIFEST_FILE);
+		Files.createParentDirs(manifestFile);
+		Writer writer = Files.newWriter(manifestFile, Charsets.UTF_8);
+		try {
+			manifest.store(writer, "Generated by STJS");
+		}
+		finally {
+			writer.close();
+		}
+		return manifestFile;
+	}
+
+	private static void addEntry(Properties manifest, File propertiesFile) throws IOException {
+		Properties props = new Properties();
+		Reader reader = Files.newReader(propertiesFile, Charsets.UTF_8);
+		try {
+			props.load(reader);
+		}
+		finally {
+			Closeables.closeQuietly(reader);
+		}
+
+		String className = props.getProperty(STJSClass.CLASS_PROP);
+		String namespace = props.getProperty(STJSClass.JS_NAMESPACE);
+		if (className == null || namespace == null) {
+			return;
+		}
+		manifest.setProperty(className, props.getProperty(STJSClass.GENERATED_JS_FILE_PROP, "") + SEPARATOR + namespace + SEPARATOR
+				+ props.getProperty(STJSClass.DEPENDENCIES_PROP, "[]"));
+	}
+
+	/**
+	 * removes the manifest from the given folder, as it becomes stale as soon as a class of the folder is generated
+	 * again.
+	 *
+	 * @param folder
+	 *            the build output folder
+	 * @throws java.io.IOException
+	 *             if the manifest cannot be removed
+	 */
+	public static void delete(File folder) throws IOException {
+		File manifestFile = new File(folder, MANIFEST_FILE);
+		if (manifestFile.exists() && !manifestFile.delete()) {
+			throw new IOException("Cannot delete " + manifestFile);
+		}
+	}
+}
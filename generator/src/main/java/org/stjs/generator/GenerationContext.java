@@ -19,9 +19,13 @@ import java.io.File;
 import java.io.IOException;
 import java.io.Writer;
 import java.lang.annotation.Annotation;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 
@@ -75,6 +79,7 @@ public class GenerationContext<JS> implements TreePathHolder {
 	private final Map<AnnotationCacheKey, Object> cacheAnnotations;
 	private final Map<Tree, TreeWrapper<?, JS>> cacheWrappers = Maps.newIdentityHashMap();
 	private final Map<Element, TreeWrapper<?, JS>> cacheWrappersByElement = Maps.newIdentityHashMap();
+	private final Map<TypeElement, List<VariableElement>> capturedVariables = Maps.newIdentityHashMap();
 
 	/**
 	 * <p>Constructor for GenerationContext.</p>
@@ -361,6 +366,25 @@ public class GenerationContext<JS> implements TreePathHolder {
 		return tw;
 	}
 
+	/**
+	 * the variables captured by a cached anonymous class are given to its constructor and kept in the instance
+	 *
+	 * @param anonymousType the anonymous class
+	 * @param variables the variables of the enclosing scope used by the class
+	 */
+	public void setCapturedVariables(TypeElement anonymousType, List<VariableElement> variables) {
+		capturedVariables.put(anonymousType, variables);
+	}
+
+	/**
+	 * @param type a class
+	 * @return the variables kept in the instances of the class, if it's a cached anonymous class, an empty list otherwise
+	 */
+	public List<VariableElement> getCapturedVariables(TypeElement type) {
+		List<VariableElement> variables = capturedVariables.get(type);
+		return variables == null ? Collections.<VariableElement> emptyList() : variables;
+	}
+
 	/**
 	 * <p>getBuiltProjectClassLoader.</p>
 	 *
@@ -0,0 +1,72 @@
+/**
+ *  Copyright 2011 Alexandru Craciun, Eyal Kaspi
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.stjs.generator;
+
+import java.io.File;
+import java.util.Collection;
+
+/**
+ * This interface receives the measures taken by the {@link org.stjs.generator.Generator} while it generates the JavaScript files. Set it
+ * with {@link org.stjs.generator.GeneratorConfigurationBuilder#metrics(GenerationMetrics)}. When several generation threads are used,
+ * its methods are called concurrently, so the implementations must be thread-safe.
+ *
+ * @version $Id: $Id
+ * @see org.stjs.generator.GenerationMetricsCollector
+ */
+public interface GenerationMetrics {
+	/**
+	 * called each time a phase ends.
+	 *
+	 * @param phase
+	 *            the phase
+	 * @param inputFiles
+	 *            the source files concerned by the phase. There is more than one file only for the javac phases of a batch.
+	 * @param durationNanos
+	 *            the duration of the phase, measured with {@link java.lang.System#nanoTime()}
+	 * @param allocatedBytes
+	 *            the bytes allocated by the current thread during the phase, or -1 if the JVM cannot measure it
+	 */
+	void phaseCompleted(GenerationPhase phase, Collection<File> inputFiles, long durationNanos, long allocatedBytes);
+
+	/**
+	 * called each time javac finished to parse or to analyze one of the files of a task. The measure is already part of the one given to
+	 * {@link #phaseCompleted(GenerationPhase, Collection, long, long)} for the whole task.
+	 *
+	 * @param phase
+	 *            {@link org.stjs.generator.GenerationPhase#PARSE} or {@link org.stjs.generator.GenerationPhase#ANALYZE}
+	 * @param inputFile
+	 *            the source file
+	 * @param durationNanos
+	 *            the time spent by javac on the file, measured with {@link java.lang.System#nanoTime()}
+	 * @param allocatedBytes
+	 *            the bytes allocated by the current thread for the file, or -1 if the JVM cannot measure it
+	 */
+	void javacPhaseCompleted(GenerationPhase phase, File inputFile, long durationNanos, long allocatedBytes);
+
+	/**
+	 * called once the files of a class were written.
+	 *
+	 * @param inputFile
+	 *            the source file
+	 * @param className
+	 *            the generated class
+	 * @param javaNodeCount
+	 *            the number of nodes of the Java AST of the source file
+	 * @param javascriptBytes
+	 *            the size of the generated JavaScript file
+	 */
+	void fileGenerated(File inputFile, String className, int javaNodeCount, long javascriptBytes);
+}
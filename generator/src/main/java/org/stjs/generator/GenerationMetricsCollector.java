@@ -0,0 +1,269 @@
+/**
+ *  Copyright 2011 Alexandru Craciun, Eyal Kaspi
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.stjs.generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.collect.Maps;
+
+/**
+ * This {@link org.stjs.generator.GenerationMetrics} keeps the measures of each source file and the totals of each phase, and can write
+ * them as a JSON or a CSV report, starting with the slowest files. It can be used by several generation threads at the same time.
+ * <p>
+ * The javac phases ({@link org.stjs.generator.GenerationPhase#PARSE} and {@link org.stjs.generator.GenerationPhase#ANALYZE}) of a file
+ * are the time javac spent on this file, even when it was parsed and analyzed in a batch with other files. The totals of these phases
+ * also contain the work javac does for the whole batch, for example to enter the symbols.
+ *
+ * @version $Id: $Id
+ */
+public class GenerationMetricsCollector implements GenerationMetrics {
+	private static final GenerationPhase[] PHASES = GenerationPhase.values();
+
+	private final ConcurrentMap<File, FileMetrics> files = Maps.newConcurrentMap();
+	private final AtomicLongArray phaseNanos = new AtomicLongArray(PHASES.length);
+	private final AtomicLongArray phaseAllocatedBytes = new AtomicLongArray(PHASES.length);
+
+	/** {@inheritDoc} */
+	@Override
+	public void phaseCompleted(GenerationPhase phase, Collection<File> inputFiles, long durationNanos, long allocatedBytes) {
+		phaseNanos.addAndGet(phase.ordinal(), durationNanos);
+		if (allocatedBytes > 0) {
+			phaseAllocatedBytes.addAndGet(phase.ordinal(), allocatedBytes);
+		}
+		// the javac phases of each file are given by javacPhaseCompleted
+		if (inputFiles.size() == 1 && phase != GenerationPhase.PARSE && phase != GenerationPhase.ANALYZE) {
+			getFileMetrics(inputFiles.iterator().next()).addPhase(phase, durationNanos, allocatedBytes);
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void javacPhaseCompleted(GenerationPhase phase, File inputFile, long durationNanos, long allocatedBytes) {
+		getFileMetrics(inputFile).addPhase(phase, durationNanos, allocatedBytes);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void fileGenerated(File inputFile, String className, int javaNodeCount, long javascriptBytes) {
+		FileMetrics metrics = getFileMetrics(inputFile);
+		metrics.className = className;
+		metrics.javaNodeCount = javaNodeCount;
+		metrics.javascriptBytes = javascriptBytes;
+	}
+
+	private FileMetrics getFileMetrics(File inputFile) {
+		FileMetrics metrics = files.get(inputFile);
+		if (metrics != null) {
+			return metrics;
+		}
+		metrics = new FileMetrics(inputFile);
+		FileMetrics previous = files.putIfAbsent(inputFile, metrics);
+		return previous == null ? metrics : previous;
+	}
+
+	/**
+	 * @param phase
+	 *            a {@link org.stjs.generator.GenerationPhase} object.
+	 * @return the total duration of the given phase, for all the files
+	 */
+	public long getPhaseNanos(GenerationPhase phase) {
+		return phaseNanos.get(phase.ordinal());
+	}
+
+	/**
+	 * @param phase
+	 *            a {@link org.stjs.generator.GenerationPhase} object.
+	 * @return the total bytes allocated during the given phase, for all the files
+	 */
+	public long getPhaseAllocatedBytes(GenerationPhase phase) {
+		return phaseAllocatedBytes.get(phase.ordinal());
+	}
+
+	/**
+	 * @return the measures of all the files, the slowest first
+	 */
+	public List<FileMetrics> getFiles() {
+		List<FileMetrics> sorted = new ArrayList<FileMetrics>(files.values());
+		Collections.sort(sorted, new Comparator<FileMetrics>() {
+			@Override
+			public int compare(FileMetrics a, FileMetrics b) {
+				return Long.compare(b.getTotalNanos(), a.getTotalNanos());
+			}
+		});
+		return sorted;
+	}
+
+	/**
+	 * @param count
+	 *            the maximum number of files returned
+	 * @return the measures of the slowest files, the slowest first
+	 */
+	public List<FileMetrics> getSlowestFiles(int count) {
+		List<FileMetrics> sorted = getFiles();
+		return sorted.subList(0, Math.min(count, sorted.size()));
+	}
+
+	/**
+	 * writes the totals of each phase and the measures of the slowest files as a JSON object.
+	 *
+	 * @param writer
+	 *            a {@link java.io.Writer} object.
+	 * @param slowestFiles
+	 *            the maximum number of files written
+	 * @throws java.io.IOException
+	 *             if any.
+	 */
+	public void writeJson(Writer writer, int slowestFiles) throws IOException {
+		writer.write("{\n  \"phases\": {");
+		for (GenerationPhase phase : PHASES) {
+			writer.write(phase.ordinal() == 0 ? "\n" : ",\n");
+			writer.write("    \"" + phase + "\": {\"nanos\": " + getPhaseNanos(phase) + ", \"allocatedBytes\": "
+					+ getPhaseAllocatedBytes(phase) + "}");
+		}
+		writer.write("\n  },\n  \"files\": [");
+		boolean first = true;
+		for (FileMetrics file : getSlowestFiles(slowestFiles)) {
+			writer.write(first ? "\n" : ",\n");
+			first = false;
+			writeJson(writer, file);
+		}
+		writer.write("\n  ]\n}\n");
+	}
+
+	private static void writeJson(Writer writer, FileMetrics file) throws IOException {
+		writer.write("    {\"file\": " + jsonString(file.getInputFile().getPath()) + ", \"className\": " + jsonString(file.getClassName())
+				+ ", \"totalNanos\": " + file.getTotalNanos() + ", \"allocatedBytes\": " + file.getAllocatedBytes() + ", \"javaNodes\": "
+				+ file.getJavaNodeCount() + ", \"javascriptBytes\": " + file.getJavascriptBytes() + ", \"phases\": {");
+		for (GenerationPhase phase : PHASES) {
+			writer.write((phase.ordinal() == 0 ? "\"" : ", \"") + phase + "\": " + file.getPhaseNanos(phase));
+		}
+		writer.write("}}");
+	}
+
+	/**
+	 * writes the measures of all the files, the slowest first, as CSV lines. The durations are in nanoseconds.
+	 *
+	 * @param writer
+	 *            a {@link java.io.Writer} object.
+	 * @throws java.io.IOException
+	 *             if any.
+	 */
+	public void writeCsv(Writer writer) throws IOException {
+		writer.write("file,className,totalNanos");
+		for (GenerationPhase phase : PHASES) {
+			writer.write("," + phase);
+		}
+		writer.write(",allocatedBytes,javaNodes,javascriptBytes\n");
+		for (FileMetrics file : getFiles()) {
+			writer.write(csvString(file.getInputFile().getPath()) + "," + csvString(file.getClassName()) + "," + file.getTotalNanos());
+			for (GenerationPhase phase : PHASES) {
+				writer.write("," + file.getPhaseNanos(phase));
+			}
+			writer.write("," + file.getAllocatedBytes() + "," + file.getJavaNodeCount() + "," + file.getJavascriptBytes() + "\n");
+		}
+	}
+
+	private static String jsonString(String s) {
+		if (s == null) {
+			return "null";
+		}
+		StringBuilder json = new StringBuilder(s.length() + 2);
+		json.append('"');
+		for (int i = 0; i < s.length(); ++i) {
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\') {
+				json.append('\\').append(c);
+			} else if (c < ' ') {
+				json.append(String.format("\\u%04x", (int) c));
+			} else {
+				json.append(c);
+			}
+		}
+		return json.append('"').toString();
+	}
+
+	private static String csvString(String s) {
+		if (s == null) {
+			return "";
+		}
+		return "\"" + s.replace("\"", "\"\"") + "\"";
+	}
+
+	/**
+	 * The measures of one source file.
+	 */
+	public static final class FileMetrics {
+		private final File inputFile;
+		private final AtomicLongArray phaseNanos = new AtomicLongArray(PHASES.length);
+		private final AtomicLong allocatedBytes = new AtomicLong();
+		private volatile String className;
+		private volatile int javaNodeCount;
+		private volatile long javascriptBytes;
+
+		FileMetrics(File inputFile) {
+			this.inputFile = inputFile;
+		}
+
+		private void addPhase(GenerationPhase phase, long durationNanos, long phaseAllocatedBytes) {
+			phaseNanos.addAndGet(phase.ordinal(), durationNanos);
+			if (phaseAllocatedBytes > 0) {
+				allocatedBytes.addAndGet(phaseAllocatedBytes);
+			}
+		}
+
+		public File getInputFile() {
+			return inputFile;
+		}
+
+		public String getClassName() {
+			return className;
+		}
+
+		public long getPhaseNanos(GenerationPhase phase) {
+			return phaseNanos.get(phase.ordinal());
+		}
+
+		public long getTotalNanos() {
+			long total = 0;
+			for (int i = 0; i < phaseNanos.length(); ++i) {
+				total += phaseNanos.get(i);
+			}
+			return total;
+		}
+
+		public long getAllocatedBytes() {
+			return allocatedBytes.get();
+		}
+
+		public int getJavaNodeCount() {
+			return javaNodeCount;
+		}
+
+		public long getJavascriptBytes() {
+			return javascriptBytes;
+		}
+	}
+}
@@ -0,0 +1,52 @@
+/**
+ *  Copyright 2011 Alexandru Craciun, Eyal Kaspi
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.stjs.generator;
+
+/**
+ * The phases of the generation reported to {@link org.stjs.generator.GenerationMetrics}, in the order they are run.
+ *
+ * @version $Id: $Id
+ */
+public enum GenerationPhase {
+	/**
+	 * the javac parsing of the sources. It's done once for all the files generated together.
+	 */
+	PARSE,
+	/**
+	 * the javac attribution of the sources. It's done once for all the files generated together.
+	 */
+	ANALYZE,
+	/**
+	 * the ST-JS checks of a source file
+	 */
+	CHECK,
+	/**
+	 * the build of the JavaScript AST of a source file
+	 */
+	WRITE_AST,
+	/**
+	 * the output of the JavaScript file
+	 */
+	DUMP_JS,
+	/**
+	 * the output of the .stjs properties file
+	 */
+	WRITE_PROPERTIES,
+	/**
+	 * the output of the source map, when it is enabled
+	 */
+	WRITE_SOURCE_MAP
+}
@@ -18,13 +18,20 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -47,13 +54,15 @@ import org.stjs.generator.name.DependencyType;
 import org.stjs.generator.name.JavaScriptNameProvider;
 import org.stjs.generator.plugin.GenerationPlugins;
 import org.stjs.generator.utils.ClassUtils;
-import org.stjs.generator.utils.Timers;
 
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.common.io.Closeables;
 import com.google.common.io.Files;
 import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
 import com.sun.source.util.Trees;
 import com.sun.tools.javac.api.JavacTool;
 
@@ -71,28 +80,67 @@ public class Generator {
 	public static final String STJS_PATH = "META-INF/resources/webjars/stjs-client-runtime/" + STJS_FILE;
 	private final GenerationPlugins<Object> plugins;
 	private StandardJavaFileManager fileManager;
+	private final boolean ownFileManager;
 	private JavaFileManager classLoaderFileManager;
-	private final Map<AnnotationCacheKey, Object> cacheAnnotations = Maps.newHashMap();
+	// the javac objects of the generator's file manager are used by one task at a time
+	private final Object fileManagerLock = new Object();
 	private final Executor taskExecutor;
-	private final GeneratorConfiguration config;
+	private final ExecutorService generationExecutor;
+	private GeneratorConfiguration config;
 
-	@SuppressWarnings("PMD.DoNotUseThreads")
 	/**
 	 * <p>Constructor for Generator.</p>
 	 *
 	 * @param config a {@link org.stjs.generator.GeneratorConfiguration} object.
 	 */
 	public Generator(GeneratorConfiguration config) {
-		plugins = new GenerationPlugins<>();
+		this(config, new GenerationPlugins<Object>(), null);
+	}
+
+	/**
+	 * builds a generator that reuses the plugins and the javac file manager of a previous generation, for example when the generator is
+	 * embedded in a long running process. The given file manager is not closed by {@link #close()}.
+	 *
+	 * @param config a {@link org.stjs.generator.GeneratorConfiguration} object.
+	 * @param plugins the generation plugins
+	 * @param sharedFileManager a javac file manager, or null to let the generator create (and close) its own
+	 */
+	@SuppressWarnings("PMD.DoNotUseThreads")
+	public Generator(GeneratorConfiguration config, GenerationPlugins<Object> plugins, StandardJavaFileManager sharedFileManager) {
+		this.plugins = plugins;
 		this.config = config;
+		this.fileManager = sharedFileManager;
+		this.ownFileManager = sharedFileManager == null;
 
-		// taskExecutor = Executors.newFixedThreadPool(4);
+		// the files are dumped by the thread that generated them
 		taskExecutor = new Executor() {
 			@Override
 			public void execute(Runnable command) {
 				command.run();
 			}
 		};
+
+		if (config.getGenerationThreads() > 1) {
+			generationExecutor = Executors.newFixedThreadPool(config.getGenerationThreads(),
+					new ThreadFactoryBuilder().setNameFormat("stjs-generator-%d").setDaemon(true).build());
+		} else {
+			generationExecutor = null;
+		}
+	}
+
+	/**
+	 * replaces the configuration of the next generations, for example to load the recompiled classes of a project with a new class
+	 * loader in a long running process. The plugins, the javac file manager and the generation threads are kept, so the number of
+	 * generation threads stays the one of the first configuration.
+	 *
+	 * @param newConfig the configuration of the next generations
+	 */
+	public void setConfiguration(GeneratorConfiguration newConfig) {
+		synchronized (fileManagerLock) {
+			this.config = newConfig;
+			// this file manager loads the classes with the class loader of the previous configuration
+			classLoaderFileManager = null;
+		}
 	}
 
 	/**
@@ -100,21 +148,33 @@ public class Generator {
 	 */
 	@edu.umd.cs.findbugs.annotations.SuppressWarnings("BC_UNCONFIRMED_CAST")
 	public void close() {
+		if (ownFileManager) {
+			close(fileManager);
+		}
+		if (taskExecutor instanceof ExecutorService) {
+			shutdown((ExecutorService) taskExecutor);
+		}
+		if (generationExecutor != null) {
+			shutdown(generationExecutor);
+		}
+	}
+
+	private static void close(JavaFileManager javaFileManager) {
 		try {
-			Closeables.close(fileManager, true);
+			Closeables.close(javaFileManager, true);
 		}
 		catch (IOException e) {
 			LOG.log(Level.SEVERE, "IOException should not have been thrown.", e);
 		}
-		if (taskExecutor instanceof ExecutorService) {
-			ExecutorService es = (ExecutorService) taskExecutor;
-			es.shutdown();
-			try {
-				es.awaitTermination(EXECUTOR_TERMINAL_TIMEOUT, TimeUnit.SECONDS);
-			}
-			catch (InterruptedException e) {
-				return;
-			}
+	}
+
+	private void shutdown(ExecutorService es) {
+		es.shutdown();
+		try {
+			es.awaitTermination(EXECUTOR_TERMINAL_TIMEOUT, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 		}
 	}
 
@@ -171,7 +231,6 @@ public class Generator {
 	 * @throws org.stjs.generator.JavascriptFileGenerationException if any.
 	 * @throws org.stjs.generator.JavascriptFileGenerationException if any.
 	 */
-	@SuppressWarnings({ "unchecked", "rawtypes" })
 	public ClassWithJavascript generateJavascript(String className, File sourceFolder) throws JavascriptFileGenerationException {
 
 		Class<?> clazz = ClassUtils.getClazz(config.getStjsClassLoader(), className);
@@ -180,27 +239,166 @@ public class Generator {
 		}
 
 		File inputFile = getInputFile(sourceFolder, className);
-		File outputFile = getOutputFile(config.getGenerationFolder().getGeneratedSourcesAbsolutePath(), className);
-		JavaScriptNameProvider names = new DefaultJavaScriptNameProvider();
-		GenerationPlugins<Object> currentClassPlugins = plugins.forClass(clazz);
-
-		GenerationContext<Object> context =
-				new GenerationContext<Object>(inputFile, config, names, null, cacheAnnotations, getJavaScriptBuilder());
+		GenerationContext<Object> context = newGenerationContext(inputFile, newAnnotationCache());
 
 		CompilationUnitTree cu = parseAndResolve(inputFile, context, config.getStjsClassLoader(), config.getSourceEncoding());
 
+		return generateJavascript(className, clazz, cu, context);
+	}
+
+	/**
+	 * Generates the Javascript code for all the given classes. Contrary to {@link #generateJavascript(String, File)} all the source files
+	 * are parsed and attributed by a single javac task, so the symbols coming from the classpath are completed only once for the whole
+	 * batch. The check and the writer visitors are then launched for each compilation unit. An error in a file does not stop the
+	 * generation of the other files: all the errors are collected and thrown at the end.
+	 * <p>
+	 * If the configuration asks for more than one generation thread, the files are split in as many groups as threads and each group is
+	 * parsed, analyzed and generated in its own javac task.
+	 *
+	 * @param classNames the names of the classes to generate
+	 * @param sourceFolder a {@link java.io.File} object.
+	 * @return the list of classes that were processed
+	 * @throws org.stjs.generator.MultipleFileGenerationException if the generation of at least one of the files failed.
+	 */
+	public List<ClassWithJavascript> generateJavascript(Collection<String> classNames, File sourceFolder)
+			throws MultipleFileGenerationException {
+		List<ClassWithJavascript> generatedClasses = new ArrayList<ClassWithJavascript>(classNames.size());
+		List<JavascriptFileGenerationException> errors = new ArrayList<JavascriptFileGenerationException>();
+
+		Map<String, Class<?>> classesToParse = resolveClassesToParse(classNames, sourceFolder, generatedClasses, errors);
+		if (!classesToParse.isEmpty()) {
+			generateJavascript(classesToParse, sourceFolder, generatedClasses, errors);
+		}
+
+		if (!errors.isEmpty()) {
+			throw new MultipleFileGenerationException(errors);
+		}
+		return generatedClasses;
+	}
+
+	/**
+	 * @return the classes that need to be parsed. The bridges don't need to be parsed, so they are directly added to the generated
+	 *         classes
+	 */
+	@SuppressWarnings("PMD.AvoidCatchingGenericException") // an error in a file must not stop the generation of the other files
+	private Map<String, Class<?>> resolveClassesToParse(Collection<String> classNames, File sourceFolder,
+			List<ClassWithJavascript> generatedClasses, List<JavascriptFileGenerationException> errors) {
+		Map<String, Class<?>> classesToParse = new LinkedHashMap<String, Class<?>>();
+		for (String className : classNames) {
+			try {
+				Class<?> clazz = ClassUtils.getClazz(config.getStjsClassLoader(), className);
+				if (ClassUtils.isBridge(config.getStjsClassLoader(), clazz)) {
+					generatedClasses.add(new BridgeClass(config.getClassResolver(), clazz));
+				} else {
+					classesToParse.put(className, clazz);
+				}
+			}
+			catch (RuntimeException e) {
+				addError(errors, getInputFile(sourceFolder, className), e);
+			}
+		}
+		return classesToParse;
+	}
+
+	private void generateJavascript(Map<String, Class<?>> classesToParse, File sourceFolder, List<ClassWithJavascript> generatedClasses,
+			List<JavascriptFileGenerationException> errors) {
+		if (generationExecutor == null || classesToParse.size() == 1) {
+			new GenerationTask(classesToParse, sourceFolder, false).generate(generatedClasses, errors);
+			return;
+		}
+
+		List<GenerationTask> tasks = new ArrayList<GenerationTask>();
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		for (Map<String, Class<?>> group : split(classesToParse, config.getGenerationThreads())) {
+			GenerationTask task = new GenerationTask(group, sourceFolder, true);
+			tasks.add(task);
+			futures.add(generationExecutor.submit(task));
+		}
+		collectResults(tasks, futures, generatedClasses, errors);
+	}
+
+	/**
+	 * waits for all the tasks and collects their results in the order of the groups.
+	 */
+	private void collectResults(List<GenerationTask> tasks, List<Future<?>> futures, List<ClassWithJavascript> generatedClasses,
+			List<JavascriptFileGenerationException> errors) {
+		for (int i = 0; i < tasks.size(); ++i) {
+			try {
+				futures.get(i).get();
+				generatedClasses.addAll(tasks.get(i).generatedClasses);
+				errors.addAll(tasks.get(i).errors);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new STJSRuntimeException("Interrupted while waiting for the generation of the files", e);
+			}
+			catch (ExecutionException e) {
+				// the task stopped: keep what it did and report the cause against each of its remaining files
+				GenerationTask task = tasks.get(i);
+				generatedClasses.addAll(task.generatedClasses);
+				errors.addAll(task.errors);
+				for (File inputFile : task.unprocessedInputFiles()) {
+					errors.add(new JavascriptFileGenerationException(new SourcePosition(inputFile, 0, 0), e.getCause()));
+				}
+			}
+		}
+	}
+
+	private static List<Map<String, Class<?>>> split(Map<String, Class<?>> classes, int groupCount) {
+		int groupSize = (classes.size() + groupCount - 1) / groupCount;
+		List<Map<String, Class<?>>> groups = new ArrayList<Map<String, Class<?>>>(groupCount);
+		Map<String, Class<?>> group = null;
+		for (Map.Entry<String, Class<?>> entry : classes.entrySet()) {
+			if (group == null || group.size() == groupSize) {
+				group = new LinkedHashMap<String, Class<?>>();
+				groups.add(group);
+			}
+			group.put(entry.getKey(), entry.getValue());
+		}
+		return groups;
+	}
+
+	private void addError(List<JavascriptFileGenerationException> errors, File inputFile, Throwable e) {
+		if (e instanceof MultipleFileGenerationException) {
+			errors.addAll(((MultipleFileGenerationException) e).getExceptions());
+		} else if (e instanceof JavascriptFileGenerationException) {
+			errors.add((JavascriptFileGenerationException) e);
+		} else {
+			errors.add(new JavascriptFileGenerationException(new SourcePosition(inputFile, 0, 0), e));
+		}
+	}
+
+	/**
+	 * the annotations are cached by javac element, so the cache is only valid for the javac task that created the elements. It is
+	 * created for each task, as keeping it for the whole generator would keep all the symbol tables of the previous tasks.
+	 */
+	private static Map<AnnotationCacheKey, Object> newAnnotationCache() {
+		return Maps.newConcurrentMap();
+	}
+
+	private GenerationContext<Object> newGenerationContext(File inputFile, Map<AnnotationCacheKey, Object> annotationCache) {
+		return new GenerationContext<Object>(inputFile, config, new DefaultJavaScriptNameProvider(), null, annotationCache,
+				getJavaScriptBuilder());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private ClassWithJavascript generateJavascript(String className, Class<?> clazz, CompilationUnitTree cu, GenerationContext<Object> context) {
+		File outputFile = getOutputFile(config.getGenerationFolder().getGeneratedSourcesAbsolutePath(), className);
+		JavaScriptNameProvider names = context.getNames();
+		GenerationPlugins<Object> currentClassPlugins = plugins.forClass(clazz);
+
 		// check the code
-		Timers.start("check-java");
+		PhaseStopwatch stopwatch = PhaseStopwatch.start(config.getMetrics());
 		currentClassPlugins.getCheckVisitor().scan(cu, (GenerationContext) context);
 		context.getChecks().check();
-		Timers.end("check-java");
+		stopwatch.stop(GenerationPhase.CHECK, context.getInputFile());
 
 		// generate the javascript code
-		Timers.start("write-js-ast");
+		stopwatch = PhaseStopwatch.start(config.getMetrics());
 		Object javascriptRoot = currentClassPlugins.getWriterVisitor().scan(cu, context);
 		// check for any error arriving during writing
 		context.getChecks().check();
-		Timers.end("write-js-ast");
+		stopwatch.stop(GenerationPhase.WRITE_AST, context.getInputFile());
 
 		Class<?> javaClass = config.getClassResolver().resolveJavaClass(className);
 		STJSClass stjsClass = new STJSClass(config.getClassResolver(), config.getTargetFolder(), javaClass);
@@ -232,45 +430,145 @@ public class Generator {
 		}
 		if (fileManager == null) {
 			fileManager = compiler.getStandardFileManager(null, null, Charset.forName(sourceEncoding));
+		}
+		if (classLoaderFileManager == null) {
 			classLoaderFileManager = new CustomClassloaderJavaFileManager(builtProjectClassLoader, fileManager);
 		}
 		return compiler;
 	}
 
-	@SuppressWarnings("PMD.AvoidCatchingThrowable") // JavaCompiler throws an Error, so catching Throwable is intentional
 	private <JS> CompilationUnitTree parseAndResolve(File inputFile, GenerationContext<JS> context, ClassLoader builtProjectClassLoader,
 			String sourceEncoding) {
+		return parseAndResolve(Collections.singletonList(inputFile), Collections.singletonList(context), builtProjectClassLoader,
+				sourceEncoding).get(0);
+	}
+
+	/**
+	 * parses and attributes the given files using the file manager of the generator.
+	 */
+	private <JS> List<CompilationUnitTree> parseAndResolve(List<File> inputFiles, List<GenerationContext<JS>> contexts,
+			ClassLoader builtProjectClassLoader, String sourceEncoding) {
+		synchronized (fileManagerLock) {
+			JavaCompiler compiler = getCompiler(builtProjectClassLoader, sourceEncoding);
+			return parseAndResolve(inputFiles, contexts, compiler, fileManager, classLoaderFileManager);
+		}
+	}
+
+	/**
+	 * parses and attributes all the given files in the same javac task. The contexts are initialized with the javac utilities of the task
+	 * and with the compilation unit of the corresponding file.
+	 */
+	@SuppressWarnings("PMD.AvoidCatchingThrowable") // JavaCompiler throws an Error, so catching Throwable is intentional
+	private <JS> List<CompilationUnitTree> parseAndResolve(List<File> inputFiles, List<GenerationContext<JS>> contexts,
+			JavaCompiler compiler, StandardJavaFileManager standardFileManager, JavaFileManager javaFileManager) {
 		JavaCompiler.CompilationTask task = null;
 		JavacTask javacTask = null;
+		CurrentFileListener currentFile = new CurrentFileListener(inputFiles, config.getMetrics());
 		try {
-			JavaCompiler compiler = getCompiler(builtProjectClassLoader, sourceEncoding);
-			Iterable<? extends JavaFileObject> fileObjects = fileManager.getJavaFileObjectsFromFiles(Collections.singleton(inputFile));
+			Iterable<? extends JavaFileObject> fileObjects = standardFileManager.getJavaFileObjectsFromFiles(inputFiles);
 			List<String> options = Arrays.asList("-proc:none");
-			task = compiler.getTask(null, classLoaderFileManager, null, options, null, fileObjects);
+			task = compiler.getTask(null, javaFileManager, null, options, null, fileObjects);
 			javacTask = (JavacTask) task;
+			javacTask.setTaskListener(currentFile);
 
-			context.setTrees(Trees.instance(javacTask));
-			context.setElements(javacTask.getElements());
-			context.setTypes(javacTask.getTypes());
+			Trees trees = Trees.instance(javacTask);
+			for (GenerationContext<JS> context : contexts) {
+				context.setTrees(trees);
+				context.setElements(javacTask.getElements());
+				context.setTypes(javacTask.getTypes());
+			}
 
-			Timers.start("parse-java");
-			CompilationUnitTree cu = javacTask.parse().iterator().next();
-			Timers.end("parse-java");
+			PhaseStopwatch stopwatch = PhaseStopwatch.start(config.getMetrics());
+			// the compilation units are returned in the same order as the input files
+			List<CompilationUnitTree> compilationUnits = new ArrayList<CompilationUnitTree>(inputFiles.size());
+			for (CompilationUnitTree cu : javacTask.parse()) {
+				compilationUnits.add(cu);
+			}
+			stopwatch.stop(GenerationPhase.PARSE, inputFiles);
 
-			Timers.start("analyze-java");
+			stopwatch = PhaseStopwatch.start(config.getMetrics());
 			javacTask.analyze();
-			Timers.end("analyze-java");
+			stopwatch.stop(GenerationPhase.ANALYZE, inputFiles);
 
-			context.setCompilationUnit(cu);
+			for (int i = 0; i < contexts.size(); ++i) {
+				contexts.get(i).setCompilationUnit(compilationUnits.get(i));
+			}
 
-			return cu;
+			return compilationUnits;
 		}
 		catch (Throwable e) {
-			throw new JavascriptFileGenerationException(new SourcePosition(context.getInputFile(), 0, 0), "Cannot parse the Java file", e);
+			File failedFile = currentFile.getFile();
+			if (failedFile != null) {
+				throw new JavascriptFileGenerationException(new SourcePosition(failedFile, 0, 0), "Cannot parse the Java file", e);
+			}
+			// the error does not belong to a file in particular
+			throw new JavascriptFileGenerationException(new SourcePosition(inputFiles.get(0), 0, 0), "Cannot parse the batch of "
+					+ inputFiles.size() + " Java files starting with " + inputFiles.get(0).getName(), e);
 		}
 
 	}
 
+	/**
+	 * keeps the file javac is currently parsing or analyzing, to report the errors of a batch against the right file. It also measures the
+	 * time javac spends to parse and to analyze each file, so the files of a batch have their own javac measures.
+	 */
+	private static final class CurrentFileListener implements TaskListener {
+		private final List<File> inputFiles;
+		private final GenerationMetrics metrics;
+		private URI file;
+		private PhaseStopwatch stopwatch;
+
+		CurrentFileListener(List<File> inputFiles, GenerationMetrics metrics) {
+			this.inputFiles = inputFiles;
+			this.metrics = metrics;
+		}
+
+		@Override
+		public void started(TaskEvent e) {
+			if (e.getSourceFile() != null) {
+				file = e.getSourceFile().toUri();
+				stopwatch = PhaseStopwatch.start(metrics);
+			}
+		}
+
+		@Override
+		public void finished(TaskEvent e) {
+			GenerationPhase phase = getPhase(e.getKind());
+			File inputFile = getFile();
+			if (phase != null && inputFile != null && stopwatch != null) {
+				stopwatch.stopJavacPhase(phase, inputFile);
+			}
+			file = null;
+			stopwatch = null;
+		}
+
+		private static GenerationPhase getPhase(TaskEvent.Kind kind) {
+			switch (kind) {
+			case PARSE:
+				return GenerationPhase.PARSE;
+			case ANALYZE:
+				return GenerationPhase.ANALYZE;
+			default:
+				return null;
+			}
+		}
+
+		/**
+		 * @return the input file javac is working on, or null if it is not working on any of them
+		 */
+		public File getFile() {
+			if (file == null) {
+				return null;
+			}
+			for (File inputFile : inputFiles) {
+				if (inputFile.toURI().normalize().equals(file.normalize())) {
+					return inputFile;
+				}
+			}
+			return null;
+		}
+	}
+
 	/**
 	 * This method copies the Javascript support file (stjs.js currently) to the desired folder. This method should be
 	 * called after the processing of all the files.
@@ -305,6 +603,135 @@ public class Generator {
 		return config.getClassResolver().resolve(testClass.getName());
 	}
 
+	/**
+	 * generates a group of files that are parsed and analyzed together. A task that is run by the generation executor has its own javac
+	 * file manager, as the javac objects cannot be shared between threads.
+	 */
+	@SuppressWarnings("PMD.DoNotUseThreads")
+	private class GenerationTask implements Runnable {
+		private final Map<String, Class<?>> classesToParse;
+		private final File sourceFolder;
+		private final boolean ownFileManager;
+		private final List<ClassWithJavascript> generatedClasses = new ArrayList<ClassWithJavascript>();
+		private final List<JavascriptFileGenerationException> errors = new ArrayList<JavascriptFileGenerationException>();
+
+		public GenerationTask(Map<String, Class<?>> classesToParse, File sourceFolder, boolean ownFileManager) {
+			this.classesToParse = classesToParse;
+			this.sourceFolder = sourceFolder;
+			this.ownFileManager = ownFileManager;
+		}
+
+		@Override
+		public void run() {
+			generate(generatedClasses, errors);
+		}
+
+		public void generate(List<ClassWithJavascript> generated, List<JavascriptFileGenerationException> generationErrors) {
+			if (!ownFileManager) {
+				generate(null, null, null, generated, generationErrors);
+				return;
+			}
+
+			JavaCompiler compiler = JavacTool.create();
+			StandardJavaFileManager taskFileManager =
+					compiler.getStandardFileManager(null, null, Charset.forName(config.getSourceEncoding()));
+			try {
+				JavaFileManager taskClassLoaderFileManager =
+						new CustomClassloaderJavaFileManager(config.getStjsClassLoader(), taskFileManager);
+				generate(compiler, taskFileManager, taskClassLoaderFileManager, generated, generationErrors);
+			}
+			finally {
+				close(taskFileManager);
+			}
+		}
+
+		/**
+		 * generates all the files in one javac task. If the task fails, javac stopped on one file and nothing is known about the other
+		 * ones, so each file is generated again in its own task to report the real result of every file.
+		 */
+		private void generate(JavaCompiler compiler, StandardJavaFileManager standardFileManager, JavaFileManager javaFileManager,
+				List<ClassWithJavascript> generated, List<JavascriptFileGenerationException> generationErrors) {
+			try {
+				generate(classesToParse, compiler, standardFileManager, javaFileManager, generated, generationErrors);
+			}
+			catch (JavascriptFileGenerationException e) {
+				if (classesToParse.size() == 1) {
+					generationErrors.add(e);
+					return;
+				}
+				LOG.log(Level.WARNING, "The batch of " + classesToParse.size() + " files failed, generating them one by one", e);
+				for (Map.Entry<String, Class<?>> entry : classesToParse.entrySet()) {
+					try {
+						generate(Collections.<String, Class<?>> singletonMap(entry.getKey(), entry.getValue()), compiler,
+								standardFileManager, javaFileManager, generated, generationErrors);
+					}
+					catch (JavascriptFileGenerationException fileException) {
+						generationErrors.add(fileException);
+					}
+				}
+			}
+		}
+
+		/**
+		 * parses the given classes in one javac task, with the shared file manager of the generator if no compiler is given.
+		 */
+		@SuppressWarnings("PMD.AvoidCatchingGenericException") // an error in a file must not stop the generation of the other files
+		private void generate(Map<String, Class<?>> classes, JavaCompiler compiler, StandardJavaFileManager standardFileManager,
+				JavaFileManager javaFileManager, List<ClassWithJavascript> generated,
+				List<JavascriptFileGenerationException> generationErrors) {
+			List<File> inputFiles = new ArrayList<File>(classes.size());
+			List<GenerationContext<Object>> contexts = new ArrayList<GenerationContext<Object>>(classes.size());
+			// all the files of the task share the same javac elements
+			Map<AnnotationCacheKey, Object> annotationCache = newAnnotationCache();
+			for (String className : classes.keySet()) {
+				File inputFile = getInputFile(sourceFolder, className);
+				inputFiles.add(inputFile);
+				contexts.add(newGenerationContext(inputFile, annotationCache));
+			}
+
+			List<CompilationUnitTree> compilationUnits;
+			if (compiler == null) {
+				compilationUnits = parseAndResolve(inputFiles, contexts, config.getStjsClassLoader(), config.getSourceEncoding());
+			} else {
+				compilationUnits = parseAndResolve(inputFiles, contexts, compiler, standardFileManager, javaFileManager);
+			}
+
+			int i = 0;
+			for (Map.Entry<String, Class<?>> entry : classes.entrySet()) {
+				GenerationContext<Object> context = contexts.get(i);
+				try {
+					generated.add(generateJavascript(entry.getKey(), entry.getValue(), compilationUnits.get(i), context));
+				}
+				catch (RuntimeException e) {
+					addError(generationErrors, context.getInputFile(), e);
+				}
+				i++;
+			}
+		}
+
+		/**
+		 * @return the input files that have neither been generated nor reported as failed
+		 */
+		public List<File> unprocessedInputFiles() {
+			Set<String> processed = new HashSet<String>();
+			for (ClassWithJavascript cls : generatedClasses) {
+				processed.add(cls.getJavaClassName());
+			}
+			Set<File> failedFiles = new HashSet<File>();
+			for (JavascriptFileGenerationException error : errors) {
+				failedFiles.add(error.getSourcePosition().getFile());
+			}
+			List<File> inputFiles = new ArrayList<File>();
+			for (String className : classesToParse.keySet()) {
+				File inputFile = getInputFile(sourceFolder, className);
+				if (!processed.contains(className) && !failedFiles.contains(inputFile)) {
+					inputFiles.add(inputFile);
+				}
+			}
+			return inputFiles;
+		}
+	}
+
 	@SuppressWarnings("PMD.DoNotUseThreads")
 	private class DumpFilesTask<JS> implements Runnable {
 		private final File outputFile;
@@ -324,16 +751,20 @@ public class Generator {
 			writeJavaScript();
 			writePropertiesFile();
 			writeSourceMap();
+			if (config.getMetrics() != null) {
+				config.getMetrics().fileGenerated(context.getInputFile(), stjsClass.getJavaClassName(),
+						PhaseStopwatch.countNodes(context.getCompilationUnit()), outputFile.length());
+			}
 		}
 
 		private void writeJavaScript() {
 			BufferedWriter writer = null;
 			try {
-				Timers.start("dump-js");
+				PhaseStopwatch stopwatch = PhaseStopwatch.start(config.getMetrics());
 				writer = Files.newWriter(outputFile, Charset.forName(config.getSourceEncoding()));
 				context.writeJavaScript(javascriptRoot, writer);
 				writer.flush();
-				Timers.end("dump-js");
+				stopwatch.stop(GenerationPhase.DUMP_JS, context.getInputFile());
 			}
 			catch (IOException e) {
 				throw new STJSRuntimeException("Could not open output file " + outputFile + ":" + e, e);
@@ -351,14 +782,15 @@ public class Generator {
 		// write properties
 
 		private void writePropertiesFile() {
-			Timers.start("write-props");
+			PhaseStopwatch stopwatch = PhaseStopwatch.start(config.getMetrics());
 			stjsClass.store();
-			Timers.end("write-props");
+			stopwatch.stop(GenerationPhase.WRITE_PROPERTIES, context.getInputFile());
 		}
 
 		private void writeSourceMap() {
 			if (config.isGenerateSourceMap()) {
 				BufferedWriter sourceMapWriter = null;
+				PhaseStopwatch stopwatch = PhaseStopwatch.start(config.getMetrics());
 
 				try {
 					// write the source map
@@ -380,6 +812,7 @@ public class Generator {
 					if (!stjsPropFile.equals(copyStjsPropFile)) {
 						Files.copy(stjsPropFile, copyStjsPropFile);
 					}
+					stopwatch.stop(GenerationPhase.WRITE_SOURCE_MAP, context.getInputFile());
 				}
 				catch (IOException e) {
 					throw new STJSRuntimeException("Could generate source map:" + e, e);
@@ -33,12 +33,20 @@ public class GeneratorConfiguration {
 	private final File targetFolder;
 	private final GenerationDirectory generationFolder;
 	private final ClassResolver classResolver;
+	private final GenerationMetrics metrics;
+	private final boolean hoistAnonymousClasses;
+	private final boolean indexedArrayLoops;
+	private final boolean truncateWithOr;
+	private final LanguageLevel languageLevel;
+	private final int generationThreads;
 
 	// We actually have a builder for that, so the number of parameters warning doesn't apply
 	@SuppressWarnings("PMD.ExcessiveParameterList")
 	GeneratorConfiguration(Collection<String> allowedPackages, Set<String> allowedJavaLangClasses, boolean generateArrayHasOwnProperty,
 			boolean generateSourceMap, String sourceEncoding, Set<String> annotations, ClassLoader stjsClassLoader, File targetFolder,
-			GenerationDirectory generationFolder, ClassResolver classResolver) {
+			GenerationDirectory generationFolder, ClassResolver classResolver, int generationThreads, boolean hoistAnonymousClasses,
+			GenerationMetrics metrics, boolean indexedArrayLoops, boolean truncateWithOr,
+			LanguageLevel languageLevel) {
 		this.allowedPackages = allowedPackages;
 		this.allowedJavaLangClasses = allowedJavaLangClasses;
 		this.generateArrayHasOwnProperty = generateArrayHasOwnProperty;
@@ -49,6 +57,12 @@ public class GeneratorConfiguration {
 		this.targetFolder = targetFolder;
 		this.generationFolder = generationFolder;
 		this.classResolver = classResolver;
+		this.metrics = metrics;
+		this.hoistAnonymousClasses = hoistAnonymousClasses;
+		this.indexedArrayLoops = indexedArrayLoops;
+		this.truncateWithOr = truncateWithOr;
+		this.languageLevel = languageLevel;
+		this.generationThreads = generationThreads;
 	}
 
 	/**
@@ -141,4 +155,62 @@ public class GeneratorConfiguration {
 	public ClassResolver getClassResolver() {
 		return classResolver;
 	}
+
+	/**
+	 * <p>Getter for the field <code>generationThreads</code>.</p>
+	 *
+	 * @return the number of threads used to generate the files of a batch. Each thread parses and analyzes its share of the files in
+	 *         its own javac task.
+	 */
+	public int getGenerationThreads() {
+		return generationThreads;
+	}
+
+	/**
+	 * <p>isHoistAnonymousClasses.</p>
+	 *
+	 * @return true if the definition of the anonymous classes is evaluated only once, the first time the class is instantiated,
+	 *         instead of each time. The local variables captured by such a class are given to its constructor.
+	 */
+	public boolean isHoistAnonymousClasses() {
+		return hoistAnonymousClasses;
+	}
+
+	/**
+	 * <p>isIndexedArrayLoops.</p>
+	 *
+	 * @return true if the for-each loops over an {@link org.stjs.javascript.Array} are generated as loops over the indexes from 0 to the
+	 *         length of the array, instead of for-in loops.
+	 */
+	public boolean isIndexedArrayLoops() {
+		return indexedArrayLoops;
+	}
+
+	/**
+	 * <p>isTruncateWithOr.</p>
+	 *
+	 * @return true if the integer divisions and the casts to int, whose result is an int, are truncated with |0 instead of a call to
+	 *         stjs.trunc.
+	 */
+	public boolean isTruncateWithOr() {
+		return truncateWithOr;
+	}
+
+	/**
+	 * <p>Getter for the field <code>languageLevel</code>.</p>
+	 *
+	 * @return the version of JavaScript the generated code may use
+	 */
+	public LanguageLevel getLanguageLevel() {
+		return languageLevel;
+	}
+
+	/**
+	 * <p>Getter for the field <code>metrics</code>.</p>
+	 *
+	 * @return the listener receiving the measures of the generation, or null if nothing is measured
+	 */
+	public GenerationMetrics getMetrics() {
+		return metrics;
+	}
 }
@@ -37,6 +37,12 @@ public class GeneratorConfigurationBuilder {
 	private File targetFolder;
 	private GenerationDirectory generationFolder;
 	private ClassResolver classResolver;
+	private GenerationMetrics metrics;
+	private boolean hoistAnonymousClasses;
+	private boolean indexedArrayLoops;
+	private boolean truncateWithOr;
+	private LanguageLevel languageLevel = LanguageLevel.ES5;
+	private int generationThreads = 1;
 
 	/**
 	 * <p>Constructor for GeneratorConfigurationBuilder.</p>
@@ -64,6 +70,12 @@ public class GeneratorConfigurationBuilder {
 			targetFolder(baseConfig.getTargetFolder());
 			generationFolder(baseConfig.getGenerationFolder());
 			classResolver(baseConfig.getClassResolver());
+			metrics(baseConfig.getMetrics());
+			hoistAnonymousClasses(baseConfig.isHoistAnonymousClasses());
+			indexedArrayLoops(baseConfig.isIndexedArrayLoops());
+			truncateWithOr(baseConfig.isTruncateWithOr());
+			languageLevel(baseConfig.getLanguageLevel());
+			generationThreads(baseConfig.getGenerationThreads());
 		}
 	}
 
@@ -210,6 +222,83 @@ public class GeneratorConfigurationBuilder {
 		return this;
 	}
 
+	/**
+	 * <p>generationThreads.</p>
+	 *
+	 * @param generationThreads the number of threads used to generate the files of a batch. 1 means the files are generated in the
+	 *            calling thread.
+	 * @return a {@link org.stjs.generator.GeneratorConfigurationBuilder} object.
+	 */
+	public GeneratorConfigurationBuilder generationThreads(int generationThreads) {
+		this.generationThreads = generationThreads;
+		return this;
+	}
+
+	/**
+	 * <p>hoistAnonymousClasses.</p>
+	 *
+	 * @param hoistAnonymousClasses if true the definition of the anonymous classes is cached in the outermost class, so
+	 *            stjs.extend is called only once for each such class. The local variables captured by the class are given to its
+	 *            constructor.
+	 * @return a {@link org.stjs.generator.GeneratorConfigurationBuilder} object.
+	 */
+	public GeneratorConfigurationBuilder hoistAnonymousClasses(boolean hoistAnonymousClasses) {
+		this.hoistAnonymousClasses = hoistAnonymousClasses;
+		return this;
+	}
+
+	/**
+	 * <p>metrics.</p>
+	 *
+	 * @param metrics the listener receiving the duration of each generation phase for each file. By default nothing is measured.
+	 * @return a {@link org.stjs.generator.GeneratorConfigurationBuilder} object.
+	 */
+	public GeneratorConfigurationBuilder metrics(GenerationMetrics metrics) {
+		this.metrics = metrics;
+		return this;
+	}
+
+	/**
+	 * <p>indexedArrayLoops.</p>
+	 *
+	 * @param indexedArrayLoops if true the for-each loops over an {@link org.stjs.javascript.Array} are generated as loops with a
+	 *            numeric index and a cached length, instead of for-in loops checking hasOwnProperty. The arrays must not have holes, as
+	 *            the indexes of the holes are also visited. The loops using their variable for something else than accessing the
+	 *            elements of arrays stay for-in loops, as they need the string index.
+	 * @return a {@link org.stjs.generator.GeneratorConfigurationBuilder} object.
+	 */
+	public GeneratorConfigurationBuilder indexedArrayLoops(boolean indexedArrayLoops) {
+		this.indexedArrayLoops = indexedArrayLoops;
+		return this;
+	}
+
+	/**
+	 * <p>truncateWithOr.</p>
+	 *
+	 * @param truncateWithOr if true the integer divisions whose result is an int, including the /= assignments of int variables,
+	 *            and the casts of floating point numbers to int are truncated with (x)|0 instead of stjs.trunc(x), avoiding a
+	 *            function call. The long divisions and the casts to long still use stjs.trunc, as their result may not fit in 32
+	 *            bits.
+	 * @return a {@link org.stjs.generator.GeneratorConfigurationBuilder} object.
+	 */
+	public GeneratorConfigurationBuilder truncateWithOr(boolean truncateWithOr) {
+		this.truncateWithOr = truncateWithOr;
+		return this;
+	}
+
+	/**
+	 * <p>languageLevel.</p>
+	 *
+	 * @param languageLevel the version of JavaScript the generated code may use. With
+	 *            {@link org.stjs.generator.LanguageLevel#ES2015} the lambdas become arrow functions instead of functions wrapped by
+	 *            stjs.bind. The default is {@link org.stjs.generator.LanguageLevel#ES5}.
+	 * @return a {@link org.stjs.generator.GeneratorConfigurationBuilder} object.
+	 */
+	public GeneratorConfigurationBuilder languageLevel(LanguageLevel languageLevel) {
+		this.languageLevel = languageLevel;
+		return this;
+	}
+
 	/**
 	 * <p>build.</p>
 	 *
@@ -251,7 +340,13 @@ public class GeneratorConfigurationBuilder {
 				stjsClassLoader,  //
 				targetFolder,  //
 				generationFolder, //
-				classResolver == null ? new DefaultClassResolver(stjsClassLoader) : classResolver //
+				classResolver == null ? new DefaultClassResolver(stjsClassLoader) : classResolver, //
+				generationThreads, //
+				hoistAnonymousClasses, //
+				metrics, //
+				indexedArrayLoops, //
+				truncateWithOr, //
+				languageLevel == null ? LanguageLevel.ES5 : languageLevel //
 		);
 	}
 
@@ -47,6 +47,11 @@ public final class GeneratorConstants {
 	/** Constant <code>ARGUMENTS_PARAMETER="arguments"</code> */
 	public static final String ARGUMENTS_PARAMETER = "arguments";
 
+	/**
+	 * the prefix of the properties keeping the variables captured by a cached anonymous class, like the fields javac generates for them
+	 */
+	public static final String CAPTURED_VARIABLE_PREFIX = "val$";
+
 	/** Constant <code>TYPE_DESCRIPTION_PROPERTY="$typeDescription"</code> */
 	public static final String TYPE_DESCRIPTION_PROPERTY = "$typeDescription";
 
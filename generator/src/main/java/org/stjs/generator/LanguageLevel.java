@@ -0,0 +1,33 @@
+/**
+ *  Copyright 2011 Alexandru Craciun, Eyal Kaspi
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.stjs.generator;
+
+/**
+ * The version of JavaScript the generated code may use.
+ *
+ * @version $Id: $Id
+ */
+public enum LanguageLevel {
+	/**
+	 * ECMAScript 5, understood by all the supported browsers. This is the default.
+	 */
+	ES5,
+	/**
+	 * ECMAScript 2015. The lambdas and the method references are generated as arrow functions, or with Function.bind, instead of
+	 * being wrapped by stjs.bind.
+	 */
+	ES2015
+}
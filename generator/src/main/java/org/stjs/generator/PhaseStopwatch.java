@@ -0,0 +1,110 @@
+/**
+ *  Copyright 2011 Alexandru Craciun, Eyal Kaspi
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.stjs.generator;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collection;
+import java.util.Collections;
+
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreeScanner;
+
+/**
+ * measures the duration and the allocations of a generation phase, and reports them to the {@link GenerationMetrics} of the
+ * configuration. Nothing is measured if the configuration has no metrics.
+ */
+final class PhaseStopwatch {
+	private static final PhaseStopwatch DISABLED = new PhaseStopwatch(null);
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+	private final GenerationMetrics metrics;
+	private final long startNanos;
+	private final long startAllocatedBytes;
+
+	private PhaseStopwatch(GenerationMetrics metrics) {
+		this.metrics = metrics;
+		this.startNanos = metrics == null ? 0 : System.nanoTime();
+		this.startAllocatedBytes = metrics == null ? 0 : allocatedBytes();
+	}
+
+	public static PhaseStopwatch start(GenerationMetrics metrics) {
+		return metrics == null ? DISABLED : new PhaseStopwatch(metrics);
+	}
+
+	public void stop(GenerationPhase phase, File inputFile) {
+		if (metrics != null) {
+			stop(phase, Collections.singletonList(inputFile));
+		}
+	}
+
+	public void stop(GenerationPhase phase, Collection<File> inputFiles) {
+		if (metrics == null) {
+			return;
+		}
+		metrics.phaseCompleted(phase, inputFiles, System.nanoTime() - startNanos, allocatedSinceStart());
+	}
+
+	/**
+	 * reports the time javac spent on one file of a task, that is already counted by the measure of the whole task.
+	 */
+	public void stopJavacPhase(GenerationPhase phase, File inputFile) {
+		if (metrics == null) {
+			return;
+		}
+		metrics.javacPhaseCompleted(phase, inputFile, System.nanoTime() - startNanos, allocatedSinceStart());
+	}
+
+	private long allocatedSinceStart() {
+		long endAllocatedBytes = allocatedBytes();
+		return startAllocatedBytes < 0 || endAllocatedBytes < 0 ? -1 : endAllocatedBytes - startAllocatedBytes;
+	}
+
+	/**
+	 * @return the bytes allocated so far by the current thread, or -1 if the JVM cannot tell
+	 */
+	private static long allocatedBytes() {
+		if (THREADS instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+			if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+				return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the number of nodes of the given Java AST
+	 */
+	public static int countNodes(Tree tree) {
+		NodeCounter counter = new NodeCounter();
+		counter.scan(tree, null);
+		return counter.count;
+	}
+
+	private static final class NodeCounter extends TreeScanner<Void, Void> {
+		private int count;
+
+		@Override
+		public Void scan(Tree tree, Void p) {
+			if (tree != null) {
+				count++;
+			}
+			return super.scan(tree, p);
+		}
+	}
+}
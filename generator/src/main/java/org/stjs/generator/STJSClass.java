@@ -18,12 +18,14 @@ package org.stjs.generator;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
 import java.io.Writer;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -49,10 +51,12 @@ import com.google.common.io.Files;
 public class STJSClass implements ClassWithJavascript {
 	private static final Logger LOG = Logger.getLogger(STJSClass.class.getName());
 
-	private static final String DEPENDENCIES_PROP = "dependencies";
+	/** Constant <code>DEPENDENCIES_PROP="dependencies"</code> */
+	public static final String DEPENDENCIES_PROP = "dependencies";
 	/** Constant <code>CLASS_PROP="class"</code> */
 	public static final String CLASS_PROP = "class";
-	private static final String GENERATED_JS_FILE_PROP = "js";
+	/** Constant <code>GENERATED_JS_FILE_PROP="js"</code> */
+	public static final String GENERATED_JS_FILE_PROP = "js";
 	/** Constant <code>JS_NAMESPACE="jsNamespace"</code> */
 	public static final String JS_NAMESPACE = "jsNamespace";
 
@@ -60,8 +64,9 @@ public class STJSClass implements ClassWithJavascript {
 
 	private final ClassResolver classResolver;
 	private Map<String, DependencyType> dependencies = Collections.emptyMap();
-	private List<ClassWithJavascript> directDependencies;
-	private Map<ClassWithJavascript, DependencyType> directDependenciesMap;
+	// resolved once, when first needed, as the dependencies may depend back on this class
+	private volatile List<ClassWithJavascript> directDependencies;
+	private volatile Map<ClassWithJavascript, DependencyType> directDependenciesMap;
 	// null means namespace is unknown, empty string means no namespace
 	private String javascriptNamespace;
 
@@ -97,14 +102,26 @@ public class STJSClass implements ClassWithJavascript {
 	 * @param javaClass a {@link java.lang.Class} object.
 	 */
 	public STJSClass(ClassResolver classResolver, ClassLoader classLoader, Class<?> javaClass) {
+		this(classResolver, javaClass, loadProperties(PreConditions.checkNotNull(classLoader), PreConditions.checkNotNull(javaClass)));
+	}
+
+	/**
+	 * constructor for loading, when the properties of the class were already read, for example from the
+	 * {@link org.stjs.generator.DependencyManifest} of its library
+	 *
+	 * @param classResolver a {@link org.stjs.generator.ClassResolver} object.
+	 * @param javaClass a {@link java.lang.Class} object.
+	 * @param properties the properties stored in the .stjs file of the class
+	 */
+	public STJSClass(ClassResolver classResolver, Class<?> javaClass, Properties properties) {
 		PreConditions.checkNotNull(classResolver);
-		PreConditions.checkNotNull(classLoader);
 		PreConditions.checkNotNull(javaClass);
+		PreConditions.checkNotNull(properties);
 
 		this.javaClass = javaClass;
 		this.targetFolder = null;
 		this.classResolver = classResolver;
-		properties = loadProperties(classLoader);
+		this.properties = properties;
 
 		// deps
 		dependencies = readDependeciesProperty();
@@ -120,21 +137,21 @@ public class STJSClass implements ClassWithJavascript {
 		}
 	}
 
-	private Properties loadProperties(ClassLoader classLoader) {
+	private static Properties loadProperties(ClassLoader classLoader, Class<?> javaClass) {
 		Properties props = new Properties();
+		String propertiesFileName = ClassUtils.getPropertiesFileName(javaClass.getName());
 
 		InputStream inputStream = null;
 		try {
-			inputStream = classLoader.getResourceAsStream(ClassUtils.getPropertiesFileName(getJavaClassName()));
+			inputStream = classLoader.getResourceAsStream(propertiesFileName);
 			if (inputStream == null) {
-				LOG.severe("CANNOT find:" + ClassUtils.getPropertiesFileName(getJavaClassName()) + " clazz:"
-						+ classLoader.getResource(ClassUtils.getPropertiesFileName(getJavaClassName())));
+				LOG.severe("CANNOT find:" + propertiesFileName + " clazz:" + classLoader.getResource(propertiesFileName));
 			} else {
 				props.load(inputStream);
 			}
 		}
 		catch (IOException e) {
-			throw new JavascriptClassGenerationException(getJavaClassName(), e);
+			throw new JavascriptClassGenerationException(javaClass.getName(), e);
 		}
 		finally {
 			Closeables.closeQuietly(inputStream);
@@ -143,7 +160,30 @@ public class STJSClass implements ClassWithJavascript {
 	}
 
 	private Map<String, DependencyType> readDependeciesProperty() {
-		String depProp = properties.getProperty(DEPENDENCIES_PROP);
+		return parseDependencies(properties.getProperty(DEPENDENCIES_PROP));
+	}
+
+	/**
+	 * reads the dependencies stored in the given .stjs file, without loading the corresponding class.
+	 *
+	 * @param propertiesFile the .stjs file of a generated class
+	 * @return the dependencies of the class and their type
+	 * @throws java.io.IOException if the file cannot be read
+	 */
+	public static Map<String, DependencyType> readDependencies(File propertiesFile) throws IOException {
+		Properties props = new Properties();
+		Reader reader = Files.newReader(propertiesFile, Charsets.UTF_8);
+		try {
+			props.load(reader);
+		}
+		finally {
+			Closeables.closeQuietly(reader);
+		}
+		return parseDependencies(props.getProperty(DEPENDENCIES_PROP));
+	}
+
+	private static Map<String, DependencyType> parseDependencies(String dependenciesProperty) {
+		String depProp = dependenciesProperty;
 		if (depProp != null) {
 			// remove []
 			depProp = depProp.trim();
@@ -259,6 +299,8 @@ public class STJSClass implements ClassWithJavascript {
 	 * @param deps a {@link java.util.Map} object.
 	 */
 	public void setDependencies(Map<String, DependencyType> deps) {
+		this.directDependencies = null;
+		this.directDependenciesMap = null;
 
 		if (deps == null) {
 			properties.remove(DEPENDENCIES_PROP);
@@ -327,25 +369,34 @@ public class STJSClass implements ClassWithJavascript {
 	/** {@inheritDoc} */
 	@Override
 	public List<ClassWithJavascript> getDirectDependencies() {
-		if (directDependencies == null) {
-			directDependencies = new ArrayList<ClassWithJavascript>(dependencies.size());
-			for (String depClassName : dependencies.keySet()) {
-				directDependencies.add(classResolver.resolve(depClassName.trim()));
-			}
-		}
+		resolveDependencies();
 		return directDependencies;
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public Map<ClassWithJavascript, DependencyType> getDirectDependencyMap() {
-		if (directDependenciesMap == null) {
-			directDependenciesMap = new HashMap<ClassWithJavascript, DependencyType>(dependencies.size());
-			for (Map.Entry<String, DependencyType> entry : dependencies.entrySet()) {
-				directDependenciesMap.put(classResolver.resolve(entry.getKey().trim()), entry.getValue());
+		return resolveDependencies();
+	}
+
+	private Map<ClassWithJavascript, DependencyType> resolveDependencies() {
+		Map<ClassWithJavascript, DependencyType> resolved = directDependenciesMap;
+		if (resolved == null) {
+			synchronized (this) {
+				resolved = directDependenciesMap;
+				if (resolved == null) {
+					Map<ClassWithJavascript, DependencyType> depMap = new LinkedHashMap<ClassWithJavascript, DependencyType>(dependencies.size());
+					for (Map.Entry<String, DependencyType> entry : dependencies.entrySet()) {
+						depMap.put(classResolver.resolve(entry.getKey().trim()), entry.getValue());
+					}
+					// the list is published before the map, that is the one checked above
+					directDependencies = Collections.unmodifiableList(new ArrayList<ClassWithJavascript>(depMap.keySet()));
+					resolved = Collections.unmodifiableMap(depMap);
+					directDependenciesMap = resolved;
+				}
 			}
 		}
-		return directDependenciesMap;
+		return resolved;
 	}
 
 	/** {@inheritDoc} */
@@ -120,6 +120,15 @@ public interface JavaScriptBuilder<T> {
 	 */
 	T function(@Nullable String name, @Nonnull Iterable<T> params, @Nullable T body);
 
+	/**
+	 * <p>arrowFunction.</p>
+	 *
+	 * @param params a {@link java.lang.Iterable} object.
+	 * @param body a T object. A body made of a single return statement is written as an expression.
+	 * @return an ES2015 arrow function, i.e. (params) =&gt; body
+	 */
+	T arrowFunction(@Nonnull Iterable<T> params, @Nullable T body);
+
 	/**
 	 * <p>functionCall.</p>
 	 *
@@ -105,6 +105,13 @@ public class StringJavaScriptBuilder implements JavaScriptBuilder<String> {
 		return null;
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public String arrowFunction(Iterable<String> params, String body) {
+		// TODO Auto-generated method stub
+		return null;
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public String name(CharSequence name) {
@@ -0,0 +1,38 @@
+package org.stjs.generator.javascript.rhino;
+
+import org.mozilla.javascript.Node;
+import org.mozilla.javascript.ast.AstNode;
+import org.mozilla.javascript.ast.FunctionNode;
+import org.mozilla.javascript.ast.ReturnStatement;
+
+/**
+ * 
+ * this node is an ES2015 arrow function: (params) =&gt; body. Like the arrow functions, it has no own "this" and no own
+ * arguments.
+ */
+class ArrowFunction extends FunctionNode {
+
+	/**
+	 * @return the value returned by the body if the body is made only of a return statement, or null otherwise. In the first
+	 *         case the body can be written as an expression.
+	 */
+	public AstNode getExpressionBody() {
+		Node first = getBody().getFirstChild();
+		if (first instanceof ReturnStatement && first.getNext() == null) {
+			return ((ReturnStatement) first).getReturnValue();
+		}
+		return null;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toSource(int depth) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(makeIndent(depth)).append('(');
+		printList(getParams(), sb);
+		sb.append(") => ");
+		AstNode expression = getExpressionBody();
+		sb.append(expression == null ? getBody().toSource(depth).trim() : expression.toSource(0));
+		return sb.toString();
+	}
+}
@@ -378,4 +378,12 @@ public interface AstVisitor<T> {
 	 * @param param a T object.
 	 */
 	void visitCodeFragment(CodeFragment c, T param);
+
+	/**
+	 * <p>visitArrowFunction.</p>
+	 *
+	 * @param f a {@link org.stjs.generator.javascript.rhino.ArrowFunction} object.
+	 * @param param a T object.
+	 */
+	void visitArrowFunction(ArrowFunction f, T param);
 }
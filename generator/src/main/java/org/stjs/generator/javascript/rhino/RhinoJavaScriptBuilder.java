@@ -268,6 +268,16 @@ public class RhinoJavaScriptBuilder implements JavaScriptBuilder<AstNode> {
 		if (name != null) {
 			func.setFunctionName((Name) name(name));
 		}
+		return initFunction(func, params, body);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public AstNode arrowFunction(Iterable<AstNode> params, AstNode body) {
+		return initFunction(new ArrowFunction(), params, body);
+	}
+
+	private AstNode initFunction(FunctionNode func, Iterable<AstNode> params, AstNode body) {
 		func.setParams(list(params));
 		if (body == null) {
 			func.setBody(new Block());
@@ -797,4 +797,24 @@ public class RhinoJavaScriptWriter implements AstVisitor<Boolean> {
 		}
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public void visitArrowFunction(ArrowFunction f, Boolean param) {
+		printComments(f);
+		print("(");
+		printList(f.getParams(), param);
+		print(") => ");
+		AstNode expression = f.getExpressionBody();
+		if (expression == null) {
+			visitorSupport.accept(f.getBody(), this, param);
+		} else if (expression instanceof ObjectLiteral) {
+			// the braces would be taken for a block
+			print("(");
+			visitorSupport.accept(expression, this, param);
+			print(")");
+		} else {
+			visitorSupport.accept(expression, this, param);
+		}
+	}
+
 }
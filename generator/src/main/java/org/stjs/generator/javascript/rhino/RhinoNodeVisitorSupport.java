@@ -305,6 +305,12 @@ public class RhinoNodeVisitorSupport {
 				visitor.visitCodeFragment((CodeFragment) node, param);
 			}
 		});
+		addCaller(ArrowFunction.class, new Caller() {
+			@Override
+			public <T> void call(Node node, AstVisitor<T> visitor, T param) {
+				visitor.visitArrowFunction((ArrowFunction) node, param);
+			}
+		});
 		addCaller(EmptyExpression.class, new Caller() {
 			@Override
 			public <T> void call(Node node, AstVisitor<T> visitor, T param) {
@@ -15,6 +15,7 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -28,6 +29,7 @@ import org.stjs.generator.GenerationDirectory;
 import org.stjs.generator.Generator;
 import org.stjs.generator.GeneratorConfiguration;
 import org.stjs.generator.GeneratorConfigurationBuilder;
+import org.stjs.generator.LanguageLevel;
 import org.stjs.generator.STJSRuntimeException;
 import org.stjs.generator.executor.ExecutionResult;
 import org.stjs.generator.executor.RhinoExecutor;
@@ -39,6 +41,10 @@ import org.stjs.javascript.Map;
 import com.google.common.base.Strings;
 import com.google.common.io.Closeables;
 import com.google.common.io.Files;
+import com.google.javascript.jscomp.Compiler;
+import com.google.javascript.jscomp.CompilerOptions;
+import com.google.javascript.jscomp.JSError;
+import com.google.javascript.jscomp.SourceFile;
 
 /**
  * <p>Abstract AbstractStjsTest class.</p>
@@ -51,6 +57,8 @@ public abstract class AbstractStjsTest {
 
 	private static final String TEMP_GENERATION_PATH = "temp-generated-js";
 
+	private static final File SOURCE_PATH = new File("src/test/java");
+
 	private Generator generator;
 
 	/**
@@ -241,41 +249,22 @@ public abstract class AbstractStjsTest {
 	 */
 	private Object executeOrGenerate(Class<?> clazz, boolean execute, boolean withSourceMap, GeneratorConfiguration extraConfig) {
 
-		File generationPath = new File("target", TEMP_GENERATION_PATH);
-		// We must create the output directory before building paths, or file.toURI will not include a trailing slash,
-		// which fucks up URI.resolve
-		if (!generationPath.exists() && !generationPath.mkdirs()) {
-			throw new STJSRuntimeException("Unable to create generation directory");
-		}
-		GenerationDirectory generationFolder = new GenerationDirectory(generationPath, new File(TEMP_GENERATION_PATH), generationPath.toURI());
-		final File sourcePath = new File("src/test/java");
-		File resourcePath = new File("src/test/resources");
-		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
-
-		GeneratorConfiguration config = new GeneratorConfigurationBuilder(extraConfig) //
-				.allowedPackage("org.stjs.javascript") //
-				.allowedPackage("org.stjs.generator") //
-				.allowedPackage(clazz.getPackage().getName()) //
-				.sourceEncoding("UTF-8").generateSourceMap(withSourceMap) //
-				.stjsClassLoader(classLoader) //
-				.generationFolder(generationFolder).targetFolder(new File("target", "test-classes"))
-				.classResolver(new LazyGenerationClassResolver(classLoader, new LazyGenerator() {
-					@Override
-					public ClassWithJavascript generateJavaScript(String className) {
-						return generator.generateJavascript(className, sourcePath);
-					}
-				})) //
-				.build(); //
-
+		GeneratorConfiguration config = buildConfiguration(clazz, withSourceMap, extraConfig);
 		this.generator = new Generator(config);
 
-		ClassWithJavascript stjsClass = this.generator.generateJavascript(clazz.getName(), sourcePath);
+		ClassWithJavascript stjsClass = this.generator.generateJavascript(clazz.getName(), SOURCE_PATH);
 
+		File resourcePath = new File("src/test/resources");
 		Timers.start("js-exec");
 		List<File> javascriptFiles = new ArrayList<File>();
 		try {
 			File jsFile = new File(stjsClass.getJavascriptFiles().get(0).getPath());
 			String content = Files.toString(jsFile, Charset.defaultCharset());
+			if (!execute && config.getLanguageLevel() != LanguageLevel.ES5) {
+				// the JavaScript engine of the JDK only runs ES5 code, so the code of the other levels is only parsed
+				checkES2015Syntax(jsFile, content);
+				return content;
+			}
 			List<ClassWithJavascript> allDeps = new DependencyCollector().orderAllDependencies(stjsClass);
 			for (ClassWithJavascript dep : allDeps) {
 				for (URI js : dep.getJavascriptFiles()) {
@@ -308,6 +297,66 @@ public abstract class AbstractStjsTest {
 		}
 	}
 
+	/**
+	 * generates all the given classes in a single batch.
+	 *
+	 * @param classes the classes to generate. They must all be in the same package
+	 * @return the list of generated classes
+	 */
+	public List<ClassWithJavascript> generateAll(Class<?>... classes) {
+		return generateAll(null, classes);
+	}
+
+	/**
+	 * generates all the given classes in a single batch, using the given configuration.
+	 *
+	 * @param extraConfig a {@link org.stjs.generator.GeneratorConfiguration} object.
+	 * @param classes the classes to generate. They must all be in the same package
+	 * @return the list of generated classes
+	 */
+	public List<ClassWithJavascript> generateAll(GeneratorConfiguration extraConfig, Class<?>... classes) {
+		this.generator = new Generator(buildConfiguration(classes[0], false, extraConfig));
+		List<String> classNames = new ArrayList<String>(classes.length);
+		for (Class<?> clazz : classes) {
+			classNames.add(clazz.getName());
+		}
+		return this.generator.generateJavascript(classNames, SOURCE_PATH);
+	}
+
+	private GeneratorConfiguration buildConfiguration(Class<?> clazz, boolean withSourceMap, GeneratorConfiguration extraConfig) {
+		File generationPath = new File("target", TEMP_GENERATION_PATH);
+		// We must create the output directory before building paths, or file.toURI will not include a trailing slash,
+		// which fucks up URI.resolve
+		if (!generationPath.exists() && !generationPath.mkdirs()) {
+			throw new STJSRuntimeException("Unable to create generation directory");
+		}
+		GenerationDirectory generationFolder = new GenerationDirectory(generationPath, new File(TEMP_GENERATION_PATH), generationPath.toURI());
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+
+		return new GeneratorConfigurationBuilder(extraConfig) //
+				.allowedPackage("org.stjs.javascript") //
+				.allowedPackage("org.stjs.generator") //
+				.allowedPackage(clazz.getPackage().getName()) //
+				.sourceEncoding("UTF-8").generateSourceMap(withSourceMap) //
+				.stjsClassLoader(classLoader) //
+				.generationFolder(generationFolder).targetFolder(new File("target", "test-classes"))
+				.classResolver(new LazyGenerationClassResolver(classLoader, new LazyGenerator() {
+					@Override
+					public ClassWithJavascript generateJavaScript(String className) {
+						return generator.generateJavascript(className, SOURCE_PATH);
+					}
+				})) //
+				.build(); //
+	}
+
+	/**
+	 * @param clazz the class to generate
+	 * @return the configuration used to generate the given class, for example to build another generator
+	 */
+	public GeneratorConfiguration getConfiguration(Class<?> clazz) {
+		return buildConfiguration(clazz, false, null);
+	}
+
 	/**
 	 * <p>stjsClass.</p>
 	 *
@@ -386,6 +435,23 @@ public abstract class AbstractStjsTest {
 
 	private static final int PAD = 5;
 
+	/**
+	 * parses the given code with the Closure Compiler, that understands the ES2015 syntax.
+	 */
+	private void checkES2015Syntax(File jsFile, String content) {
+		CompilerOptions options = new CompilerOptions();
+		options.setLanguageIn(CompilerOptions.LanguageMode.ECMASCRIPT6);
+		Compiler compiler = new Compiler();
+		compiler.init(Collections.<SourceFile> emptyList(), Collections.singletonList(SourceFile.fromCode(jsFile.getName(), content)),
+				options);
+		compiler.parse();
+		JSError[] errors = compiler.getErrors();
+		if (errors.length > 0) {
+			displayWithLines(jsFile);
+			throw new STJSRuntimeException("Invalid ES2015 code in " + jsFile.getName() + ": " + Arrays.toString(errors));
+		}
+	}
+
 	private void displayWithLines(File file) {
 		BufferedReader in = null;
 		try {
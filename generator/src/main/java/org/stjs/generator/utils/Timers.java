@@ -1,57 +1,63 @@
 package org.stjs.generator.utils;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import com.google.common.collect.Maps;
+
+/**
+ * Totals of named durations, for quick measures. The phases of the generator are reported to the
+ * {@link org.stjs.generator.GenerationMetrics} of its configuration instead.
+ */
 public final class Timers {
-	private static Map<String, Timer> timers = new HashMap<String, Timer>();
+	private static final ConcurrentMap<String, AtomicLong> TIMERS = Maps.newConcurrentMap();
+	// the same timer can be started by several generation threads
+	private static final ThreadLocal<Map<String, Long>> STARTS = new ThreadLocal<Map<String, Long>>() {
+		@Override
+		protected Map<String, Long> initialValue() {
+			return Maps.newHashMap();
+		}
+	};
 
 	private Timers() {
 		// private
 	}
 
 	public static void start(String name) {
-		synchronized (timers) {
-			Timer timer = timers.get(name);
-			if (timer == null) {
-				timer = new Timer();
-				timers.put(name, timer);
-			}
-			timer.start = System.currentTimeMillis();
-		}
+		STARTS.get().put(name, System.nanoTime());
 	}
 
 	public static void end(String name) {
-		synchronized (timers) {
-			Timer timer = timers.get(name);
-			if (timer != null) {
-				timer.end = System.currentTimeMillis();
-				timer.total += (timer.end - timer.start);
+		Long start = STARTS.get().remove(name);
+		if (start == null) {
+			return;
+		}
+		long duration = System.nanoTime() - start;
+		AtomicLong timer = TIMERS.get(name);
+		if (timer == null) {
+			AtomicLong newTimer = new AtomicLong();
+			timer = TIMERS.putIfAbsent(name, newTimer);
+			if (timer == null) {
+				timer = newTimer;
 			}
 		}
+		timer.addAndGet(duration);
 	}
 
+	/**
+	 * prints the totals, in milliseconds.
+	 */
 	@SuppressWarnings("PMD.SystemPrintln")
 	public static void dump() {
-		synchronized (timers) {
-			long total = 0;
-			for (Map.Entry<String, Timer> entry : timers.entrySet()) {
-				System.out.println(entry.getKey() + "=" + entry.getValue().getTotal());
-				total += entry.getValue().getTotal();
-			}
-			System.out.println("----------------------------");
-			System.out.println("Total:" + total);
-		}
-	}
-
-	private static class Timer {
-		private long total;
-		private long start;
-		private long end;
-
-		public long getTotal() {
-			return total;
+		long total = 0;
+		for (Map.Entry<String, AtomicLong> entry : TIMERS.entrySet()) {
+			long millis = TimeUnit.NANOSECONDS.toMillis(entry.getValue().get());
+			System.out.println(entry.getKey() + "=" + millis);
+			total += millis;
 		}
-
+		System.out.println("----------------------------");
+		System.out.println("Total:" + total);
 	}
 }
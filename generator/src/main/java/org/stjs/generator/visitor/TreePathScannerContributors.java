@@ -4,6 +4,7 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Logger;
 
 import javax.annotation.Nonnull;
@@ -21,10 +22,21 @@ public class TreePathScannerContributors<R, P extends TreePathHolder, V extends
 
 	private static final Logger LOG = Logger.getLogger(TreePathScannerContributors.class.getName());
 
+	/**
+	 * the tree interface of the node classes whose kind doesn't give it (Tree.Kind.OTHER)
+	 */
+	private static final ConcurrentMap<Class<?>, Class<?>> TREE_INTERFACES = Maps.newConcurrentMap();
+
 	private final Map<Class<?>, ContributorHolder<? extends Tree>> contributors = Maps.newHashMap();
 
 	private final Map<DiscriminatorKey, ContributorHolder<? extends Tree>> contributorsWithDiscriminator = Maps.newHashMap();
 
+	/**
+	 * the dispatch table used when visiting a node. It's filled when the contributors are registered, so that the visit of a node does not
+	 * need to look for the tree interface of the node's class.
+	 */
+	private final Map<Tree.Kind, ContributorHolder<? extends Tree>> contributorsByKind = Maps.newEnumMap(Tree.Kind.class);
+
 	private boolean continueScanning;
 
 	private boolean onlyOneFinalContributor;
@@ -39,7 +51,9 @@ public class TreePathScannerContributors<R, P extends TreePathHolder, V extends
 		// deep clone the maps
 		contributors.clear();
 		for (Map.Entry<Class<?>, ContributorHolder<? extends Tree>> entry : copy.contributors.entrySet()) {
-			contributors.put(entry.getKey(), new ContributorHolder(entry.getValue()));
+			ContributorHolder<? extends Tree> holder = new ContributorHolder(entry.getValue());
+			contributors.put(entry.getKey(), holder);
+			addToDispatchTable(entry.getKey(), holder);
 		}
 
 		contributorsWithDiscriminator.clear();
@@ -77,10 +91,19 @@ public class TreePathScannerContributors<R, P extends TreePathHolder, V extends
 		if (holder == null) {
 			holder = new ContributorHolder<T>();
 			contributors.put(treeNodeClass, holder);
+			addToDispatchTable(treeNodeClass, holder);
 		}
 		return holder;
 	}
 
+	private void addToDispatchTable(Class<?> treeNodeClass, ContributorHolder<? extends Tree> holder) {
+		for (Tree.Kind kind : Tree.Kind.values()) {
+			if (kind.asInterface() == treeNodeClass) {
+				contributorsByKind.put(kind, holder);
+			}
+		}
+	}
+
 	public <T extends Tree, C extends VisitorContributor<T, R, P, V>, N> void contribute(@Nonnull C contributor) {
 		if (onlyOneFinalContributor) {
 			this.<T> getHolder(contributor.getClass()).setContributor(contributor);
@@ -159,7 +182,19 @@ public class TreePathScannerContributors<R, P extends TreePathHolder, V extends
 		return null;
 	}
 
-	private Class<?> getTreeInteface(Class<?> clazz) {
+	private static Class<?> getTreeInteface(Class<?> clazz) {
+		Class<?> treeInterface = TREE_INTERFACES.get(clazz);
+		if (treeInterface == null) {
+			Class<?> found = findTreeInterface(clazz);
+			// Tree itself is used for the classes that don't implement any other tree interface
+			treeInterface = found == null ? Tree.class : found;
+			Class<?> previous = TREE_INTERFACES.putIfAbsent(clazz, treeInterface);
+			return previous == null ? treeInterface : previous;
+		}
+		return treeInterface;
+	}
+
+	private static Class<?> findTreeInterface(Class<?> clazz) {
 		Type[] interfaces = clazz.getGenericInterfaces();
 		for (Type iface : interfaces) {
 			if (iface instanceof Class<?>) {
@@ -188,7 +223,12 @@ public class TreePathScannerContributors<R, P extends TreePathHolder, V extends
 		if (node == null) {
 			return r;
 		}
-		ContributorHolder<T> holder = (ContributorHolder<T>) contributors.get(getTreeInteface(node.getClass()));
+		ContributorHolder<T> holder;
+		if (node.getKind() == Tree.Kind.OTHER) {
+			holder = (ContributorHolder<T>) contributors.get(getTreeInteface(node.getClass()));
+		} else {
+			holder = (ContributorHolder<T>) contributorsByKind.get(node.getKind());
+		}
 		R lastR = holder == null ? null : holder.visit((V) this, node, p);
 		if (continueScanning) {
 			lastR = node.accept(this, p);
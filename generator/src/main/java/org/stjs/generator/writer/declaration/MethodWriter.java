@@ -2,9 +2,11 @@ package org.stjs.generator.writer.declaration;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
-import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
 
 import org.stjs.generator.GenerationContext;
 import org.stjs.generator.GeneratorConstants;
@@ -12,6 +14,8 @@ import org.stjs.generator.javac.InternalUtils;
 import org.stjs.generator.javac.TreeUtils;
 import org.stjs.generator.javac.TreeWrapper;
 import org.stjs.generator.javascript.AssignOperator;
+import org.stjs.generator.javascript.JavaScriptBuilder;
+import org.stjs.generator.javascript.Keyword;
 import org.stjs.generator.utils.JavaNodes;
 import org.stjs.generator.writer.MemberWriters;
 import org.stjs.generator.writer.WriterContributor;
@@ -24,6 +28,8 @@ import com.sun.source.tree.Tree;
 import com.sun.source.tree.VariableTree;
 
 public class MethodWriter<JS> extends AbstractMemberWriter<JS> implements WriterContributor<MethodTree, JS> {
+	/** the highest position of the varargs parameter handled by the stjs.varargsN functions of the runtime */
+	private static final int MAX_VARARGS_INDEX = 3;
 
 	private static String changeName(String name) {
 		if (name.equals(GeneratorConstants.ARGUMENTS_PARAMETER)) {
@@ -44,18 +50,44 @@ public class MethodWriter<JS> extends AbstractMemberWriter<JS> implements Writer
 		return false;
 	}
 
-	private String getAnonymousTypeConstructorName(MethodTree tree, GenerationContext<JS> context) {
+	private TypeElement getAnonymousType(MethodTree tree, GenerationContext<JS> context) {
 		if (!JavaNodes.isConstructor(tree)) {
 			return null;
 		}
-		Element typeElement = TreeUtils.elementFromDeclaration((ClassTree) context.getCurrentPath().getParentPath().getLeaf());
+		TypeElement typeElement = TreeUtils.elementFromDeclaration((ClassTree) context.getCurrentPath().getParentPath().getLeaf());
 		boolean anonymous = typeElement.getSimpleName().toString().isEmpty();
 		if (anonymous) {
-			return InternalUtils.getSimpleName(typeElement);
+			return typeElement;
 		}
 		return null;
 	}
 
+	private String getAnonymousTypeConstructorName(MethodTree tree, GenerationContext<JS> context) {
+		TypeElement anonymousType = getAnonymousType(tree, context);
+		return anonymousType == null ? null : InternalUtils.getSimpleName(anonymousType);
+	}
+
+	private List<VariableElement> getCapturedVariables(MethodTree tree, GenerationContext<JS> context) {
+		TypeElement anonymousType = getAnonymousType(tree, context);
+		return anonymousType == null ? Collections.<VariableElement> emptyList() : context.getCapturedVariables(anonymousType);
+	}
+
+	/**
+	 * the constructor of a cached anonymous class receives the variables captured by the class before its own parameters. It keeps
+	 * them in the instance before calling the super constructor, that may call the methods using them.
+	 */
+	private JS keepCapturedVariables(List<VariableElement> variables, List<JS> params, JS body, GenerationContext<JS> context) {
+		JavaScriptBuilder<JS> js = context.js();
+		JS newBody = body;
+		for (int i = variables.size() - 1; i >= 0; --i) {
+			String name = GeneratorConstants.CAPTURED_VARIABLE_PREFIX + variables.get(i).getSimpleName();
+			params.add(0, js.name(name));
+			JS field = js.property(js.keyword(Keyword.THIS), name);
+			newBody = js.addStatementBeginning(newBody, js.expressionStatement(js.assignment(AssignOperator.ASSIGN, field, js.name(name))));
+		}
+		return newBody;
+	}
+
 	public static <JS> List<JS> getParams(List<? extends VariableTree> treeParams, GenerationContext<JS> context) {
 		List<JS> params = new ArrayList<JS>();
 		for (VariableTree param : treeParams) {
@@ -87,16 +119,34 @@ public class MethodWriter<JS> extends AbstractMemberWriter<JS> implements Writer
 		return true;
 	}
 
-	private int getVarArgs(MethodTree method) {
+	/**
+	 * @return the position of the varargs parameter, after the given number of parameters added at the beginning, or -1 if the method has
+	 *         no varargs parameter
+	 */
+	private int getVarArgs(MethodTree method, int addedParams) {
 		for (int i = 0; i < method.getParameters().size(); ++i) {
 			VariableTree param = method.getParameters().get(i);
 			if (InternalUtils.isVarArg(param) && !param.getName().toString().equals(GeneratorConstants.ARGUMENTS_PARAMETER)) {
-				return i;
+				return addedParams + i;
 			}
 		}
 		return -1;
 	}
 
+	/**
+	 * stjs.varargsN(function) when the runtime has a function for the position of the varargs parameter, stjs.varargs(function,
+	 * position) otherwise
+	 */
+	private JS wrapVarArgs(JS decl, int varArgsIndex, GenerationContext<JS> context) {
+		JavaScriptBuilder<JS> js = context.js();
+		if (varArgsIndex <= MAX_VARARGS_INDEX) {
+			JS varArgsWrapper = js.property(js.name("stjs"), "varargs" + varArgsIndex);
+			return js.functionCall(varArgsWrapper, Collections.singletonList(decl));
+		}
+		JS varArgsWrapper = js.property(js.name("stjs"), "varargs");
+		return js.functionCall(varArgsWrapper, Arrays.asList(decl, js.number(varArgsIndex)));
+	}
+
 	@Override
 	public JS visit(WriterVisitor<JS> visitor, MethodTree tree, GenerationContext<JS> context) {
 		TreeWrapper<MethodTree, JS> tw = context.getCurrentWrapper();
@@ -108,14 +158,16 @@ public class MethodWriter<JS> extends AbstractMemberWriter<JS> implements Writer
 
 		JS body = visitor.scan(tree.getBody(), context);
 
+		List<VariableElement> capturedVariables = getCapturedVariables(tree, context);
+		body = keepCapturedVariables(capturedVariables, params, body, context);
+
 		// set if needed Type$1 name, if this is an anonymous type constructor
 		String name = getAnonymousTypeConstructorName(tree, context);
 
 		JS decl = context.js().function(name, params, body);
-		int varArgsIndex = getVarArgs(tree);
+		int varArgsIndex = getVarArgs(tree, capturedVariables.size());
 		if (varArgsIndex >= 0) {
-			JS varArgsWrapper = context.js().property(context.js().name("stjs"), "varargs");
-			decl = context.js().functionCall(varArgsWrapper, Arrays.asList(decl, context.js().number(2)));
+			decl = wrapVarArgs(decl, varArgsIndex, context);
 		}
 
 		// add the constructor.<name> or prototype.<name> if needed
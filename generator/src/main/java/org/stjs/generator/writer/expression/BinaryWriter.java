@@ -41,12 +41,32 @@ public class BinaryWriter<JS> implements WriterContributor<BinaryTree, JS> {
 
 		if (integerDivision) {
 			// force a cast for integer division to have the expected behavior in JavaScript too
-			JS target = b.property(b.name("stjs"), "trunc");
-			return b.functionCall(target, Collections.singleton(expr));
+			return truncate(expr, leftType.getKind() != TypeKind.LONG && rightType.getKind() != TypeKind.LONG, context);
 		}
 		return expr;
 	}
 
+	/**
+	 * truncates the given numeric expression to an integer. If the configuration allows it, an expression whose Java type is int
+	 * is truncated with |0, that also wraps the overflows as Java does (Integer.MIN_VALUE / -1). The other expressions are
+	 * truncated with stjs.trunc, as they may not fit in 32 bits.
+	 *
+	 * @param expr the expression to truncate
+	 * @param intResult true if the result of the expression must be an int
+	 * @param context the generation context
+	 * @return the truncated expression
+	 */
+	public static <JS> JS truncate(JS expr, boolean intResult, GenerationContext<JS> context) {
+		JavaScriptBuilder<JS> b = context.js();
+		if (intResult && context.getConfiguration().isTruncateWithOr()) {
+			@SuppressWarnings("unchecked")
+			JS or = b.binary(BinaryOperator.OR, asList(b.paren(expr), b.number(0)));
+			return b.paren(or);
+		}
+		JS target = b.property(b.name("stjs"), "trunc");
+		return b.functionCall(target, Collections.singleton(expr));
+	}
+
 	private static boolean isStringPlusChar(TypeMirror left, TypeMirror right) {
 		return TypesUtils.isString(left) && right.getKind() == TypeKind.CHAR;
 	}
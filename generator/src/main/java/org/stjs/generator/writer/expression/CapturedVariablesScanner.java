@@ -0,0 +1,145 @@
+package org.stjs.generator.writer.expression;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+
+import org.stjs.generator.GeneratorConstants;
+import org.stjs.generator.javac.TreeUtils;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreeScanner;
+
+/**
+ * This scanner finds what the body of an anonymous class uses from the scope where the class is declared: the local variables and the
+ * parameters of the enclosing method, the local classes and the instance of an outer class.
+ * <p>
+ * The variables are effectively final, so their values can be given to the constructor of the class and kept in the instance, the same
+ * way javac does it. This is not possible for a local class, for Outer.this, or for a variable used in a nested class or lambda, where
+ * "this" is not the instance of the anonymous class: such a class needs the JavaScript closure of its declaration.
+ */
+class CapturedVariablesScanner extends TreeScanner<Void, Void> {
+	private static final String LAMBDA_EXPRESSION = "LAMBDA_EXPRESSION";
+
+	private final Set<Element> declaredElements = new HashSet<Element>();
+	private final List<VariableElement> capturedVariables = new ArrayList<VariableElement>();
+	private int nestedFunctions;
+	private boolean needsClosure;
+
+	CapturedVariablesScanner(TypeElement type) {
+		super();
+		declaredElements.add(type);
+	}
+
+	/**
+	 * @param classBody the body of an anonymous class
+	 * @return the variables of the enclosing scope used by the body, in the order of their first use, or null if the body needs the
+	 *         closure of its declaration
+	 */
+	public static List<VariableElement> getCapturedVariables(ClassTree classBody) {
+		TypeElement type = TreeUtils.elementFromDeclaration(classBody);
+		if (type != null && (isLocalType(type.getSuperclass()) || isLocalType(type.getInterfaces()))) {
+			return null;
+		}
+		CapturedVariablesScanner scanner = new CapturedVariablesScanner(type);
+		scanner.scan(classBody.getMembers(), null);
+		return scanner.needsClosure ? null : scanner.capturedVariables;
+	}
+
+	private static boolean isLocalType(Iterable<? extends TypeMirror> types) {
+		for (TypeMirror type : types) {
+			if (isLocalType(type)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isLocalType(TypeMirror type) {
+		if (!(type instanceof DeclaredType)) {
+			return false;
+		}
+		return isLocalType((TypeElement) ((DeclaredType) type).asElement());
+	}
+
+	private static boolean isLocalType(TypeElement type) {
+		return type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS;
+	}
+
+	@Override
+	public Void scan(Tree tree, Void p) {
+		// the lambdas are only known by the Java 8 compiler
+		if (tree == null || !LAMBDA_EXPRESSION.equals(tree.getKind().name())) {
+			return super.scan(tree, p);
+		}
+		nestedFunctions++;
+		super.scan(tree, p);
+		nestedFunctions--;
+		return null;
+	}
+
+	@Override
+	public Void visitClass(ClassTree tree, Void p) {
+		declaredElements.add(TreeUtils.elementFromDeclaration(tree));
+		nestedFunctions++;
+		super.visitClass(tree, p);
+		nestedFunctions--;
+		return null;
+	}
+
+	@Override
+	public Void visitVariable(VariableTree tree, Void p) {
+		declaredElements.add(TreeUtils.elementFromDeclaration(tree));
+		return super.visitVariable(tree, p);
+	}
+
+	@Override
+	public Void visitMemberSelect(MemberSelectTree tree, Void p) {
+		if (GeneratorConstants.THIS.equals(tree.getIdentifier().toString())) {
+			// Outer.this
+			needsClosure = true;
+			return null;
+		}
+		return super.visitMemberSelect(tree, p);
+	}
+
+	@Override
+	public Void visitIdentifier(IdentifierTree tree, Void p) {
+		Element element = TreeUtils.elementFromUse(tree);
+		if (element != null && !declaredElements.contains(element)) {
+			capture(element);
+		}
+		return null;
+	}
+
+	private void capture(Element element) {
+		if (element instanceof TypeElement) {
+			needsClosure |= isLocalType((TypeElement) element);
+		} else if (isLocalVariable(element)) {
+			// in a nested class or lambda the variable cannot be read from the instance
+			needsClosure |= nestedFunctions > 0;
+			if (!capturedVariables.contains(element)) {
+				capturedVariables.add((VariableElement) element);
+			}
+		}
+	}
+
+	private static boolean isLocalVariable(Element element) {
+		ElementKind kind = element.getKind();
+		return kind == ElementKind.LOCAL_VARIABLE || kind == ElementKind.PARAMETER || kind == ElementKind.EXCEPTION_PARAMETER
+				|| kind == ElementKind.RESOURCE_VARIABLE;
+	}
+}
@@ -2,6 +2,8 @@ package org.stjs.generator.writer.expression;
 
 import java.util.Arrays;
 
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
 import javax.lang.model.type.TypeMirror;
 
 import org.stjs.generator.GenerationContext;
@@ -20,12 +22,19 @@ public class InstanceofWriter<JS> implements WriterContributor<InstanceOfTree, J
 	public JS visit(WriterVisitor<JS> visitor, InstanceOfTree tree, GenerationContext<JS> context) {
 
 		// build stjs.isInstanceOf(expr.constructor, type);
+		// or stjs.isInstanceOfInterface(expr.constructor, type) for the interfaces
 		// TODO do I need a check or parenthesis around !?
 
 		TypeMirror type = context.getTrees().getTypeMirror(new TreePath(context.getCurrentPath(), tree.getType()));
 		JS getConstructor = context.js().property(visitor.scan(tree.getExpression(), context), JavascriptKeywords.CONSTRUCTOR);
-		JS targetInst = context.js().property(context.js().name("stjs"), "isInstanceOf");
+		JS targetInst = context.js().property(context.js().name("stjs"), isInterface(type, context) ? "isInstanceOfInterface"
+				: "isInstanceOf");
 		JS typeName = context.js().name(context.getNames().getTypeName(context, type, DependencyType.STATIC));
 		return context.js().functionCall(targetInst, Arrays.asList(getConstructor, typeName));
 	}
+
+	private static boolean isInterface(TypeMirror type, GenerationContext<?> context) {
+		Element element = context.getTypes().asElement(type);
+		return element != null && element.getKind() == ElementKind.INTERFACE;
+	}
 }
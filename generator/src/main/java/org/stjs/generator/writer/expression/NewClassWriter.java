@@ -5,10 +5,15 @@ import java.util.Arrays;
 import java.util.List;
 
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
 
 import org.stjs.generator.GenerationContext;
 import org.stjs.generator.javac.TreeUtils;
 import org.stjs.generator.javac.TreeWrapper;
+import org.stjs.generator.javascript.AssignOperator;
+import org.stjs.generator.javascript.BinaryOperator;
 import org.stjs.generator.javascript.JavaScriptBuilder;
 import org.stjs.generator.javascript.Keyword;
 import org.stjs.generator.javascript.NameValue;
@@ -17,6 +22,7 @@ import org.stjs.generator.writer.WriterContributor;
 import org.stjs.generator.writer.WriterVisitor;
 import org.stjs.generator.writer.declaration.MethodWriter;
 import org.stjs.generator.writer.templates.MethodToPropertyTemplate;
+import org.stjs.javascript.annotation.GlobalScope;
 
 import com.sun.source.tree.AssignmentTree;
 import com.sun.source.tree.BlockTree;
@@ -143,9 +149,58 @@ public class NewClassWriter<JS> implements WriterContributor<NewClassTree, JS> {
 			return null;
 		}
 
+		String cacheName = getHoistedClassCacheName(tree, context);
 		JS typeDeclaration = visitor.scan(tree.getClassBody(), context);
 
-		return context.js().newExpression(context.js().paren(typeDeclaration), arguments(visitor, tree, context));
+		JavaScriptBuilder<JS> js = context.js();
+		if (cacheName == null) {
+			return js.newExpression(js.paren(typeDeclaration), arguments(visitor, tree, context));
+		}
+
+		// new (Outer.$Outer$1 || (Outer.$Outer$1 = stjs.extend(...)))(captured variables, args)
+		List<JS> arguments = new ArrayList<JS>();
+		for (VariableElement variable : context.getCapturedVariables(TreeUtils.elementFromDeclaration(tree.getClassBody()))) {
+			arguments.add(js.name(variable.getSimpleName()));
+		}
+		arguments.addAll(arguments(visitor, tree, context));
+		JS cachedType = js.binary(BinaryOperator.CONDITIONAL_OR,
+				Arrays.asList(js.name(cacheName), js.paren(js.assignment(AssignOperator.ASSIGN, js.name(cacheName), typeDeclaration))));
+		return js.newExpression(js.paren(cachedType), arguments);
+	}
+
+	/**
+	 * an anonymous class can be defined only once, if the only things it uses from the scope where it is declared are variables: they
+	 * are given to the constructor before its own arguments and kept in the instance (see {@link CapturedVariablesScanner}). The
+	 * definition is cached in a static property of the outermost class, named after the binary name of the anonymous class.
+	 *
+	 * @return the name of the property caching the definition of the anonymous class or null if the class must be defined each
+	 *         time it's instantiated
+	 */
+	private String getHoistedClassCacheName(NewClassTree tree, GenerationContext<JS> context) {
+		if (!context.getConfiguration().isHoistAnonymousClasses()) {
+			return null;
+		}
+		List<VariableElement> capturedVariables = CapturedVariablesScanner.getCapturedVariables(tree.getClassBody());
+		if (capturedVariables == null) {
+			return null;
+		}
+
+		TypeElement type = TreeUtils.elementFromDeclaration(tree.getClassBody());
+		TypeElement outermostType = type;
+		for (Element e = type; e != null && e.getKind() != ElementKind.PACKAGE; e = e.getEnclosingElement()) {
+			if (e instanceof TypeElement) {
+				outermostType = (TypeElement) e;
+			}
+		}
+		if (outermostType.getAnnotation(GlobalScope.class) != null) {
+			// there is no constructor for global classes
+			return null;
+		}
+
+		context.setCapturedVariables(type, capturedVariables);
+		String binaryName = context.getElements().getBinaryName(type).toString();
+		String outermostTypeName = context.getNames().getTypeName(context, outermostType, DependencyType.OTHER);
+		return outermostTypeName + ".$" + binaryName.substring(binaryName.lastIndexOf('.') + 1);
 	}
 
 	private List<JS> arguments(WriterVisitor<JS> visitor, NewClassTree tree, GenerationContext<JS> context) {
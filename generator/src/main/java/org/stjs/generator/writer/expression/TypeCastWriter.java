@@ -3,6 +3,8 @@ package org.stjs.generator.writer.expression;
 import static java.util.Arrays.asList;
 import static javax.lang.model.type.TypeKind.BYTE;
 import static javax.lang.model.type.TypeKind.CHAR;
+import static javax.lang.model.type.TypeKind.DOUBLE;
+import static javax.lang.model.type.TypeKind.FLOAT;
 import static javax.lang.model.type.TypeKind.INT;
 import static javax.lang.model.type.TypeKind.LONG;
 import static javax.lang.model.type.TypeKind.SHORT;
@@ -38,6 +40,7 @@ public class TypeCastWriter<JS> implements WriterContributor<TypeCastTree, JS> {
 	private static final EnumSet<TypeKind> NEED_CAST_TO_CHAR = EnumSet.of(LONG, INT, SHORT, BYTE);
 	private static final EnumSet<TypeKind> NEED_CAST_TO_SHORT = EnumSet.of(LONG, INT, CHAR);
 	private static final EnumSet<TypeKind> NEED_CAST_TO_BYTE = EnumSet.of(LONG, INT, SHORT, CHAR);
+	private static final EnumSet<TypeKind> FLOATING = EnumSet.of(DOUBLE, FLOAT);
 
 	@Override
 	public JS visit(WriterVisitor<JS> visitor, TypeCastTree tree, GenerationContext<JS> context) {
@@ -88,13 +91,24 @@ public class TypeCastWriter<JS> implements WriterContributor<TypeCastTree, JS> {
 
 		if (TypesUtils.isIntegral(type)) {
 			// add explicit cast in this case
-			JS target = b.property(b.name("stjs"), "trunc");
-			expr = b.functionCall(target, Collections.singleton(expr));
+			expr = truncate(expr, fromKind, toKind, context);
 		}
 		// otherwise skip to cast type - continue with the expression
 		return expr;
 	}
 
+	private JS truncate(JS expr, TypeKind fromKind, TypeKind toKind, GenerationContext<JS> context) {
+		if (INT.equals(toKind) && FLOATING.contains(fromKind) && context.getConfiguration().isTruncateWithOr()) {
+			// double d = 3e9;
+			// int a = (int) d;
+			// var a = stjs.truncToInt(d);
+			// |0 would wrap the values out of the int range, while Java saturates them
+			JavaScriptBuilder<JS> b = context.js();
+			return b.functionCall(b.property(b.name("stjs"), "truncToInt"), Collections.singleton(expr));
+		}
+		return BinaryWriter.truncate(expr, INT.equals(toKind), context);
+	}
+
 	private boolean needCastToChar(TypeKind fromKind, TypeKind toKind) {
 		return CHAR.equals(toKind) && NEED_CAST_TO_CHAR.contains(fromKind);
 	}
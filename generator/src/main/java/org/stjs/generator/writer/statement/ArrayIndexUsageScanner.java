@@ -0,0 +1,78 @@
+package org.stjs.generator.writer.statement;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+
+import org.stjs.generator.javac.TreeUtils;
+import org.stjs.javascript.Array;
+
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreeScanner;
+
+/**
+ * This scanner checks if the variable of a for-each loop over an {@link Array} is only used to access the elements of arrays, with
+ * $get, $set or $delete. Such a variable can take the numeric index of an indexed loop, as both a number and a string give the same
+ * element. Any other use needs the string index of the JavaScript for-in loop.
+ */
+final class ArrayIndexUsageScanner extends TreeScanner<Void, Void> {
+	private static final Set<String> ACCESS_METHODS = new HashSet<String>(Arrays.asList("$get", "$set", "$delete"));
+
+	private final Element index;
+	private boolean usedAsString;
+
+	private ArrayIndexUsageScanner(Element index) {
+		super();
+		this.index = index;
+	}
+
+	/**
+	 * @param variable the variable of the loop
+	 * @param body the body of the loop
+	 * @return true if the variable is used for something else than the index of an array access
+	 */
+	public static boolean isUsedAsString(VariableTree variable, Tree body) {
+		ArrayIndexUsageScanner scanner = new ArrayIndexUsageScanner(TreeUtils.elementFromDeclaration(variable));
+		scanner.scan(body, null);
+		return scanner.usedAsString;
+	}
+
+	@Override
+	public Void visitMethodInvocation(MethodInvocationTree tree, Void p) {
+		if (!tree.getArguments().isEmpty() && isIndex(tree.getArguments().get(0)) && isArrayAccess(tree)) {
+			// the index itself is fine, but not the other arguments
+			scan(tree.getMethodSelect(), p);
+			scan(tree.getArguments().subList(1, tree.getArguments().size()), p);
+			return null;
+		}
+		return super.visitMethodInvocation(tree, p);
+	}
+
+	@Override
+	public Void visitIdentifier(IdentifierTree tree, Void p) {
+		if (isIndex(tree)) {
+			usedAsString = true;
+		}
+		return null;
+	}
+
+	private boolean isIndex(Tree tree) {
+		return tree instanceof IdentifierTree && index.equals(TreeUtils.elementFromUse((IdentifierTree) tree));
+	}
+
+	private static boolean isArrayAccess(MethodInvocationTree tree) {
+		ExecutableElement method = TreeUtils.elementFromUse(tree);
+		if (method == null || !ACCESS_METHODS.contains(method.getSimpleName().toString())) {
+			return false;
+		}
+		Element owner = method.getEnclosingElement();
+		return owner instanceof TypeElement && ((TypeElement) owner).getQualifiedName().contentEquals(Array.class.getName());
+	}
+}
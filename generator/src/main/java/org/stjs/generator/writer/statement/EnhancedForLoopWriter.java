@@ -74,8 +74,9 @@ public class EnhancedForLoopWriter<JS> implements WriterContributor<EnhancedForL
 		JS body = visitor.scan(tree.getStatement(), context);
 
 		TypeMirror iteratedType = InternalUtils.typeOf(tree.getExpression());
-		if (TypesUtils.isDeclaredOfName(iteratedType, Array.class.getName())
-				|| TypesUtils.isDeclaredOfName(iteratedType, Map.class.getName())) {
+		if (TypesUtils.isDeclaredOfName(iteratedType, Array.class.getName())) {
+			return generateForEachInArray(tree, context, iterator, iterated, body);
+		} else if (TypesUtils.isDeclaredOfName(iteratedType, Map.class.getName())) {
 			return generateForEachInObject(tree, context, iterator, iterated, body);
 
 		} else if (isErasuredClassAssignableFromType(Iterable.class, iteratedType, context)) {
@@ -94,6 +95,15 @@ public class EnhancedForLoopWriter<JS> implements WriterContributor<EnhancedForL
 		return context.getTypes().isAssignable(erasedIteratedType, erasedClassToCheck);
 	}
 
+	private JS generateForEachInArray(EnhancedForLoopTree tree, GenerationContext<JS> context, JS iterator, JS iterated, JS body) {
+		// the string index of a for-in loop is needed for anything else than accessing the elements. Converting the numeric index to a
+		// string at each iteration, and accessing the elements with this string, is slower than the for-in loop itself
+		if (context.getConfiguration().isIndexedArrayLoops() && !ArrayIndexUsageScanner.isUsedAsString(tree.getVariable(), tree.getStatement())) {
+			return generateIndexedArrayLoop(tree, context, iterated, body);
+		}
+		return generateForEachInObject(tree, context, iterator, iterated, body);
+	}
+
 	private JS generateForEachInObject(EnhancedForLoopTree tree, GenerationContext<JS> context, JS iterator, JS iterated, JS body) {
 		JS newBody = generateArrayHasOwnProperty(tree, context, iterated, body);
 		return context.withPosition(tree, context.js().forInLoop(iterator, iterated, newBody));
@@ -132,6 +142,39 @@ public class EnhancedForLoopWriter<JS> implements WriterContributor<EnhancedForL
 		return context.withPosition(tree, context.js().forLoop(init, condition, update, newBody));
 	}
 	
+	private JS generateIndexedArrayLoop(EnhancedForLoopTree tree, GenerationContext<JS> context, JS iterated, JS body) {
+		JavaScriptBuilder<JS> js = context.js();
+
+		// Java source code:
+		// ---------------------------------------------
+		//   Array<String> myArray = ...
+		//	 for (String i : myArray) {
+		//	   // do whatever you want with 'i'
+		//	 }
+		//
+		// Translated Javascript:
+		// ---------------------------------------------
+		//   for (var index$i = 0, arr$i = myArray, length$i = arr$i.length; index$i < length$i; index$i++) {
+		//     var i = index$i;
+		//	   // do whatever you want with 'i'
+		//   }
+		String initialForLoopVariableName = tree.getVariable().getName().toString();
+
+		String newIndexName = "index$" + initialForLoopVariableName;
+		String newArrayName = "arr$" + initialForLoopVariableName;
+		String newLengthName = "length$" + initialForLoopVariableName;
+		JS index = js.name(newIndexName);
+		JS init = js.variableDeclaration(false, Arrays.asList(NameValue.of(newIndexName, js.number(0)), NameValue.of(newArrayName, iterated),
+				NameValue.of(newLengthName, js.property(js.name(newArrayName), "length"))));
+		JS condition = js.binary(BinaryOperator.LESS_THAN, Arrays.asList(index, js.name(newLengthName)));
+		JS update = js.unary(UnaryOperator.POSTFIX_INCREMENT, index);
+
+		JS iteratorNextStatement = js.variableDeclaration(true, initialForLoopVariableName, index);
+		JS newBody = js.addStatementBeginning(body, iteratorNextStatement);
+
+		return context.withPosition(tree, context.js().forLoop(init, condition, update, newBody));
+	}
+
 	private JS generateForWithIndex(EnhancedForLoopTree tree, GenerationContext<JS> context, JS iterated, JS body) {
 		JavaScriptBuilder<JS> js = context.js();
 
@@ -164,4 +207,4 @@ public class EnhancedForLoopWriter<JS> implements WriterContributor<EnhancedForL
 		return context.withPosition(tree, context.js().forLoop(init, condition, update, newBody));
 	}
 
-}
\ No newline at end of file
+}
\ No newline at end of file
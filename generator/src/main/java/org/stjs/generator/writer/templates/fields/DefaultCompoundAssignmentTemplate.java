@@ -1,8 +1,8 @@
 package org.stjs.generator.writer.templates.fields;
 
 import java.util.Arrays;
-import java.util.Collections;
 
+import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 
 import org.stjs.generator.GenerationContext;
@@ -12,6 +12,7 @@ import org.stjs.generator.javascript.BinaryOperator;
 import org.stjs.generator.javascript.JavaScriptBuilder;
 import org.stjs.generator.writer.WriterContributor;
 import org.stjs.generator.writer.WriterVisitor;
+import org.stjs.generator.writer.expression.BinaryWriter;
 
 import com.sun.source.tree.CompoundAssignmentTree;
 import com.sun.source.tree.Tree.Kind;
@@ -20,7 +21,8 @@ import com.sun.source.util.TreePath;
 public class DefaultCompoundAssignmentTemplate<JS> implements WriterContributor<CompoundAssignmentTree, JS> {
 
 	/**
-	 * handle the case a /= b, where a and b are integers. it generates: a = stjs.trunc(a/(b));
+	 * handle the case a /= b, where a and b are integers. it generates: a = stjs.trunc(a/(b)); or a = ((a/(b))|0); when a is an int
+	 * and the configuration allows it.
 	 */
 	public static <JS> JS rightSide(JS left, JS right, CompoundAssignmentTree tree, GenerationContext<JS> context) {
 		TypeMirror leftType = context.getTrees().getTypeMirror(new TreePath(context.getCurrentPath(), tree.getVariable()));
@@ -31,9 +33,9 @@ public class DefaultCompoundAssignmentTemplate<JS> implements WriterContributor<
 
 		if (integerDivision) {
 			// force a cast for integer division to have the expected behavior in JavaScript too
-			JS target = js.property(js.name("stjs"), "trunc");
 			JS expr = js.binary(BinaryOperator.DIVIDE, Arrays.asList(left, js.paren(right)));
-			return js.functionCall(target, Collections.singleton(expr));
+			// |0 does not narrow the result, so it is only used for int variables
+			return BinaryWriter.truncate(expr, leftType.getKind() == TypeKind.INT, context);
 		}
 		return right;
 	}
@@ -2,10 +2,12 @@ package org.stjs.generator.writer.templates.fields;
 
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.VariableElement;
 
 import org.stjs.generator.GenerationContext;
 import org.stjs.generator.GeneratorConstants;
 import org.stjs.generator.javac.ElementUtils;
+import org.stjs.generator.javac.TreeUtils;
 import org.stjs.generator.javac.TreeWrapper;
 import org.stjs.generator.javascript.Keyword;
 import org.stjs.generator.name.DependencyType;
@@ -13,7 +15,9 @@ import org.stjs.generator.writer.MemberWriters;
 import org.stjs.generator.writer.WriterContributor;
 import org.stjs.generator.writer.WriterVisitor;
 
+import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.IdentifierTree;
+import com.sun.source.util.TreePath;
 
 /**
  * this class deal with identifiers likes variable, field references.
@@ -31,6 +35,18 @@ public class DefaultIdentifierTemplate<JS> implements WriterContributor<Identifi
 		return context.js().property(target, tree.getName());
 	}
 
+	/**
+	 * the variables captured by a cached anonymous class are kept in its instances
+	 */
+	private boolean isCapturedVariable(Element def, GenerationContext<JS> context) {
+		if (!(def instanceof VariableElement)) {
+			return false;
+		}
+		TreePath classPath = TreeUtils.enclosingPathOfType(context.getCurrentPath(), ClassTree.class);
+		return classPath != null
+				&& context.getCapturedVariables(TreeUtils.elementFromDeclaration((ClassTree) classPath.getLeaf())).contains(def);
+	}
+
 	@Override
 	@SuppressWarnings("PMD.CyclomaticComplexity")
 	public JS visit(WriterVisitor<JS> visitor, IdentifierTree tree, GenerationContext<JS> context) {
@@ -62,6 +78,10 @@ public class DefaultIdentifierTemplate<JS> implements WriterContributor<Identifi
 			name = context.getNames().getTypeName(context, def, DependencyType.STATIC);
 		}
 
+		if (isCapturedVariable(def, context)) {
+			return context.js().property(context.js().keyword(Keyword.THIS), GeneratorConstants.CAPTURED_VARIABLE_PREFIX + name);
+		}
+
 		// assume variable
 		return context.js().name(name);
 	}
@@ -0,0 +1,7 @@
+package org.stjs.generator.batch;
+
+public class Batch1 {
+	public int method() {
+		return 1;
+	}
+}
@@ -0,0 +1,8 @@
+package org.stjs.generator.batch;
+
+public class Batch2 extends Batch1 {
+	@Override
+	public int method() {
+		return super.method() + 1;
+	}
+}
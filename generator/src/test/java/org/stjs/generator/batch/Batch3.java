@@ -0,0 +1,8 @@
+package org.stjs.generator.batch;
+
+public class Batch3 {
+	public void method() {
+		@SuppressWarnings("unused")
+		int var = 2;
+	}
+}
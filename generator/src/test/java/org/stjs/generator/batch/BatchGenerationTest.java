@@ -0,0 +1,169 @@
+package org.stjs.generator.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.stjs.generator.ClassWithJavascript;
+import org.stjs.generator.GenerationContext;
+import org.stjs.generator.GenerationMetricsCollector;
+import org.stjs.generator.GenerationPhase;
+import org.stjs.generator.Generator;
+import org.stjs.generator.GeneratorConfigurationBuilder;
+import org.stjs.generator.MultipleFileGenerationException;
+import org.stjs.generator.check.CheckContributor;
+import org.stjs.generator.check.CheckVisitor;
+import org.stjs.generator.name.DependencyType;
+import org.stjs.generator.plugin.GenerationPlugins;
+import org.stjs.generator.utils.AbstractStjsTest;
+
+import com.sun.source.tree.CompilationUnitTree;
+
+public class BatchGenerationTest extends AbstractStjsTest {
+	@Test
+	public void testGenerateAllInOrder() {
+		List<ClassWithJavascript> classes = generateAll(Batch2.class, Batch1.class);
+
+		assertEquals(2, classes.size());
+		assertEquals(Batch2.class.getName(), classes.get(0).getJavaClassName());
+		assertEquals(Batch1.class.getName(), classes.get(1).getJavaClassName());
+		for (ClassWithJavascript cls : classes) {
+			assertTrue(new File(cls.getJavascriptFiles().get(0).getPath()).exists());
+		}
+	}
+
+	@Test
+	public void testDependenciesInBatch() {
+		generateAll(Batch1.class, Batch2.class);
+
+		ClassWithJavascript jsClass = stjsClass(Batch2.class);
+		assertEquals(DependencyType.EXTENDS, jsClass.getDirectDependencyMap().get(stjsClass(Batch1.class)));
+	}
+
+	@Test
+	public void testErrorDoesNotStopTheBatch() {
+		try {
+			generateAll(Batch3.class, Batch1.class);
+			fail("Expected " + MultipleFileGenerationException.class);
+		}
+		catch (MultipleFileGenerationException ex) {
+			assertEquals(1, ex.getExceptions().size());
+			assertEquals("Batch3.java", ex.getSourcePosition().getFile().getName());
+		}
+		assertTrue(new File(stjsClass(Batch1.class).getJavascriptFiles().get(0).getPath()).exists());
+	}
+
+	@Test
+	public void testParallelGeneration() {
+		List<ClassWithJavascript> classes =
+				generateAll(new GeneratorConfigurationBuilder().generationThreads(2).build(), Batch2.class, Batch1.class);
+
+		assertEquals(2, classes.size());
+		assertEquals(Batch2.class.getName(), classes.get(0).getJavaClassName());
+		assertEquals(Batch1.class.getName(), classes.get(1).getJavaClassName());
+		assertEquals(DependencyType.EXTENDS, stjsClass(Batch2.class).getDirectDependencyMap().get(stjsClass(Batch1.class)));
+	}
+
+	@Test
+	public void testErrorDoesNotStopTheParallelGeneration() {
+		try {
+			generateAll(new GeneratorConfigurationBuilder().generationThreads(2).build(), Batch3.class, Batch1.class);
+			fail("Expected " + MultipleFileGenerationException.class);
+		}
+		catch (MultipleFileGenerationException ex) {
+			assertEquals(1, ex.getExceptions().size());
+			assertEquals("Batch3.java", ex.getSourcePosition().getFile().getName());
+		}
+		assertTrue(new File(stjsClass(Batch1.class).getJavascriptFiles().get(0).getPath()).exists());
+	}
+
+	@Test
+	public void testMetrics() throws IOException {
+		GenerationMetricsCollector metrics = new GenerationMetricsCollector();
+		generateAll(new GeneratorConfigurationBuilder().metrics(metrics).build(), Batch2.class, Batch1.class);
+
+		assertTrue(metrics.getPhaseNanos(GenerationPhase.ANALYZE) > 0);
+		List<GenerationMetricsCollector.FileMetrics> files = metrics.getFiles();
+		assertEquals(2, files.size());
+		for (GenerationMetricsCollector.FileMetrics file : files) {
+			// the javac phases are measured for each file of the batch
+			assertTrue(file.getPhaseNanos(GenerationPhase.PARSE) > 0);
+			assertTrue(file.getPhaseNanos(GenerationPhase.ANALYZE) > 0);
+			assertTrue(file.getPhaseNanos(GenerationPhase.WRITE_AST) > 0);
+			assertTrue(file.getJavaNodeCount() > 0);
+			assertTrue(file.getJavascriptBytes() > 0);
+		}
+		assertTrue(files.get(0).getTotalNanos() >= files.get(1).getTotalNanos());
+
+		StringWriter json = new StringWriter();
+		metrics.writeJson(json, 1);
+		assertTrue(json.toString().contains("\"className\": \"" + files.get(0).getClassName() + "\""));
+		assertFalse(json.toString().contains("\"className\": \"" + files.get(1).getClassName() + "\""));
+
+		StringWriter csv = new StringWriter();
+		metrics.writeCsv(csv);
+		assertEquals(3, csv.toString().split("\n").length);
+	}
+
+	@Test
+	public void testMetricsJsonEscaping() throws IOException {
+		GenerationMetricsCollector metrics = new GenerationMetricsCollector();
+		metrics.fileGenerated(new File("a\"b\nc.java"), "e\tf", 1, 1);
+
+		StringWriter json = new StringWriter();
+		metrics.writeJson(json, 1);
+		assertTrue(json.toString().contains("\"file\": \"a\\\"b\\u000ac.java\""));
+		assertTrue(json.toString().contains("\"className\": \"e\\u0009f\""));
+	}
+
+	@Test
+	public void testTaskDataIsNotRetained() {
+		// each generation uses a new javac task. The generator must not keep its compilation unit or its symbols once it is done
+		generate(Batch1.class);
+		final List<WeakReference<Object>> taskData = new ArrayList<WeakReference<Object>>();
+		GenerationPlugins<Object> plugins = new GenerationPlugins<Object>();
+		plugins.getCheckVisitor().contribute(new CheckContributor<CompilationUnitTree>() {
+			@Override
+			public Void visit(CheckVisitor visitor, CompilationUnitTree tree, GenerationContext<Void> context) {
+				taskData.add(new WeakReference<Object>(tree));
+				taskData.add(new WeakReference<Object>(context.getElements().getTypeElement(Batch1.class.getCanonicalName())));
+				return null;
+			}
+		}, CompilationUnitTree.class);
+
+		Generator generator = new Generator(getConfiguration(Batch1.class), plugins, null);
+		try {
+			for (int i = 0; i < 3; ++i) {
+				generator.generateJavascript(Batch1.class.getName(), new File("src/test/java"));
+			}
+			assertEquals(6, taskData.size());
+			assertTrue("The generator keeps the data of its previous javac tasks", isCollected(taskData));
+		}
+		finally {
+			generator.close();
+		}
+	}
+
+	private static boolean isCollected(List<WeakReference<Object>> references) {
+		for (int attempt = 0; attempt < 10; ++attempt) {
+			System.gc();
+			boolean collected = true;
+			for (WeakReference<Object> reference : references) {
+				collected &= reference.get() == null;
+			}
+			if (collected) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,7 @@
+package org.stjs.generator.deps;
+
+public class Dep15 {
+	public static int main(String[] args) {
+		return Dep15Parent.create().value();
+	}
+}
@@ -0,0 +1,8 @@
+package org.stjs.generator.deps;
+
+public class Dep15Child extends Dep15Parent {
+	@Override
+	public int value() {
+		return 2;
+	}
+}
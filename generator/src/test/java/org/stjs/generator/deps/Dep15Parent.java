@@ -0,0 +1,11 @@
+package org.stjs.generator.deps;
+
+public class Dep15Parent {
+	public int value() {
+		return 1;
+	}
+
+	public static Dep15Parent create() {
+		return new Dep15Child();
+	}
+}
@@ -2,19 +2,38 @@ package org.stjs.generator.deps;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 import org.stjs.generator.utils.AbstractStjsTest;
 import org.stjs.generator.ClassWithJavascript;
+import org.stjs.generator.DefaultClassResolver;
 import org.stjs.generator.DependencyCollector;
+import org.stjs.generator.DependencyManifest;
 import org.stjs.generator.name.DependencyType;
+import org.stjs.generator.utils.ClassUtils;
 import org.stjs.javascript.JSGlobal;
 
+import com.google.common.io.Files;
+
 public class DependencyTest extends AbstractStjsTest {
 
 	private DependencyCollector.DependencyComparator comparator = new DependencyCollector.DependencyComparator();
@@ -168,6 +187,152 @@ public class DependencyTest extends AbstractStjsTest {
 		assertDependency(jsClass.getDirectDependencyMap(), Dep14b.class, DependencyType.STATIC);
 	}
 
+	@Test
+	public void testOrderCyclicDependencies() {
+		generate(Dep15Parent.class);
+		generate(Dep15Child.class);
+		// Dep15Parent creates a Dep15Child that extends it: the parent must still come first
+		assertEquals(2.0, executeAndReturnNumber(Dep15.class), 0);
+
+		ClassWithJavascript root = stjsClass(Dep15.class);
+		ClassWithJavascript parent = stjsClass(Dep15Parent.class);
+		ClassWithJavascript child = stjsClass(Dep15Child.class);
+		DependencyCollector collector = new DependencyCollector();
+		List<ClassWithJavascript> deps = collector.orderAllDependencies(root);
+
+		assertTrue(deps.indexOf(parent) < deps.indexOf(child));
+		assertTrue(deps.indexOf(child) < deps.indexOf(root));
+		assertEquals(Collections.singletonList(Arrays.asList(parent, child)),
+				collector.getCyclicDependencies(Collections.singletonList(root)));
+		assertTrue(deps == collector.orderAllDependencies(root));
+	}
+
+	@Test
+	public void testOrderOfClassesResolvedAgain() {
+		generate(Dep7s.class);
+		generate(Dep7.class);
+
+		DependencyCollector collector = new DependencyCollector();
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		ClassWithJavascript dep7 = new DefaultClassResolver(classLoader).resolve(Dep7.class.getName());
+		List<ClassWithJavascript> deps = collector.orderAllDependencies(dep7);
+		assertTrue(deps == collector.orderAllDependencies(dep7));
+
+		// an equal class resolved again is a new instance: its order is computed again
+		ClassWithJavascript resolvedAgain = new DefaultClassResolver(classLoader).resolve(Dep7.class.getName());
+		List<ClassWithJavascript> depsAgain = collector.orderAllDependencies(resolvedAgain);
+		assertNotSame(deps, depsAgain);
+		assertSame(resolvedAgain, depsAgain.get(depsAgain.size() - 1));
+	}
+
+	@Test
+	public void testResolveFromManifest() throws IOException {
+		generate(Dep7s.class);
+		generate(Dep7.class);
+
+		File folder = Files.createTempDir();
+		URLClassLoader classLoader = new URLClassLoader(new URL[]{ folder.toURI().toURL() }, Thread.currentThread()
+				.getContextClassLoader());
+		try {
+			copyPropertiesFile(Dep7.class, folder);
+			assertNotNull(DependencyManifest.write(folder));
+
+			assertNotNull(DependencyManifest.forClassLoader(classLoader).getClassProperties(Dep7.class.getName()));
+			ClassWithJavascript jsClass = new DefaultClassResolver(classLoader).resolve(Dep7.class.getName());
+			assertEquals(stjsClass(Dep7.class).getJavascriptFiles(), jsClass.getJavascriptFiles());
+			assertEquals(stjsClass(Dep7.class).getJavascriptNamespace(), jsClass.getJavascriptNamespace());
+			assertDependency(jsClass.getDirectDependencyMap(), Dep7s.class, DependencyType.STATIC);
+		}
+		finally {
+			classLoader.close();
+			for (File file : Files.fileTreeTraverser().postOrderTraversal(folder)) {
+				assertTrue(file.delete());
+			}
+		}
+	}
+
+	@Test
+	public void testUpdateManifest() throws IOException {
+		generate(Dep7s.class);
+		generate(Dep7.class);
+
+		File folder = Files.createTempDir();
+		try {
+			copyPropertiesFile(Dep7.class, folder);
+			assertNotNull(DependencyManifest.write(folder));
+			Properties previous = DependencyManifest.load(folder);
+			assertNotNull(previous.getProperty(Dep7.class.getName()));
+
+			// only the generated classes are read again
+			assertTrue(new File(folder, ClassUtils.getPropertiesFileName(Dep7.class.getName())).delete());
+			copyPropertiesFile(Dep7s.class, folder);
+			DependencyManifest.update(folder, previous, Collections.singleton(Dep7s.class.getName()), Collections.<String> emptySet());
+			Properties updated = DependencyManifest.load(folder);
+			assertEquals(previous.getProperty(Dep7.class.getName()), updated.getProperty(Dep7.class.getName()));
+			assertNotNull(updated.getProperty(Dep7s.class.getName()));
+
+			DependencyManifest.update(folder, updated, Collections.<String> emptySet(), Collections.singleton(Dep7.class.getName()));
+			assertEquals(Collections.singleton(Dep7s.class.getName()), DependencyManifest.load(folder).stringPropertyNames());
+		}
+		finally {
+			for (File file : Files.fileTreeTraverser().postOrderTraversal(folder)) {
+				assertTrue(file.delete());
+			}
+		}
+	}
+
+	private static void copyPropertiesFile(Class<?> clazz, File folder) throws IOException {
+		String propertiesFile = ClassUtils.getPropertiesFileName(clazz.getName());
+		File copy = new File(folder, propertiesFile);
+		Files.createParentDirs(copy);
+		Files.copy(new File("target/test-classes", propertiesFile), copy);
+	}
+
+	@Test
+	public void testResolveConcurrently() throws Exception {
+		generate(Dep7s.class);
+		generate(Dep7.class);
+
+		final DefaultClassResolver resolver = new DefaultClassResolver(Thread.currentThread().getContextClassLoader());
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<List<ClassWithJavascript>>> results = new ArrayList<Future<List<ClassWithJavascript>>>();
+			for (int i = 0; i < 8; ++i) {
+				results.add(executor.submit(new Callable<List<ClassWithJavascript>>() {
+					@Override
+					public List<ClassWithJavascript> call() {
+						return resolver.resolve(Dep7.class.getName()).getDirectDependencies();
+					}
+				}));
+			}
+			ClassWithJavascript dep7s = resolver.resolve(Dep7s.class.getName());
+			// all the threads see the same instance of the dependency
+			for (Future<List<ClassWithJavascript>> result : results) {
+				assertTrue("Another instance of Dep7s was resolved", containsSame(result.get(), dep7s));
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+
+		// the evicted classes are resolved again
+		DefaultClassResolver boundedResolver = new DefaultClassResolver(Thread.currentThread().getContextClassLoader(), 1);
+		ClassWithJavascript dep7 = boundedResolver.resolve(Dep7.class.getName());
+		boundedResolver.resolve(Dep7s.class.getName());
+		ClassWithJavascript resolvedAgain = boundedResolver.resolve(Dep7.class.getName());
+		assertNotSame(dep7, resolvedAgain);
+		assertEquals(dep7, resolvedAgain);
+	}
+
+	private static boolean containsSame(List<ClassWithJavascript> classes, ClassWithJavascript expected) {
+		for (ClassWithJavascript c : classes) {
+			if (c == expected) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	private void assertDependency(List<ClassWithJavascript> directDependencies, Class<?> clz) {
 		for (ClassWithJavascript c : directDependencies) {
 			if (clz.getName().equals(c.getJavaClassName())) {
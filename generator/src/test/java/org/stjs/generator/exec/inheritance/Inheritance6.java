@@ -0,0 +1,9 @@
+package org.stjs.generator.exec.inheritance;
+
+public class Inheritance6 extends MyInterfaceImpl {
+	public static int main(String[] args) {
+		Object x = new Inheritance6();
+		Object y = new Inheritance3();
+		return (x instanceof MySuperInterface ? 1 : 0) + (y instanceof MyInterface ? 2 : 0);
+	}
+}
@@ -40,4 +40,10 @@ public class InheritanceTest extends AbstractStjsTest {
 	public void testInstanceofSuperInterface() {
 		assertEquals(1.0, executeAndReturnNumber(Inheritance5.class), 0);
 	}
+
+	@Test
+	public void testInstanceofInterfaceOfSuperClass() {
+		assertCodeContains(Inheritance6.class, "stjs.isInstanceOfInterface(x.constructor, MySuperInterface)");
+		assertEquals(1.0, executeAndReturnNumber(Inheritance6.class), 0);
+	}
 }
@@ -0,0 +1,5 @@
+package org.stjs.generator.exec.inheritance;
+
+public class MyInterfaceImpl implements MyInterface {
+
+}
@@ -0,0 +1,13 @@
+package org.stjs.generator.exec.ints;
+
+public class Ints10 {
+	public double val(double a) {
+		return a;
+	}
+
+	public static int main(String[] args) {
+		Ints10 ints = new Ints10();
+		// the doubles out of the int range are saturated, NaN gives 0
+		return (int) ints.val(3e9) / 2 - (int) ints.val(-3e9) / 4 + (int) ints.val(0.0 / 0.0);
+	}
+}
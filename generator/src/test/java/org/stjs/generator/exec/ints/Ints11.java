@@ -0,0 +1,12 @@
+package org.stjs.generator.exec.ints;
+
+public class Ints11 {
+	public short method(short a, int b) {
+		a /= b;
+		return a;
+	}
+
+	public static short main(String[] args) {
+		return new Ints11().method((short) 7, 2);
+	}
+}
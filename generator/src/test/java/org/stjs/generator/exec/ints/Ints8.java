@@ -0,0 +1,14 @@
+package org.stjs.generator.exec.ints;
+
+public class Ints8 {
+	public int method(int a, int b) {
+		int c = a / b;
+		int d = 7;
+		d /= -2L;
+		return c / 2 + d + (int) -7.9;
+	}
+
+	public static int main(String[] args) {
+		return new Ints8().method(-2147483648, -1);
+	}
+}
@@ -0,0 +1,11 @@
+package org.stjs.generator.exec.ints;
+
+public class Ints9 {
+	public long method(long a, int b) {
+		return a / b;
+	}
+
+	public static long main(String[] args) {
+		return new Ints9().method(10000000000L, 3);
+	}
+}
@@ -4,6 +4,8 @@ import static org.junit.Assert.*;
 
 import org.junit.Ignore;
 import org.junit.Test;
+import org.stjs.generator.GeneratorConfiguration;
+import org.stjs.generator.GeneratorConfigurationBuilder;
 import org.stjs.generator.utils.AbstractStjsTest;
 
 public class IntsTest extends AbstractStjsTest {
@@ -134,4 +136,46 @@ public class IntsTest extends AbstractStjsTest {
 	public void testIntegerDivisionAndAssign2() {
 		assertEquals(2.0, executeAndReturnNumber(Ints7.class), 0);
 	}
+
+	@Test
+	public void testIntegerDivisionWithOr() {
+		GeneratorConfiguration config = new GeneratorConfigurationBuilder().truncateWithOr(true).build();
+		assertCodeContains(Ints3.class, "return ((3 / 2) | 0) + 1;", config);
+		assertCodeContains(Ints6.class, "a = ((a / (b)) | 0);", config);
+		assertEquals(2.0, executeAndReturnNumber(Ints3.class, config), 0);
+		assertEquals(2.0, executeAndReturnNumber(Ints6.class, config), 0);
+		assertEquals(2.0, executeAndReturnNumber(Ints7.class, config), 0);
+		assertEquals(2.0, executeAndReturnNumber(Ints1.class, config), 0);
+	}
+
+	@Test
+	public void testIntegerOverflowWithOr() {
+		GeneratorConfiguration config = new GeneratorConfigurationBuilder().truncateWithOr(true).build();
+		assertEquals(Ints8.main(null), executeAndReturnNumber(Ints8.class, config), 0);
+	}
+
+	@Test
+	public void testLongDivisionWithOr() {
+		GeneratorConfiguration config = new GeneratorConfigurationBuilder().truncateWithOr(true).build();
+		assertCodeContains(Ints9.class, "return stjs.trunc(a / b);", config);
+		assertCodeContains(Ints2.class, "stjs.trunc(2.3)", config);
+		assertEquals(Ints9.main(null), executeAndReturnNumber(Ints9.class, config), 0);
+		assertEquals(2.0, executeAndReturnNumber(Ints2.class, config), 0);
+	}
+
+	@Test
+	public void testDoubleOutOfRangeToIntWithOr() {
+		GeneratorConfiguration config = new GeneratorConfigurationBuilder().truncateWithOr(true).build();
+		assertCodeContains(Ints10.class, "stjs.truncToInt(ints.val(3.0E9))", config);
+		assertCodeContains(Ints1.class, "stjs.truncToInt(2.3)", config);
+		assertEquals(Ints10.main(null), executeAndReturnNumber(Ints10.class, config), 0);
+		assertEquals(FloatToInt.main(null), executeAndReturnNumber(FloatToInt.class, config), 0);
+	}
+
+	@Test
+	public void testShortDivisionAndAssignWithOr() {
+		GeneratorConfiguration config = new GeneratorConfigurationBuilder().truncateWithOr(true).build();
+		assertCodeContains(Ints11.class, "a = stjs.trunc(a / (b));", config);
+		assertEquals(Ints11.main(null), executeAndReturnNumber(Ints11.class, config), 0);
+	}
 }
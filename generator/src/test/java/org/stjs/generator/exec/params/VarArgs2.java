@@ -0,0 +1,17 @@
+package org.stjs.generator.exec.params;
+
+import static org.stjs.javascript.JSCollections.$castArray;
+
+public class VarArgs2 {
+	public static int count(Integer... values) {
+		return $castArray(values).$length();
+	}
+
+	public static int sumAndCount(int a, int b, int c, int d, Integer... other) {
+		return a + b + c + d + $castArray(other).$length();
+	}
+
+	public static int main(String[] args) {
+		return count(5, 6, 7) * 100 + sumAndCount(1, 2, 3, 4, 5, 6);
+	}
+}
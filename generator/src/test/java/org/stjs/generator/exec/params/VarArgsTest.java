@@ -11,4 +11,12 @@ public class VarArgsTest extends AbstractStjsTest {
 		Double result = executeAndReturnNumber(VarArgs1.class);
 		assertEquals(10.0, result, 0);
 	}
+
+	@Test
+	public void testVarArgsPosition() {
+		assertCodeContains(VarArgs2.class, "stjs.varargs0(function(values)");
+		assertCodeContains(VarArgs2.class, "stjs.varargs(function(a, b, c, d, other)");
+		assertCodeContains(VarArgs2.class, ", 4)");
+		assertEquals(312.0, executeAndReturnNumber(VarArgs2.class), 0);
+	}
 }
@@ -0,0 +1,21 @@
+package org.stjs.generator.writer.innerTypes;
+
+public class InnerTypes24 {
+	private static abstract class Value {
+		public abstract int get();
+	}
+
+	public static int main(String[] args) {
+		int sum = 0;
+		for (int i = 0; i < 3; ++i) {
+			Value v = new Value() {
+				@Override
+				public int get() {
+					return 2;
+				}
+			};
+			sum += v.get();
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,33 @@
+package org.stjs.generator.writer.innerTypes;
+
+public class InnerTypes26 {
+	private int base = 100;
+
+	private static abstract class Value {
+		protected int start;
+
+		public Value(int start) {
+			this.start = start;
+		}
+
+		public abstract int get();
+	}
+
+	private Value create(final int n, int s) {
+		final InnerTypes26 that = this;
+		final int twice = n * 2;
+		return new Value(s) {
+			@Override
+			public int get() {
+				return start + that.base + n + twice;
+			}
+		};
+	}
+
+	public static int main(String[] args) {
+		InnerTypes26 outer = new InnerTypes26();
+		Value a = outer.create(1, 10);
+		Value b = outer.create(2, 20);
+		return a.get() * 1000 + b.get();
+	}
+}
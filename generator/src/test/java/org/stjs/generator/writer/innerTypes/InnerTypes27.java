@@ -0,0 +1,29 @@
+package org.stjs.generator.writer.innerTypes;
+
+public class InnerTypes27 {
+	private static abstract class Value {
+		public abstract int get();
+	}
+
+	private static Value create(final int n) {
+		return new Value() {
+			@Override
+			public int get() {
+				return new Value() {
+					@Override
+					public int get() {
+						return n;
+					}
+				}.get();
+			}
+		};
+	}
+
+	public static int main(String[] args) {
+		int sum = 0;
+		for (int i = 0; i < 3; ++i) {
+			sum += create(i).get();
+		}
+		return sum;
+	}
+}
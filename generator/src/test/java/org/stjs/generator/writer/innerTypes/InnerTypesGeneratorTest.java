@@ -4,6 +4,8 @@ import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertNotNull;
 
 import org.junit.Test;
+import org.stjs.generator.GeneratorConfiguration;
+import org.stjs.generator.GeneratorConfigurationBuilder;
 import org.stjs.generator.utils.AbstractStjsTest;
 import org.stjs.generator.JavascriptFileGenerationException;
 
@@ -170,4 +172,40 @@ public class InnerTypesGeneratorTest extends AbstractStjsTest {
 	public void testCallOuterMethodFromAnonymousInit() {
 		assertCodeContains(InnerTypes23.class, "x: this.outerMethod()");
 	}
+
+	@Test
+	public void testHoistAnonymousClass() {
+		GeneratorConfiguration config = new GeneratorConfigurationBuilder().hoistAnonymousClasses(true).build();
+		assertCodeContains(InnerTypes24.class, "var v = new (InnerTypes24.$InnerTypes24$1 || (InnerTypes24.$InnerTypes24$1 = "
+				+ "stjs.extend(function InnerTypes24$1(){", config);
+		assertEquals(6, executeAndReturnNumber(InnerTypes24.class, config), 0);
+	}
+
+	@Test
+	public void testHoistCapturingAnonymousClass() {
+		GeneratorConfiguration config = new GeneratorConfigurationBuilder().hoistAnonymousClasses(true).build();
+		assertCodeContains(InnerTypes25.class, "return new (InnerTypes25.$InnerTypes25$1 || (InnerTypes25.$InnerTypes25$1 = "
+				+ "stjs.extend(function InnerTypes25$1(val$n){this.val$n = val$n;", config);
+		assertCodeContains(InnerTypes25.class, "return this.val$n;", config);
+		assertCodeContains(InnerTypes25.class, "}, {}, {})))(n);", config);
+		assertEquals(3, executeAndReturnNumber(InnerTypes25.class, config), 0);
+	}
+
+	@Test
+	public void testHoistAnonymousClassCapturingVariablesAndOuterInstance() {
+		GeneratorConfiguration config = new GeneratorConfigurationBuilder().hoistAnonymousClasses(true).build();
+		assertCodeContains(InnerTypes26.class, "function InnerTypes26$1(val$that, val$n, val$twice, start){"
+				+ "this.val$that = val$that;this.val$n = val$n;this.val$twice = val$twice;InnerTypes26.Value.call(this, start);}", config);
+		assertCodeContains(InnerTypes26.class, "})))(that, n, twice, s);", config);
+		// each instance keeps its own values
+		assertEquals(113126, executeAndReturnNumber(InnerTypes26.class, config), 0);
+	}
+
+	@Test
+	public void testDoNotHoistAnonymousClassCapturingInNestedClass() {
+		GeneratorConfiguration config = new GeneratorConfigurationBuilder().hoistAnonymousClasses(true).build();
+		assertCodeDoesNotContain(InnerTypes27.class, "InnerTypes27.$InnerTypes27$1 ||", config);
+		assertCodeContains(InnerTypes27.class, "InnerTypes27.$InnerTypes27$1$1 = stjs.extend(function InnerTypes27$1$1(val$n){", config);
+		assertEquals(3, executeAndReturnNumber(InnerTypes27.class, config), 0);
+	}
 }
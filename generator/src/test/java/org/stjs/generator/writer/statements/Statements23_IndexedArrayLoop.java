@@ -0,0 +1,17 @@
+package org.stjs.generator.writer.statements;
+
+import static org.stjs.javascript.JSCollections.$array;
+
+import org.stjs.javascript.Array;
+
+public class Statements23_IndexedArrayLoop {
+	public static int main(String[] args) {
+		Array<Integer> a = $array(1, 2, 3);
+		int sum = 0;
+		for (String i : a) {
+			a.$set(i, a.$get(i) * 2);
+			sum += a.$get(i);
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,18 @@
+package org.stjs.generator.writer.statements;
+
+import static org.stjs.javascript.JSCollections.$array;
+import static org.stjs.javascript.JSGlobal.parseInt;
+
+import org.stjs.javascript.Array;
+
+public class Statements24_IndexedArrayLoopString {
+	public static int main(String[] args) {
+		Array<Integer> a = $array(1, 2, 3);
+		int sum = 0;
+		for (String i : a) {
+			// the index is a string, as in a for-in loop: "0" + 1 is "01"
+			sum += parseInt(i + 1);
+		}
+		return sum;
+	}
+}
@@ -4,6 +4,8 @@ import static org.junit.Assert.assertEquals;
 
 import org.junit.Ignore;
 import org.junit.Test;
+import org.stjs.generator.GeneratorConfiguration;
+import org.stjs.generator.GeneratorConfigurationBuilder;
 import org.stjs.generator.utils.AbstractStjsTest;
 import org.stjs.generator.JavascriptFileGenerationException;
 
@@ -91,6 +93,22 @@ public class StatementsGeneratorTest extends AbstractStjsTest {
 		assertCodeContains(Statements12b.class, "if (!(a).hasOwnProperty(i)) continue;");
 	}
 
+	@Test
+	public void testForEachArrayIndexed() {
+		GeneratorConfiguration config = new GeneratorConfigurationBuilder().indexedArrayLoops(true).build();
+		assertCodeContains(Statements23_IndexedArrayLoop.class,
+				"for (var index$i = 0, arr$i = a, length$i = arr$i.length; index$i < length$i; index$i++) {var i = index$i;", config);
+		assertCodeDoesNotContain(Statements23_IndexedArrayLoop.class, "hasOwnProperty", config);
+		assertEquals(12, executeAndReturnNumber(Statements23_IndexedArrayLoop.class, config), 0);
+	}
+
+	@Test
+	public void testForEachArrayNotIndexedWhenUsedAsString() {
+		GeneratorConfiguration config = new GeneratorConfigurationBuilder().indexedArrayLoops(true).build();
+		assertCodeContains(Statements24_IndexedArrayLoopString.class, "for (var i in a) {", config);
+		assertEquals(33, executeAndReturnNumber(Statements24_IndexedArrayLoopString.class, config), 0);
+	}
+
 	@Test
 	public void testForEachMapBlock() {
 		String code = generate(Statements13.class);
@@ -12,25 +12,27 @@
  */
 package org.stjs.maven;
 
-import java.io.BufferedOutputStream;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.io.Writer;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -42,10 +44,8 @@ import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.compiler.util.scan.InclusionScanException;
-import org.codehaus.plexus.compiler.util.scan.SourceInclusionScanner;
 import org.codehaus.plexus.compiler.util.scan.mapping.SourceMapping;
 import org.codehaus.plexus.compiler.util.scan.mapping.SuffixMapping;
-import org.codehaus.plexus.util.DirectoryScanner;
 import org.jgrapht.DirectedGraph;
 import org.jgrapht.alg.StrongConnectivityInspector;
 import org.jgrapht.graph.DefaultDirectedGraph;
@@ -54,20 +54,25 @@ import org.jgrapht.traverse.TopologicalOrderIterator;
 import org.sonatype.plexus.build.incremental.BuildContext;
 import org.stjs.generator.BridgeClass;
 import org.stjs.generator.ClassWithJavascript;
+import org.stjs.generator.DependencyManifest;
 import org.stjs.generator.GenerationDirectory;
+import org.stjs.generator.GenerationMetricsCollector;
 import org.stjs.generator.Generator;
 import org.stjs.generator.GeneratorConfiguration;
 import org.stjs.generator.GeneratorConfigurationBuilder;
 import org.stjs.generator.JavascriptFileGenerationException;
+import org.stjs.generator.LanguageLevel;
 import org.stjs.generator.MultipleFileGenerationException;
 import org.stjs.generator.STJSClass;
 import org.stjs.generator.name.DependencyType;
 
+import com.google.common.base.Charsets;
 import com.google.common.io.Closeables;
 import com.google.common.io.Files;
 import com.google.debugging.sourcemap.SourceMapFormat;
 import com.google.debugging.sourcemap.SourceMapGeneratorFactory;
 import com.google.debugging.sourcemap.SourceMapGeneratorV3;
+import com.google.debugging.sourcemap.SourceMapSection;
 
 /**
  * This is the Maven plugin that launches the Javascript generator. The plugin needs a list of packages containing the
@@ -82,6 +87,9 @@ abstract public class AbstractSTJSMojo extends AbstractMojo {
 
 	private static final Object PACKAGE_INFO_JAVA = "package-info.java";
 
+	/** the sources of the current build */
+	private SourceIndex sourceIndex;
+
 	/**
 	
 	 */
@@ -149,12 +157,153 @@ abstract public class AbstractSTJSMojo extends AbstractMojo {
 			defaultValue = "false")
 	protected boolean pack;
 
+	/**
+	 * The classes used as entry points by the pages of the application, when the files are packed. For each entry
+	 * point, the classes needed only by this entry point are also packed in ${project.artifactId}-&lt;class name&gt;.js,
+	 * and the classes needed by several entry points are packed in shared files,
+	 * ${project.artifactId}-shared-&lt;indexes of the entry points&gt;.js. The files to load for each entry point, and
+	 * the classes of each file, are listed in ${project.artifactId}-bundles.json.
+	 * 
+	 */
+	@Parameter
+	protected List<String> packEntryPoints = new ArrayList<String>();
+
+	/**
+	 * If true, only the classes reachable from the root classes, through any kind of dependency, are packed. The root
+	 * classes are the classes having a static main(String[]) method, the classes annotated with packRootAnnotation, the classes of
+	 * packRoots and the packEntryPoints.
+	 * 
+	 */
+	@Parameter(
+			defaultValue = "false")
+	protected boolean packOnlyReachable;
+
+	/**
+	 * The classes to pack, with the classes they need, when packOnlyReachable is true.
+	 * 
+	 */
+	@Parameter
+	protected List<String> packRoots = new ArrayList<String>();
+
+	/**
+	 * The name of an annotation marking the classes to pack, with the classes they need, when packOnlyReachable is true.
+	 * 
+	 */
+	@Parameter
+	protected String packRootAnnotation;
+
+	/**
+	 * The number of threads used to generate the Javascript files. With more than one thread, the stale files are split
+	 * in groups that are parsed and generated in parallel.
+	 * 
+	 */
+	@Parameter(
+			defaultValue = "1")
+	protected int generationThreads;
+
+	/**
+	 * If true, the content hashes of the sources and of the generated files are kept in an index in the build directory.
+	 * The sources that are stale only because of their timestamps, but whose content did not change since the last
+	 * generation, are not generated again. The index is discarded when the classpath (including the classes of the
+	 * other modules of the reactor) or the generation options change.
+	 * 
+	 */
+	@Parameter(
+			defaultValue = "true")
+	protected boolean incrementalIndex;
+
+	/**
+	 * If true, the classes that extend a modified class or that use it statically (directly or transitively) are
+	 * generated again, even if their own sources did not change. The dependencies are read from the .stjs files of the
+	 * previous generation.
+	 * 
+	 */
+	@Parameter(
+			defaultValue = "true")
+	protected boolean regenerateDependents;
+
+	/**
+	 * If true, the anonymous classes are defined only once, the first time they are instantiated, instead of each time
+	 * the expression is evaluated. The local variables they use are given to their constructor. The classes using a local
+	 * class, or using a local variable from a nested class or lambda, are still defined each time.
+	 * 
+	 */
+	@Parameter(
+			defaultValue = "false")
+	protected boolean hoistAnonymousClasses;
+
+	/**
+	 * If true, the for-each loops over an org.stjs.javascript.Array are generated as loops with a numeric index and a
+	 * cached length, instead of for-in loops (that also check hasOwnProperty if generateArrayHasOwnProperty is true).
+	 * The arrays must not have holes, as the indexes of the holes are also visited. The loops using their variable
+	 * for something else than accessing the elements of arrays stay for-in loops, as they need the string index.
+	 * 
+	 */
+	@Parameter(
+			defaultValue = "false")
+	protected boolean indexedArrayLoops;
+
+	/**
+	 * If true, the integer divisions whose result is an int (including the /= assignments of int variables) and the
+	 * casts of floating point numbers to int are truncated with (x)|0 instead of a call to stjs.trunc(x). The long
+	 * divisions and the casts to long still call stjs.trunc.
+	 * 
+	 */
+	@Parameter(
+			defaultValue = "false")
+	protected boolean truncateWithOr;
+
+	/**
+	 * The version of JavaScript the generated code may use: ES5 (the default) or ES2015. With ES2015 the lambdas and
+	 * the method references are generated as arrow functions, or with Function.bind, instead of being wrapped by
+	 * stjs.bind.
+	 * 
+	 */
+	@Parameter(
+			defaultValue = "ES5")
+	protected LanguageLevel languageLevel;
+
+	/**
+	 * If set, the duration of each generation phase and the size of the generated code are measured for each source file
+	 * and written to this file, starting with the slowest files. The report is a CSV file if the name ends with .csv and
+	 * a JSON file otherwise.
+	 * 
+	 */
+	@Parameter
+	protected File metricsReport;
+
+	/**
+	 * The number of files listed in the JSON metrics report.
+	 * 
+	 */
+	@Parameter(
+			defaultValue = "20")
+	protected int metricsReportSize;
+
 	/**
 	 */
 	@Parameter(
 			defaultValue = "${project.build.sourceEncoding}")
 	private String sourceEncoding;
 
+	/**
+	 * A list of compression formats (gzip and/or deflate). For each format, a compressed copy of every generated
+	 * JavaScript file, including the pack file and the support file, is written next to it (.js.gz and .js.deflate), so
+	 * the web server can send the compressed files as they are. A compressed copy is written again only when its
+	 * JavaScript file changed. No compressed file is written by default.
+	 * 
+	 */
+	@Parameter
+	protected Set<String> precompress = new HashSet<String>();
+
+	/**
+	 * The level used to write the compressed files, from 1 (fastest) to 9 (smallest).
+	 * 
+	 */
+	@Parameter(
+			defaultValue = "9")
+	protected int compressionLevel;
+
 	/**
 	 * A list of annotations to be generated
 	 * 
@@ -235,11 +384,22 @@ abstract public class AbstractSTJSMojo extends AbstractMojo {
 		long t1 = System.currentTimeMillis();
 		getLog().info("Generating JavaScript files to " + gendir.getGeneratedSourcesAbsolutePath());
 
+		// the manifest of the previous build must not be used to resolve the classes generated again. It is updated at
+		// the end of the build
+		Properties previousManifest = loadDependencyManifest();
+		deleteDependencyManifest();
 		ClassLoader builtProjectClassLoader = getBuiltProjectClassLoader();
 
 		GeneratorConfigurationBuilder configBuilder = new GeneratorConfigurationBuilder();
 		configBuilder.generateArrayHasOwnProperty(generateArrayHasOwnProperty);
 		configBuilder.generateSourceMap(generateSourceMap);
+		configBuilder.generationThreads(generationThreads);
+		configBuilder.hoistAnonymousClasses(hoistAnonymousClasses);
+		configBuilder.indexedArrayLoops(indexedArrayLoops);
+		configBuilder.truncateWithOr(truncateWithOr);
+		configBuilder.languageLevel(languageLevel);
+		GenerationMetricsCollector metrics = metricsReport == null ? null : new GenerationMetricsCollector();
+		configBuilder.metrics(metrics);
 		if (sourceEncoding != null) {
 			configBuilder.sourceEncoding(sourceEncoding);
 		}
@@ -255,11 +415,10 @@ abstract public class AbstractSTJSMojo extends AbstractMojo {
 			configBuilder.annotations(annotations);
 		}
 
-		// scan all the packages
+		// scan all the packages. The sources are listed once for the whole build
+		sourceIndex = scanSources();
 		for (String sourceRoot : getCompileSourceRoots()) {
-			File sourceDir = new File(sourceRoot);
-			Collection<String> packages = accumulatePackages(sourceDir);
-			configBuilder.allowedPackages(packages);
+			configBuilder.allowedPackages(sourceIndex.getPackages(new File(sourceRoot)));
 		}
 		configBuilder.stjsClassLoader(builtProjectClassLoader);
 		configBuilder.targetFolder(getBuildOutputDirectory());
@@ -268,75 +427,350 @@ abstract public class AbstractSTJSMojo extends AbstractMojo {
 		GeneratorConfiguration configuration = configBuilder.build();
 		Generator generator = new Generator(configuration);
 
+		IncrementalBuildIndex index = loadIncrementalIndex();
+
+		// the modified sources, plus the sources of the classes that depend on them
+		Map<File, List<File>> sourcesByRoot = accumulateModifiedSources(gendir, index);
+		if (regenerateDependents) {
+			addDependentSources(sourcesByRoot);
+		}
+
 		int generatedFiles = 0;
 		boolean hasFailures = false;
-		// scan the modified sources
+		Set<String> generatedClasses = new HashSet<String>();
+		for (Map.Entry<File, List<File>> root : sourcesByRoot.entrySet()) {
+			File sourceDir = root.getKey();
+			List<File> generatedSources = root.getValue();
+			List<String> classNames = new ArrayList<String>(generatedSources.size());
+			for (File source : generatedSources) {
+				if (getLog().isDebugEnabled()) {
+					getLog().debug("Generating " + source);
+				}
+				buildContext.removeMessages(new File(sourceDir, source.getPath()));
+				classNames.add(getClassNameForSource(source.getPath()));
+			}
+			if (classNames.isEmpty()) {
+				continue;
+			}
+			generatedClasses.addAll(classNames);
+
+			// all the sources of a root are parsed and analyzed together
+			Set<String> upToDateClasses = new HashSet<String>();
+			try {
+				for (ClassWithJavascript stjsClass : generator.generateJavascript(classNames, sourceDir)) {
+					if (!(stjsClass instanceof BridgeClass)) {
+						++generatedFiles;
+					}
+					upToDateClasses.add(stjsClass.getJavaClassName());
+				}
+			}
+			catch (MultipleFileGenerationException e) {
+				for (JavascriptFileGenerationException jse : e.getExceptions()) {
+					buildContext.addMessage(jse.getSourcePosition().getFile(), jse.getSourcePosition().getLine(),
+							jse.getSourcePosition().getColumn(), jse.getMessage(), BuildContext.SEVERITY_ERROR, null);
+				}
+				hasFailures = true;
+				// continue with the next source root
+			}
+			catch (JavascriptFileGenerationException e) {
+				buildContext.addMessage(e.getSourcePosition().getFile(), e.getSourcePosition().getLine(), e.getSourcePosition().getColumn(),
+						e.getMessage(), BuildContext.SEVERITY_ERROR, null);
+				hasFailures = true;
+				// continue with the next source root
+			}
+			catch (Exception e) {
+				// TODO - maybe should filter more here
+				buildContext.addMessage(sourceDir, 1, 1, e.toString(), BuildContext.SEVERITY_ERROR, e);
+				hasFailures = true;
+				// throw new MojoExecutionException("Error generating javascript:" + e, e);
+			}
+			updateIncrementalIndex(index, gendir, sourceDir, generatedSources, upToDateClasses);
+		}
+		storeIncrementalIndex(index);
+		generator.close();
+		writeDependencyManifest(previousManifest, generatedClasses);
+		writeMetricsReport(metrics);
+		long t2 = System.currentTimeMillis();
+		getLog().info("Generated " + generatedFiles + " JavaScript files in " + (t2 - t1) + " ms");
+		if (generatedFiles > 0) {
+			filesGenerated(generator, gendir);
+		}
+		writePrecompressedFiles(gendir);
+
+		if (hasFailures) {
+			throw new MojoFailureException("Errors generating JavaScript");
+		}
+	}
+
+	private SourceIndex scanSources() throws MojoExecutionException {
+		List<File> sourceRoots = new ArrayList<File>();
+		for (String sourceRoot : getCompileSourceRoots()) {
+			sourceRoots.add(new File(sourceRoot));
+		}
+		try {
+			return SourceIndex.scan(sourceRoots, generationThreads);
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Cannot scan the source roots: " + e, e);
+		}
+	}
+
+	/**
+	 * @return for each source root, the list of sources that were modified since the last generation
+	 */
+	private Map<File, List<File>> accumulateModifiedSources(GenerationDirectory gendir, IncrementalBuildIndex index)
+			throws MojoExecutionException {
+		Map<File, List<File>> sourcesByRoot = new LinkedHashMap<File, List<File>>();
 		for (String sourceRoot : getCompileSourceRoots()) {
 			File sourceDir = new File(sourceRoot);
 			SourceMapping mapping = new SuffixMapping(".java", ".js");
 			SourceMapping stjsMapping = new SuffixMapping(".java", ".stjs");
 
 			List<File> sources = accumulateSources(gendir, sourceDir, mapping, stjsMapping, staleMillis);
+			List<File> modifiedSources = new ArrayList<File>(sources.size());
 			for (File source : sources) {
 				if (source.getName().equals(PACKAGE_INFO_JAVA)) {
 					getLog().debug("Skipping " + source);
 					continue;
 				}
-				File absoluteSource = new File(sourceDir, source.getPath());
-				try {
-					File absoluteTarget = (File) mapping.getTargetFiles(gendir.getGeneratedSourcesAbsolutePath(), source.getPath()).iterator()
-							.next();
-					if (getLog().isDebugEnabled()) {
-						getLog().debug("Generating " + absoluteTarget);
-					}
-					buildContext.removeMessages(absoluteSource);
+				if (isUpToDate(index, gendir, sourceDir, source)) {
+					getLog().debug("Skipping unchanged " + source);
+					continue;
+				}
+				modifiedSources.add(source);
+			}
+			sourcesByRoot.put(sourceDir, modifiedSources);
+		}
+		return sourcesByRoot;
+	}
 
-					if (!absoluteTarget.getParentFile().exists() && !absoluteTarget.getParentFile().mkdirs()) {
-						getLog().error("Cannot create output directory:" + absoluteTarget.getParentFile());
-						continue;
-					}
-					String className = getClassNameForSource(source.getPath());
-					ClassWithJavascript stjsClass = generator.generateJavascript(className, sourceDir);
-					if (!(stjsClass instanceof BridgeClass)) {
-						++generatedFiles;
-					}
+	/**
+	 * adds to the sources to generate the ones of the classes that extend or use statically (directly or not) the
+	 * modified classes. The dependencies are the ones stored in the .stjs files of the previous generation.
+	 */
+	private void addDependentSources(Map<File, List<File>> sourcesByRoot) throws MojoExecutionException {
+		Set<String> modifiedClasses = new HashSet<String>();
+		for (List<File> sources : sourcesByRoot.values()) {
+			for (File source : sources) {
+				modifiedClasses.add(getClassNameForSource(source.getPath()));
+			}
+		}
+		if (modifiedClasses.isEmpty()) {
+			return;
+		}
 
+		Set<String> dependents;
+		try {
+			dependents = ReverseDependencies.load(getBuildOutputDirectory()).getTransitiveDependents(modifiedClasses);
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Cannot read the dependencies of the generated classes: " + e, e);
+		}
+
+		for (String dependent : dependents) {
+			String sourcePath = dependent.replace('.', File.separatorChar) + ".java";
+			for (Map.Entry<File, List<File>> root : sourcesByRoot.entrySet()) {
+				if (sourceIndex.contains(root.getKey(), sourcePath)) {
+					getLog().debug("Generating " + sourcePath + " because one of its dependencies was modified");
+					root.getValue().add(new File(sourcePath));
+					break;
 				}
-				catch (InclusionScanException e) {
-					throw new MojoExecutionException("Cannot scan the source directory:" + e, e);
-				}
-				catch (MultipleFileGenerationException e) {
-					for (JavascriptFileGenerationException jse : e.getExceptions()) {
-						buildContext.addMessage(jse.getSourcePosition().getFile(), jse.getSourcePosition().getLine(),
-								jse.getSourcePosition().getColumn(), jse.getMessage(), BuildContext.SEVERITY_ERROR, null);
-					}
-					hasFailures = true;
-					// continue with the next file
-				}
-				catch (JavascriptFileGenerationException e) {
-					buildContext.addMessage(e.getSourcePosition().getFile(), e.getSourcePosition().getLine(), e.getSourcePosition().getColumn(),
-							e.getMessage(), BuildContext.SEVERITY_ERROR, null);
-					hasFailures = true;
-					// continue with the next file
-				}
-				catch (Exception e) {
-					// TODO - maybe should filter more here
-					buildContext.addMessage(absoluteSource, 1, 1, e.toString(), BuildContext.SEVERITY_ERROR, e);
-					hasFailures = true;
-					// throw new MojoExecutionException("Error generating javascript:" + e, e);
+			}
+		}
+	}
+
+	private boolean hasSource(String className) {
+		String sourcePath = className.replace('.', File.separatorChar) + ".java";
+		for (String sourceRoot : getCompileSourceRoots()) {
+			if (sourceIndex.contains(new File(sourceRoot), sourcePath)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private File getIncrementalIndexFile() {
+		// one index for the main sources and one for the test sources
+		return new File(project.getBuild().getDirectory(), "stjs-" + getBuildOutputDirectory().getName() + ".index");
+	}
+
+	/**
+	 * @return the index of the previous generation or null if the incremental index is disabled
+	 */
+	private IncrementalBuildIndex loadIncrementalIndex() throws MojoExecutionException {
+		if (!incrementalIndex) {
+			return null;
+		}
+		try {
+			String fingerprint = IncrementalBuildIndex.fingerprint(getClasspathElements(), getBuildOutputDirectory(), Generator.class
+					.getPackage().getImplementationVersion(), sourceEncoding, generateArrayHasOwnProperty, generateSourceMap,
+					hoistAnonymousClasses, indexedArrayLoops, truncateWithOr, languageLevel,
+					annotations == null ? null : new TreeSet<String>(annotations),
+					allowedPackages == null ? null : new TreeSet<String>(allowedPackages));
+			IncrementalBuildIndex index = new IncrementalBuildIndex(getIncrementalIndexFile(), fingerprint);
+			index.load();
+			return index;
+		}
+		catch (DependencyResolutionRequiredException e) {
+			throw new MojoExecutionException("Cannot build the classpath fingerprint " + e, e);
+		}
+		catch (IOException e) {
+			getLog().warn("Cannot read the incremental index. All the stale files will be generated: " + e);
+			return new IncrementalBuildIndex(getIncrementalIndexFile(), "");
+		}
+	}
+
+	private boolean isUpToDate(IncrementalBuildIndex index, GenerationDirectory gendir, File sourceDir, File source)
+			throws MojoExecutionException {
+		if (index == null) {
+			return false;
+		}
+		try {
+			return index.isUpToDate(source.getPath(), sourceIndex.getHash(sourceDir, source.getPath()), getJavascriptFile(gendir, source),
+					getStjsFile(source));
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Cannot check the content of the file " + source + ":" + e, e);
+		}
+	}
+
+	/**
+	 * records the sources of the classes the generator returned. When the generation of a root fails, the generator
+	 * returns nothing and all the sources of the root are removed from the index, as they may not have been generated.
+	 */
+	private void updateIncrementalIndex(IncrementalBuildIndex index, GenerationDirectory gendir, File sourceDir, List<File> sources,
+			Set<String> upToDateClasses) throws MojoExecutionException {
+		if (index == null) {
+			return;
+		}
+		for (File source : sources) {
+			if (!upToDateClasses.contains(getClassNameForSource(source.getPath()))) {
+				index.remove(source.getPath());
+				continue;
+			}
+			try {
+				index.update(source.getPath(), sourceIndex.getHash(sourceDir, source.getPath()), getJavascriptFile(gendir, source));
+			}
+			catch (IOException e) {
+				throw new MojoExecutionException("Cannot compute the hash of the file " + source + ":" + e, e);
+			}
+		}
+	}
+
+	private void storeIncrementalIndex(IncrementalBuildIndex index) {
+		if (index == null) {
+			return;
+		}
+		try {
+			index.store();
+		}
+		catch (IOException e) {
+			getLog().warn("Cannot write the incremental index: " + e);
+		}
+	}
+
+	private void writePrecompressedFiles(GenerationDirectory gendir) throws MojoExecutionException {
+		if (precompress == null || precompress.isEmpty()) {
+			return;
+		}
+		Set<PrecompressedFiles.Format> formats = new LinkedHashSet<PrecompressedFiles.Format>();
+		try {
+			for (String format : precompress) {
+				formats.add(PrecompressedFiles.Format.forName(format));
+			}
+			File stampFile = new File(project.getBuild().getDirectory(), "stjs-" + getBuildOutputDirectory().getName() + ".precompressed");
+			List<File> compressedFiles =
+					new PrecompressedFiles(formats, compressionLevel, stampFile).update(gendir.getGeneratedSourcesAbsolutePath());
+			for (File compressedFile : compressedFiles) {
+				buildContext.refresh(compressedFile);
+			}
+			getLog().info("Compressed " + compressedFiles.size() + " JavaScript files");
+		}
+		catch (IllegalArgumentException e) {
+			throw new MojoExecutionException(e.getMessage(), e);
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Cannot write the compressed files: " + e, e);
+		}
+	}
+
+	private Properties loadDependencyManifest() throws MojoExecutionException {
+		try {
+			return DependencyManifest.load(getBuildOutputDirectory());
+		}
+		catch (IOException e) {
+			getLog().warn("Cannot read the dependency manifest. It will be written again from all the .stjs files: " + e);
+			return null;
+		}
+	}
+
+	private void deleteDependencyManifest() throws MojoExecutionException {
+		try {
+			DependencyManifest.delete(getBuildOutputDirectory());
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Cannot delete the dependency manifest: " + e, e);
+		}
+	}
+
+	/**
+	 * updates the manifest of the previous build with the generated classes, and removes the classes whose source was
+	 * removed.
+	 */
+	private void writeDependencyManifest(Properties previousManifest, Set<String> generatedClasses) throws MojoExecutionException {
+		List<String> removedClasses = new ArrayList<String>();
+		if (previousManifest != null) {
+			for (String className : previousManifest.stringPropertyNames()) {
+				if (!hasSource(className)) {
+					removedClasses.add(className);
 				}
 			}
 		}
-		generator.close();
-		long t2 = System.currentTimeMillis();
-		getLog().info("Generated " + generatedFiles + " JavaScript files in " + (t2 - t1) + " ms");
-		if (generatedFiles > 0) {
-			filesGenerated(generator, gendir);
+		try {
+			File manifest = DependencyManifest.update(getBuildOutputDirectory(), previousManifest, generatedClasses, removedClasses);
+			if (manifest != null) {
+				buildContext.refresh(manifest);
+			}
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Cannot write the dependency manifest: " + e, e);
 		}
+	}
 
-		if (hasFailures) {
-			throw new MojoFailureException("Errors generating JavaScript");
+	private void writeMetricsReport(GenerationMetricsCollector metrics) {
+		if (metrics == null) {
+			return;
+		}
+		Writer writer = null;
+		try {
+			Files.createParentDirs(metricsReport);
+			writer = Files.newWriter(metricsReport, Charsets.UTF_8);
+			if (metricsReport.getName().endsWith(".csv")) {
+				metrics.writeCsv(writer);
+			} else {
+				metrics.writeJson(writer, metricsReportSize);
+			}
+			getLog().info("Generation metrics written to " + metricsReport);
+		}
+		catch (IOException e) {
+			getLog().warn("Cannot write the generation metrics: " + e);
 		}
+		finally {
+			try {
+				Closeables.close(writer, true);
+			}
+			catch (IOException e) {
+				LOG.log(Level.SEVERE, "IOException should not have been thrown.", e);
+			}
+		}
+	}
+
+	private File getJavascriptFile(GenerationDirectory gendir, File source) {
+		return new File(gendir.getGeneratedSourcesAbsolutePath(), source.getPath().substring(0, source.getPath().length() - 5) + ".js");
+	}
+
+	private File getStjsFile(File source) {
+		return new File(getBuildOutputDirectory(), source.getPath().substring(0, source.getPath().length() - 5) + ".stjs");
 	}
 
 	private void detectCycles(DirectedGraph<String, DefaultEdge> dependencyGraph) throws Exception {
@@ -370,25 +804,20 @@ abstract public class AbstractSTJSMojo extends AbstractMojo {
 		if (!pack) {
 			return;
 		}
-		OutputStream allSourcesFile = null;
-		Writer packMapStream = null;
 		ClassLoader builtProjectClassLoader = getBuiltProjectClassLoader();
 		Map<String, File> currentProjectsFiles = new HashMap<String, File>();
+		Map<String, Set<String>> packDependencies = new HashMap<String, Set<String>>();
 
 		// pack the files
 		try {
 			DirectedGraph<String, DefaultEdge> dependencyGraph = new DefaultDirectedGraph<String, DefaultEdge>(DefaultEdge.class);
-			File outputFile = new File(gendir.getGeneratedSourcesAbsolutePath(), project.getArtifactId() + ".js");
-			allSourcesFile = new BufferedOutputStream(new FileOutputStream(outputFile));
 			for (String sourceRoot : getCompileSourceRoots()) {
 				File sourceDir = new File(sourceRoot);
-				List<File> sources = new ArrayList<File>();
 				SourceMapping mapping = new SuffixMapping(".java", ".js");
-				SourceMapping stjsMapping = new SuffixMapping(".java", ".stjs");
 
 				// take all the files
-				sources = accumulateSources(gendir, sourceDir, mapping, stjsMapping, Integer.MIN_VALUE);
-				for (File source : sources) {
+				for (String sourcePath : sourceIndex.getSourcePaths(sourceDir, includes, excludes)) {
+					File source = new File(sourcePath);
 
 					File absoluteTarget = (File) mapping.getTargetFiles(gendir.getGeneratedSourcesAbsolutePath(), source.getPath()).iterator()
 							.next();
@@ -406,8 +835,11 @@ abstract public class AbstractSTJSMojo extends AbstractMojo {
 					ClassWithJavascript cjs = generator.getExistingStjsClass(builtProjectClassLoader,
 							builtProjectClassLoader.loadClass(className));
 					dependencyGraph.addVertex(className);
+					Set<String> classDependencies = new HashSet<String>();
+					packDependencies.put(className, classDependencies);
 					for (Map.Entry<ClassWithJavascript, DependencyType> dep : cjs.getDirectDependencyMap().entrySet()) {
 						if (dep.getKey() instanceof STJSClass) {
+							classDependencies.add(dep.getKey().getJavaClassName());
 							dependencyGraph.addVertex(dep.getKey().getJavaClassName());
 							if (dep.getValue() != DependencyType.OTHER) {
 								dependencyGraph.addEdge(dep.getKey().getJavaClassName(), className);
@@ -422,40 +854,147 @@ abstract public class AbstractSTJSMojo extends AbstractMojo {
 			detectCycles(dependencyGraph);
 
 			// dump all the files in the dependency order in the pack file
-			SourceMapGeneratorV3 packSourceMap = (SourceMapGeneratorV3) SourceMapGeneratorFactory.getInstance(SourceMapFormat.V3);
-
-			int currentLine = 0;
+			List<String> packedClasses = new ArrayList<String>();
 			Iterator<String> it = new TopologicalOrderIterator<String, DefaultEdge>(dependencyGraph);
 			while (it.hasNext()) {
-				File targetFile = currentProjectsFiles.get(it.next());
-				// target file is absolute
-				if (targetFile != null) {
-					// for this project's files
-					if (generateSourceMap) {
-						currentLine = SourceMapUtils.appendFileSkipSourceMap(gendir.getGeneratedSourcesAbsolutePath(), allSourcesFile,
-								targetFile, currentLine, packSourceMap, sourceEncoding);
-					} else {
-						Files.copy(targetFile, allSourcesFile);
-					}
-					allSourcesFile.flush();
+				String className = it.next();
+				// only this project's files
+				if (currentProjectsFiles.containsKey(className)) {
+					packedClasses.add(className);
 				}
 			}
-
-			if (generateSourceMap) {
-				File packMapFile = new File(gendir.getGeneratedSourcesAbsolutePath(), project.getArtifactId() + ".map");
-				packMapStream = new BufferedWriter(new FileWriter(packMapFile));
-				packSourceMap.appendTo(packMapStream, project.getArtifactId() + ".js");
-
-				allSourcesFile.write(("//# sourceMappingURL=" + project.getArtifactId() + ".map\n").getBytes());
-				allSourcesFile.flush();
+			if (packOnlyReachable) {
+				packedClasses = removeUnreachableClasses(builtProjectClassLoader, packedClasses, packDependencies, currentProjectsFiles);
 			}
+			writePackFile(gendir, project.getArtifactId(), packedClasses, currentProjectsFiles);
 
+			PackBundles bundles = null;
+			if (packEntryPoints != null && !packEntryPoints.isEmpty()) {
+				bundles = new PackBundles(project.getArtifactId(), packEntryPoints, packDependencies, packedClasses);
+			}
+			deleteStaleBundles(gendir, bundles);
+			if (bundles != null) {
+				writePackBundles(gendir, bundles, currentProjectsFiles);
+			}
 		}
 		catch (Exception ex) {
 			throw new MojoFailureException("Error when packing files:" + ex.getMessage(), ex);
 		}
+	}
+
+	/**
+	 * @return the packed classes that can be reached from the root classes, in the same order
+	 */
+	private List<String> removeUnreachableClasses(ClassLoader builtProjectClassLoader, List<String> packedClasses,
+			Map<String, Set<String>> packDependencies, Map<String, File> currentProjectsFiles) throws ClassNotFoundException,
+			MojoFailureException {
+		Set<String> roots = new HashSet<String>();
+		if (packRoots != null) {
+			for (String packRoot : packRoots) {
+				// a misspelled or renamed class would silently leave its classes out of the pack
+				if (!packedClasses.contains(packRoot)) {
+					throw new MojoFailureException("The pack root " + packRoot + " is not a packed class of the project");
+				}
+			}
+			roots.addAll(packRoots);
+		}
+		if (packEntryPoints != null) {
+			roots.addAll(packEntryPoints);
+		}
+		for (String className : packedClasses) {
+			if (PackBundles.isPackRoot(builtProjectClassLoader.loadClass(className), packRootAnnotation)) {
+				roots.add(className);
+			}
+		}
+		if (roots.isEmpty()) {
+			throw new MojoFailureException("packOnlyReachable is set, but there is no root class: add a main method, packRoots, "
+					+ "packEntryPoints or packRootAnnotation, otherwise the pack is empty");
+		}
+
+		List<String> reachableClasses = PackBundles.getReachablePackedClasses(packedClasses, packDependencies, roots);
+		long removedBytes = 0;
+		for (String className : packedClasses) {
+			if (!reachableClasses.contains(className)) {
+				getLog().debug(className + " cannot be reached from the root classes. Don't add it to the pack file");
+				removedBytes += currentProjectsFiles.get(className).length();
+			}
+		}
+		getLog().info("Packing " + reachableClasses.size() + " of " + packedClasses.size() + " classes reachable from " + roots.size()
+				+ " root classes. " + removedBytes + " bytes of unreachable classes were left out");
+		return reachableClasses;
+	}
+
+	private File getBundlesManifest(GenerationDirectory gendir) {
+		return new File(gendir.getGeneratedSourcesAbsolutePath(), project.getArtifactId() + "-bundles.json");
+	}
+
+	/**
+	 * removes the bundles written for a previous configuration of the entry points, and the manifest if there are no
+	 * bundles anymore.
+	 */
+	private void deleteStaleBundles(GenerationDirectory gendir, PackBundles bundles) throws IOException {
+		File manifest = getBundlesManifest(gendir);
+		Collection<String> currentBundles = bundles == null ? Collections.<String> emptySet() : bundles.getBundles().keySet();
+		for (File removed : PackBundles.deleteStaleBundles(gendir.getGeneratedSourcesAbsolutePath(), manifest, currentBundles)) {
+			getLog().debug("Removed the stale bundle " + removed);
+			buildContext.refresh(removed);
+		}
+		if (bundles == null && manifest.exists() && !manifest.delete()) {
+			throw new IOException("Cannot delete " + manifest);
+		}
+	}
+
+	private void writePackBundles(GenerationDirectory gendir, PackBundles bundles, Map<String, File> currentProjectsFiles)
+			throws IOException {
+		for (Map.Entry<String, List<String>> bundle : bundles.getBundles().entrySet()) {
+			writePackFile(gendir, bundle.getKey(), bundle.getValue(), currentProjectsFiles);
+		}
+		Writer manifestWriter = Files.newWriter(getBundlesManifest(gendir), Charsets.UTF_8);
+		try {
+			bundles.writeManifest(manifestWriter);
+		}
 		finally {
+			Closeables.close(manifestWriter, true);
+		}
+	}
+
+	/**
+	 * writes the given classes, in the given order, in the file &lt;name&gt;.js and, if needed, its source map
+	 * &lt;name&gt;.map
+	 */
+	private void writePackFile(GenerationDirectory gendir, String name, List<String> classNames, Map<String, File> currentProjectsFiles)
+			throws IOException {
+		FileOutputStream allSourcesFile = null;
+		Writer packMapStream = null;
+		try {
+			File outputFile = new File(gendir.getGeneratedSourcesAbsolutePath(), name + ".js");
+			allSourcesFile = new FileOutputStream(outputFile);
+			FileChannel pack = allSourcesFile.getChannel();
+			List<SourceMapSection> packSourceMapSections = new ArrayList<SourceMapSection>();
+
+			int currentLine = 0;
+			for (String className : classNames) {
+				// target file is absolute
+				File targetFile = currentProjectsFiles.get(className);
+				if (generateSourceMap) {
+					currentLine = SourceMapUtils.appendFileSkipSourceMap(gendir.getGeneratedSourcesAbsolutePath(), pack, targetFile,
+							currentLine, packSourceMapSections, sourceEncoding);
+				} else {
+					SourceMapUtils.appendFile(pack, targetFile);
+				}
+			}
+
+			if (generateSourceMap) {
+				File packMapFile = new File(gendir.getGeneratedSourcesAbsolutePath(), name + ".map");
+				packMapStream = Files.newWriter(packMapFile, Charsets.UTF_8);
+				// an index map, whose sections are the maps of the packed files
+				SourceMapGeneratorV3 packSourceMap = (SourceMapGeneratorV3) SourceMapGeneratorFactory.getInstance(SourceMapFormat.V3);
+				packSourceMap.appendIndexMapTo(packMapStream, name + ".js", packSourceMapSections);
 
+				pack.write(ByteBuffer.wrap(("//# sourceMappingURL=" + name + ".map\n").getBytes(Charsets.UTF_8)));
+			}
+		}
+		finally {
 			try {
 				Closeables.close(allSourcesFile, true);
 			}
@@ -470,7 +1009,6 @@ abstract public class AbstractSTJSMojo extends AbstractMojo {
 				LOG.log(Level.SEVERE, "IOException should not have been thrown.", e);
 			}
 		}
-
 	}
 
 	/**
@@ -502,36 +1040,6 @@ abstract public class AbstractSTJSMojo extends AbstractMojo {
 
 	}
 
-	/**
-	 * @return the list of Java source files to processed (those which are older than the corresponding Javascript
-	 *         file). The returned files are relative to the given source directory.
-	 */
-	private Collection<String> accumulatePackages(File sourceDir) throws MojoExecutionException {
-		final Collection<String> result = new HashSet<String>();
-		if (sourceDir == null || !sourceDir.exists()) {
-			return result;
-		}
-
-		DirectoryScanner ds = new DirectoryScanner();
-		ds.setFollowSymlinks(true);
-		ds.addDefaultExcludes();
-		ds.setBasedir(sourceDir);
-		ds.setIncludes(new String[]{ "**/*.java" });
-		ds.scan();
-		for (String fileName : ds.getIncludedFiles()) {
-			File file = new File(fileName);
-			// Supports classes without packages
-			result.add(file.getParent() == null ? "" : file.getParent().replace(File.separatorChar, '.'));
-		}
-
-		/*
-		 * // Trim root path from file paths for (File file : staleFiles) { String filePath = file.getPath(); String
-		 * basePath = sourceDir.getAbsoluteFile().toString(); result.add(new File(filePath.substring(basePath.length() +
-		 * 1))); }
-		 */
-		return result;
-	}
-
 	private String getClassNameForSource(String sourcePath) {
 		// remove ending .java and replace / by .
 		return sourcePath.substring(0, sourcePath.length() - 5).replace(File.separatorChar, '.');
@@ -541,34 +1049,28 @@ abstract public class AbstractSTJSMojo extends AbstractMojo {
 	 * @return the list of Java source files to processed (those which are older than the corresponding Javascript
 	 *         file). The returned files are relative to the given source directory.
 	 */
-	@SuppressWarnings("unchecked")
 	private List<File> accumulateSources(GenerationDirectory gendir, File sourceDir, SourceMapping jsMapping, SourceMapping stjsMapping,
 			int stale) throws MojoExecutionException {
 		final List<File> result = new ArrayList<File>();
 		if (sourceDir == null || !sourceDir.exists()) {
 			return result;
 		}
-		SourceInclusionScanner jsScanner = getSourceInclusionScanner(stale);
+		List<String> sourcePaths = sourceIndex.getSourcePaths(sourceDir, includes, excludes);
+
+		StaleClassSourceScanner jsScanner = new StaleClassSourceScanner(stale, getBuildOutputDirectory());
 		jsScanner.addSourceMapping(jsMapping);
 
-		SourceInclusionScanner stjsScanner = getSourceInclusionScanner(stale);
+		StaleClassSourceScanner stjsScanner = new StaleClassSourceScanner(stale, getBuildOutputDirectory());
 		stjsScanner.addSourceMapping(stjsMapping);
 
 		final Set<File> staleFiles = new LinkedHashSet<File>();
-
-		for (File f : sourceDir.listFiles()) {
-			if (!f.isDirectory()) {
-				continue;
-			}
-
-			try {
-				staleFiles.addAll(jsScanner.getIncludedSources(f.getParentFile(), gendir.getGeneratedSourcesAbsolutePath()));
-				staleFiles.addAll(stjsScanner.getIncludedSources(f.getParentFile(), getBuildOutputDirectory()));
-			}
-			catch (InclusionScanException e) {
-				throw new MojoExecutionException(
-						"Error scanning source root: \'" + sourceDir.getPath() + "\' " + "for stale files to recompile.", e);
-			}
+		try {
+			staleFiles.addAll(jsScanner.getStaleSources(sourceDir, sourcePaths, gendir.getGeneratedSourcesAbsolutePath()));
+			staleFiles.addAll(stjsScanner.getStaleSources(sourceDir, sourcePaths, getBuildOutputDirectory()));
+		}
+		catch (InclusionScanException e) {
+			throw new MojoExecutionException("Error scanning source root: \'" + sourceDir.getPath() + "\' " + "for stale files to recompile.",
+					e);
 		}
 
 		// Trim root path from file paths
@@ -580,28 +1082,4 @@ abstract public class AbstractSTJSMojo extends AbstractMojo {
 		return result;
 	}
 
-	/**
-	 * <p>
-	 * getSourceInclusionScanner.
-	 * </p>
-	 *
-	 * @param staleMillis
-	 *            a int.
-	 * @return a {@link org.codehaus.plexus.compiler.util.scan.SourceInclusionScanner} object.
-	 */
-	protected SourceInclusionScanner getSourceInclusionScanner(int staleMillis) {
-		SourceInclusionScanner scanner;
-
-		if (includes.isEmpty() && excludes.isEmpty()) {
-			scanner = new StaleClassSourceScanner(staleMillis, getBuildOutputDirectory());
-		} else {
-			if (includes.isEmpty()) {
-				includes.add("**/*.java");
-			}
-			scanner = new StaleClassSourceScanner(staleMillis, includes, excludes, getBuildOutputDirectory());
-		}
-
-		return scanner;
-	}
-
 }
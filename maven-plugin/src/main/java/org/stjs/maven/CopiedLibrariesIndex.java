@@ -0,0 +1,173 @@
+/**
+ * Copyright 2011 Alexandru Craciun, Eyal Kaspi
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stjs.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+/**
+ * This class keeps, between two builds of the copy-js goal, the size and the modification date of each jar of the
+ * classpath, with the files that were copied from it. The jars that did not change since the last build are not opened
+ * again, and the files copied from the jars that were changed or removed since, and that are not copied anymore, can be
+ * deleted. The whole index is discarded when the destination folder changes.
+ * <p>
+ * The index is stored as a text file: a header line with the destination folder, followed by one line per jar with its
+ * path, its size, its modification date and the paths of the copied files, relative to the destination folder.
+ *
+ * @version $Id: $Id
+ */
+public class CopiedLibrariesIndex {
+	private static final String HEADER = "#stjs-copy-1 ";
+	private static final char SEPARATOR = '\t';
+	private static final int JAR_FIELDS = 3;
+	private static final Charset CHARSET = Charsets.UTF_8;
+
+	private final File indexFile;
+	private final File destination;
+	private final Map<String, Entry> entries = new TreeMap<String, Entry>();
+
+	/**
+	 * <p>
+	 * Constructor for CopiedLibrariesIndex.
+	 * </p>
+	 *
+	 * @param indexFile
+	 *            the file where the index is stored
+	 * @param destination
+	 *            the folder where the files of the jars are copied
+	 */
+	public CopiedLibrariesIndex(File indexFile, File destination) {
+		this.indexFile = indexFile;
+		this.destination = destination;
+	}
+
+	/**
+	 * loads the index from its file. The index stays empty if the file does not exist, if it was built for a different
+	 * destination folder or if it is corrupt, so all the jars are copied again.
+	 *
+	 * @throws java.io.IOException
+	 *             if any.
+	 */
+	public void load() throws IOException {
+		entries.clear();
+		if (!indexFile.exists()) {
+			return;
+		}
+		List<String> lines = Files.readLines(indexFile, CHARSET);
+		if (lines.isEmpty() || !lines.get(0).equals(HEADER + destination.getAbsolutePath())) {
+			return;
+		}
+		for (String line : lines.subList(1, lines.size())) {
+			String[] parts = line.split(String.valueOf(SEPARATOR), -1);
+			if (parts.length < JAR_FIELDS) {
+				continue;
+			}
+			try {
+				List<String> files = Arrays.asList(parts).subList(JAR_FIELDS, parts.length);
+				entries.put(parts[0], new Entry(Long.parseLong(parts[1]), Long.parseLong(parts[2]), files));
+			}
+			catch (NumberFormatException e) {
+				// a truncated or modified file: nothing in it can be trusted
+				entries.clear();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * writes the index in its file.
+	 *
+	 * @throws java.io.IOException
+	 *             if any.
+	 */
+	public void store() throws IOException {
+		StringBuilder content = new StringBuilder();
+		content.append(HEADER).append(destination.getAbsolutePath()).append('\n');
+		for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+			content.append(entry.getKey()).append(SEPARATOR).append(entry.getValue().size).append(SEPARATOR)
+					.append(entry.getValue().lastModified);
+			for (String file : entry.getValue().files) {
+				content.append(SEPARATOR).append(file);
+			}
+			content.append('\n');
+		}
+		Files.createParentDirs(indexFile);
+		Files.write(content, indexFile, CHARSET);
+	}
+
+	/**
+	 * @param jar
+	 *            a jar of the classpath
+	 * @return the files copied from the given jar, if the jar did not change since and if these files still exist, or
+	 *         null if the jar must be copied again
+	 */
+	public List<String> getCopiedFiles(File jar) {
+		Entry entry = entries.get(jar.getAbsolutePath());
+		if (entry == null || entry.size != jar.length() || entry.lastModified != jar.lastModified()) {
+			return null;
+		}
+		for (String file : entry.files) {
+			if (!new File(destination, file).exists()) {
+				return null;
+			}
+		}
+		return entry.files;
+	}
+
+	/**
+	 * records the files copied from the given jar.
+	 *
+	 * @param jar
+	 *            a jar of the classpath
+	 * @param files
+	 *            the paths of the copied files, relative to the destination folder. The list is empty if the jar is not
+	 *            a ST-JS library.
+	 */
+	public void update(File jar, List<String> files) {
+		entries.put(jar.getAbsolutePath(), new Entry(jar.length(), jar.lastModified(), files));
+	}
+
+	/**
+	 * @return the paths of all the copied files, relative to the destination folder
+	 */
+	public Set<String> getAllCopiedFiles() {
+		Set<String> files = new HashSet<String>();
+		for (Entry entry : entries.values()) {
+			files.addAll(entry.files);
+		}
+		return Collections.unmodifiableSet(files);
+	}
+
+	private static final class Entry {
+		private final long size;
+		private final long lastModified;
+		private final List<String> files;
+
+		private Entry(long size, long lastModified, List<String> files) {
+			this.size = size;
+			this.lastModified = lastModified;
+			this.files = files;
+		}
+	}
+}
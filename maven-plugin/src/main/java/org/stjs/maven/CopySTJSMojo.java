@@ -18,9 +18,10 @@ package org.stjs.maven;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
-import java.net.URL;
+import java.util.Collections;
 import java.util.List;
-import java.util.jar.JarInputStream;
+import java.util.Set;
+import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 
 import org.apache.maven.plugin.AbstractMojo;
@@ -73,41 +74,101 @@ public class CopySTJSMojo extends AbstractMojo {
 		getLog().info("Copying javascript files from dependencies to this artifact");
 
 		try {
-			FilenameFilter skipClasses = new FilenameFilter() {
-				@Override
-				public boolean accept(File dir, String name) {
-					name = name.toLowerCase();
-					return !name.endsWith(".class");
-				}
-			};
-
 			@SuppressWarnings("unchecked")
 			List<String> runtimeClasspathElements = project.getCompileClasspathElements();
-			for (int i = 0; i < runtimeClasspathElements.size(); i++) {
-				String element = runtimeClasspathElements.get(i);
-				URL dep = new File(element).toURI().toURL();
+			int copiedJars = copyLibraries(runtimeClasspathElements, generatedSourcesDirectory, getCopiedLibrariesIndexFile());
+			getLog().info("Copied the files of " + copiedJars + " changed jars");
+		}
+		catch (Exception ex) {
+			throw new MojoExecutionException("Cannot copy the Javascript files of the dependencies:" + ex, ex);
+		}
+
+	}
+
+	private File getCopiedLibrariesIndexFile() {
+		return new File(project.getBuild().getDirectory(), "stjs-copy-js.index");
+	}
+
+	/**
+	 * copies the files of the ST-JS libraries of the classpath that changed since the last build, and removes the files
+	 * of the libraries that were removed from the classpath.
+	 *
+	 * @return the number of jars whose files were copied
+	 */
+	int copyLibraries(List<String> classpathElements, File destination, File indexFile) throws IOException {
+		FilenameFilter skipClasses = new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				name = name.toLowerCase();
+				return !name.endsWith(".class");
+			}
+		};
+
+		CopiedLibrariesIndex previousIndex = new CopiedLibrariesIndex(indexFile, destination);
+		try {
+			previousIndex.load();
+		}
+		catch (IOException e) {
+			getLog().warn("Cannot read the index of the copied libraries. All the libraries will be copied: " + e);
+		}
+		CopiedLibrariesIndex index = new CopiedLibrariesIndex(indexFile, destination);
+
+		int copiedJars = 0;
+		for (String classpathElement : classpathElements) {
+			File dep = new File(classpathElement);
+			if (!dep.getName().endsWith(".jar")) {// TODO: is this enough !?
+				continue;
+			}
+			List<String> copiedFiles = previousIndex.getCopiedFiles(dep);
+			if (copiedFiles == null) {
 				try {
-					if (dep.getPath().endsWith(".jar")) {// TODO: is this enough !?
-						Manifest manifest = new JarInputStream(dep.openStream()).getManifest();
-						if (manifest != null) {
-							String isStjsLibrary = manifest.getMainAttributes().getValue(STJS_LIBRARY_ENTRY);
-							if ("true".equals(isStjsLibrary)) {
-								// these are directories relative to the jar's root
-								URL jsDirectoryURL = new URL("jar:" + dep + "!/");
-								getLog().info("Copy directory:" + jsDirectoryURL);
-								FileCopier.copyResourcesRecursively(jsDirectoryURL, generatedSourcesDirectory, skipClasses);
-							}
-						}
-					}
+					copiedFiles = copyLibrary(dep, destination, skipClasses);
+					copiedJars++;
 				}
 				catch (IOException notfound) {
 					// skip to the next
+					continue;
 				}
 			}
+			index.update(dep, copiedFiles);
 		}
-		catch (Exception ex) {
-			throw new MojoExecutionException("Cannot get builtProjectClassLoader:" + ex, ex);
+
+		removeStaleFiles(previousIndex, index, destination);
+		index.store();
+		return copiedJars;
+	}
+
+	/**
+	 * @return the files copied from the given jar, or an empty list if the jar is not a ST-JS library
+	 */
+	private List<String> copyLibrary(File dep, File destination, FilenameFilter filter) throws IOException {
+		JarFile jarFile = new JarFile(dep);
+		try {
+			Manifest manifest = jarFile.getManifest();
+			if (manifest == null || !"true".equals(manifest.getMainAttributes().getValue(STJS_LIBRARY_ENTRY))) {
+				return Collections.emptyList();
+			}
+			getLog().info("Copy jar:" + dep);
+			return FileCopier.copyJarEntries(jarFile, destination, filter);
+		}
+		finally {
+			jarFile.close();
 		}
+	}
 
+	/**
+	 * removes the files that were copied from the jars that changed or that were removed from the classpath, and that
+	 * are not copied anymore from any jar
+	 */
+	private void removeStaleFiles(CopiedLibrariesIndex previousIndex, CopiedLibrariesIndex index, File destination) {
+		Set<String> currentFiles = index.getAllCopiedFiles();
+		for (String file : previousIndex.getAllCopiedFiles()) {
+			if (!currentFiles.contains(file)) {
+				File staleFile = new File(destination, file);
+				if (staleFile.exists() && !staleFile.delete()) {
+					getLog().warn("Cannot delete the stale file:" + staleFile);
+				}
+			}
+		}
 	}
 }
@@ -11,7 +11,10 @@ import java.io.OutputStream;
 import java.net.JarURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
@@ -106,6 +109,38 @@ public class FileCopier {
 		return true;
 	}
 
+	/**
+	 * copies the entries of the given jar that are accepted by the filter to the given folder, keeping their path inside the jar.
+	 *
+	 * @param jarFile a {@link java.util.jar.JarFile} object.
+	 * @param destDir a {@link java.io.File} object.
+	 * @param filter a {@link java.io.FilenameFilter} object.
+	 * @return the paths of the copied entries, relative to the folder
+	 * @throws java.io.IOException if any.
+	 */
+	public static List<String> copyJarEntries(JarFile jarFile, File destDir, FilenameFilter filter) throws IOException {
+		List<String> copied = new ArrayList<String>();
+		for (final Enumeration<JarEntry> e = jarFile.entries(); e.hasMoreElements();) {
+			final JarEntry entry = e.nextElement();
+			if (entry.isDirectory() || !filter.accept(destDir, entry.getName())) {
+				continue;
+			}
+			final File f = new File(destDir, entry.getName());
+			if (!ensureDirectoryExists(f.getParentFile())) {
+				throw new IOException("Could not create directory: " + f.getParentFile().getAbsolutePath());
+			}
+			final InputStream entryInputStream = jarFile.getInputStream(entry);
+			try {
+				java.nio.file.Files.copy(entryInputStream, f.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			finally {
+				entryInputStream.close();
+			}
+			copied.add(entry.getName());
+		}
+		return copied;
+	}
+
 	/**
 	 * <p>copyResourcesRecursively.</p>
 	 *
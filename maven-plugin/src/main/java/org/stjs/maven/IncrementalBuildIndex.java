@@ -0,0 +1,230 @@
+/**
+ * Copyright 2011 Alexandru Craciun, Eyal Kaspi
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stjs.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.stjs.generator.DependencyManifest;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+/**
+ * This class keeps, between two builds, the content hash of each Java source file that was generated and the hash of the
+ * corresponding Javascript file. It is used to skip the sources that are stale only because of their timestamps (for
+ * example after a fresh checkout with a cached target folder). The whole index is discarded when the fingerprint of the
+ * classpath and of the generation options changes.
+ * <p>
+ * The index is stored as a text file: a header line with the fingerprint, followed by one line per source file with
+ * its path (relative to its source root), its hash and the hash of the generated Javascript file (empty for bridges).
+ *
+ * @version $Id: $Id
+ */
+public class IncrementalBuildIndex {
+	private static final String HEADER = "#stjs-index-1 ";
+	private static final char SEPARATOR = '\t';
+	private static final Charset CHARSET = Charsets.UTF_8;
+	private static final HashFunction HASH = Hashing.sha1();
+
+	private final File indexFile;
+	private final String fingerprint;
+	private final Map<String, Entry> entries = new TreeMap<String, Entry>();
+
+	/**
+	 * <p>
+	 * Constructor for IncrementalBuildIndex.
+	 * </p>
+	 *
+	 * @param indexFile
+	 *            the file where the index is stored
+	 * @param fingerprint
+	 *            the fingerprint of the classpath and of the options used for the generation
+	 */
+	public IncrementalBuildIndex(File indexFile, String fingerprint) {
+		this.indexFile = indexFile;
+		this.fingerprint = fingerprint;
+	}
+
+	/**
+	 * builds the fingerprint of the given classpath and generation options. The jars are identified by their path, size
+	 * and modification date. The folders (for example the classes of the other modules of a reactor build) are identified
+	 * by the content of the files having an influence on the generation: the classes, with their annotations, the .stjs
+	 * files and the dependency manifest. Only the path of the output folder of the generation is taken into account, as
+	 * the generation itself writes in it and its classes are checked source by source.
+	 *
+	 * @param classpathElements
+	 *            a {@link java.util.List} object.
+	 * @param outputDirectory
+	 *            the folder where the generated classes are
+	 * @param options
+	 *            the generation options that have an influence on the generated code
+	 * @return a {@link java.lang.String} object.
+	 * @throws java.io.IOException
+	 *             if a file of a classpath folder cannot be read
+	 */
+	public static String fingerprint(List<String> classpathElements, File outputDirectory, Object... options) throws IOException {
+		Hasher hasher = HASH.newHasher();
+		for (String element : classpathElements) {
+			File file = new File(element);
+			hasher.putString(element, CHARSET);
+			if (file.isFile()) {
+				hasher.putLong(file.length()).putLong(file.lastModified());
+			} else if (file.isDirectory() && !file.getAbsoluteFile().equals(outputDirectory.getAbsoluteFile())) {
+				putFolderContent(hasher, file);
+			}
+		}
+		for (Object option : options) {
+			hasher.putString(String.valueOf(option), CHARSET);
+		}
+		return hasher.hash().toString();
+	}
+
+	private static void putFolderContent(Hasher hasher, File folder) throws IOException {
+		// sorted, as the order of the files in a folder depends on the file system
+		Map<String, File> files = new TreeMap<String, File>();
+		int prefixLength = folder.getAbsolutePath().length() + 1;
+		for (File file : Files.fileTreeTraverser().preOrderTraversal(folder.getAbsoluteFile())) {
+			if (!file.isFile()) {
+				continue;
+			}
+			String path = file.getAbsolutePath().substring(prefixLength).replace(File.separatorChar, '/');
+			if (path.endsWith(".class") || path.endsWith(".stjs") || path.equals(DependencyManifest.MANIFEST_FILE)) {
+				files.put(path, file);
+			}
+		}
+		for (Map.Entry<String, File> entry : files.entrySet()) {
+			hasher.putString(entry.getKey(), CHARSET);
+			hasher.putBytes(Files.hash(entry.getValue(), HASH).asBytes());
+		}
+	}
+
+	/**
+	 * loads the index from its file. The index stays empty if the file does not exist or if it was built with a
+	 * different fingerprint.
+	 *
+	 * @throws java.io.IOException
+	 *             if any.
+	 */
+	public void load() throws IOException {
+		entries.clear();
+		if (!indexFile.exists()) {
+			return;
+		}
+		List<String> lines = Files.readLines(indexFile, CHARSET);
+		if (lines.isEmpty() || !lines.get(0).equals(HEADER + fingerprint)) {
+			return;
+		}
+		for (String line : lines.subList(1, lines.size())) {
+			String[] parts = line.split(String.valueOf(SEPARATOR), -1);
+			if (parts.length == 3) {
+				entries.put(parts[0], new Entry(parts[1], parts[2]));
+			}
+		}
+	}
+
+	/**
+	 * writes the index in its file.
+	 *
+	 * @throws java.io.IOException
+	 *             if any.
+	 */
+	public void store() throws IOException {
+		StringBuilder content = new StringBuilder();
+		content.append(HEADER).append(fingerprint).append('\n');
+		for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+			content.append(entry.getKey()).append(SEPARATOR).append(entry.getValue().sourceHash).append(SEPARATOR)
+					.append(entry.getValue().outputHash).append('\n');
+		}
+		Files.createParentDirs(indexFile);
+		Files.write(content, indexFile, CHARSET);
+	}
+
+	/**
+	 * checks if the given source has the same content as the one of the last generation and if the generated files were
+	 * not modified since.
+	 *
+	 * @param sourcePath
+	 *            the path of the source, relative to its source root
+	 * @param sourceHash
+	 *            the content hash of the source file
+	 * @param jsFile
+	 *            the generated Javascript file
+	 * @param stjsFile
+	 *            the generated .stjs file
+	 * @return true if the source does not need to be generated again
+	 * @throws java.io.IOException
+	 *             if any.
+	 */
+	public boolean isUpToDate(String sourcePath, String sourceHash, File jsFile, File stjsFile) throws IOException {
+		Entry entry = entries.get(sourcePath);
+		if (entry == null || !entry.sourceHash.equals(sourceHash) || !entry.outputHash.equals(hash(jsFile))) {
+			return false;
+		}
+		// bridges don't have any generated file
+		return entry.outputHash.isEmpty() || stjsFile.exists();
+	}
+
+	/**
+	 * records the hashes of a source that was just generated.
+	 *
+	 * @param sourcePath
+	 *            the path of the source, relative to its source root
+	 * @param sourceHash
+	 *            the content hash of the source file
+	 * @param jsFile
+	 *            the generated Javascript file
+	 * @throws java.io.IOException
+	 *             if any.
+	 */
+	public void update(String sourcePath, String sourceHash, File jsFile) throws IOException {
+		entries.put(sourcePath, new Entry(sourceHash, hash(jsFile)));
+	}
+
+	/**
+	 * forgets the given source, so that it's generated again the next time.
+	 *
+	 * @param sourcePath
+	 *            the path of the source, relative to its source root
+	 */
+	public void remove(String sourcePath) {
+		entries.remove(sourcePath);
+	}
+
+	/**
+	 * @return the content hash of the given file, or an empty string if the file does not exist
+	 */
+	static String hash(File file) throws IOException {
+		if (!file.exists()) {
+			return "";
+		}
+		return Files.hash(file, HASH).toString();
+	}
+
+	private static final class Entry {
+		private final String sourceHash;
+		private final String outputHash;
+
+		private Entry(String sourceHash, String outputHash) {
+			this.sourceHash = sourceHash;
+			this.outputHash = outputHash;
+		}
+	}
+}
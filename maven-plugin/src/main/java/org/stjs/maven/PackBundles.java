@@ -0,0 +1,319 @@
+/**
+ * Copyright 2011 Alexandru Craciun, Eyal Kaspi
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stjs.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * This class splits the packed classes of a project in bundles, starting from the classes used as entry points by the
+ * pages of the application. Each entry point gets a bundle with the classes that only this entry point needs, and the
+ * classes needed by several entry points go to a shared bundle, one for each group of entry points needing them. A
+ * page loads the shared bundles of its entry point, then the bundle of the entry point.
+ * <p>
+ * The bundle of an entry point is named &lt;artifactId&gt;-&lt;entry point class&gt;, and a shared bundle is named
+ * &lt;artifactId&gt;-shared-&lt;indexes of the entry points&gt;, the indexes being the positions of the entry points in
+ * the configuration.
+ *
+ * @version $Id: $Id
+ */
+public class PackBundles {
+	private final List<String> entryPoints;
+
+	/** the classes of each bundle, in the dependency order */
+	private final Map<String, List<String>> bundles = new LinkedHashMap<String, List<String>>();
+
+	/** the entry points needing each bundle */
+	private final Map<String, BitSet> bundleEntryPoints = new HashMap<String, BitSet>();
+
+	/**
+	 * <p>
+	 * Constructor for PackBundles.
+	 * </p>
+	 *
+	 * @param name
+	 *            the name of the pack, i.e. the artifactId of the project
+	 * @param entryPoints
+	 *            the names of the entry point classes
+	 * @param dependencies
+	 *            the classes each class of the pack needs, of any dependency type
+	 * @param packedClasses
+	 *            the classes of the pack, in the dependency order
+	 */
+	public PackBundles(String name, List<String> entryPoints, Map<String, ? extends Collection<String>> dependencies,
+			List<String> packedClasses) {
+		this.entryPoints = entryPoints;
+
+		List<Set<String>> reachable = new ArrayList<Set<String>>(entryPoints.size());
+		for (String entryPoint : entryPoints) {
+			if (!packedClasses.contains(entryPoint)) {
+				throw new IllegalArgumentException("The entry point " + entryPoint + " is not a packed class of the project");
+			}
+			reachable.add(getReachableClasses(dependencies, Collections.singleton(entryPoint)));
+		}
+
+		for (String className : packedClasses) {
+			BitSet neededBy = new BitSet(entryPoints.size());
+			for (int i = 0; i < entryPoints.size(); ++i) {
+				if (reachable.get(i).contains(className)) {
+					neededBy.set(i);
+				}
+			}
+			if (neededBy.isEmpty()) {
+				// not used by any page
+				continue;
+			}
+			String bundle = getBundleName(name, neededBy);
+			List<String> classes = bundles.get(bundle);
+			if (classes == null) {
+				classes = new ArrayList<String>();
+				bundles.put(bundle, classes);
+				bundleEntryPoints.put(bundle, neededBy);
+			}
+			classes.add(className);
+		}
+	}
+
+	private String getBundleName(String name, BitSet neededBy) {
+		if (neededBy.cardinality() == 1) {
+			return name + "-" + entryPoints.get(neededBy.nextSetBit(0));
+		}
+		StringBuilder bundle = new StringBuilder(name).append("-shared");
+		for (int i = neededBy.nextSetBit(0); i >= 0; i = neededBy.nextSetBit(i + 1)) {
+			bundle.append('-').append(i);
+		}
+		return bundle.toString();
+	}
+
+	/**
+	 * @param dependencies
+	 *            the classes each class needs, of any dependency type
+	 * @param roots
+	 *            the classes to start from
+	 * @return the given classes and all the classes they need, directly or not
+	 */
+	public static Set<String> getReachableClasses(Map<String, ? extends Collection<String>> dependencies, Collection<String> roots) {
+		Set<String> reachable = new HashSet<String>(roots);
+		Deque<String> toVisit = new ArrayDeque<String>(reachable);
+		while (!toVisit.isEmpty()) {
+			Collection<String> classDependencies = dependencies.get(toVisit.pop());
+			if (classDependencies == null) {
+				// a class of another library
+				continue;
+			}
+			for (String dependency : classDependencies) {
+				if (reachable.add(dependency)) {
+					toVisit.push(dependency);
+				}
+			}
+		}
+		return reachable;
+	}
+
+	/**
+	 * @param packedClasses
+	 *            the classes of the pack, in the dependency order
+	 * @param dependencies
+	 *            the classes each class needs, of any dependency type
+	 * @param roots
+	 *            the classes to start from
+	 * @return the packed classes that can be reached from the root classes, in the same order
+	 */
+	public static List<String> getReachablePackedClasses(List<String> packedClasses, Map<String, ? extends Collection<String>> dependencies,
+			Collection<String> roots) {
+		Set<String> reachable = getReachableClasses(dependencies, roots);
+		List<String> reachableClasses = new ArrayList<String>();
+		for (String className : packedClasses) {
+			if (reachable.contains(className)) {
+				reachableClasses.add(className);
+			}
+		}
+		return reachableClasses;
+	}
+
+	/**
+	 * the main method of a class is called when its JavaScript file is loaded, so the class is needed.
+	 *
+	 * @param clazz
+	 *            a packed class
+	 * @param rootAnnotation
+	 *            the name of the annotation marking the root classes, or null
+	 * @return true if the class has a main(String[]) method or the given annotation
+	 */
+	public static boolean isPackRoot(Class<?> clazz, String rootAnnotation) {
+		for (Method method : clazz.getDeclaredMethods()) {
+			if (Modifier.isStatic(method.getModifiers()) && "main".equals(method.getName())
+					&& Arrays.equals(method.getParameterTypes(), new Class<?>[]{ String[].class })) {
+				return true;
+			}
+		}
+		if (rootAnnotation != null) {
+			for (Annotation annotation : clazz.getAnnotations()) {
+				if (annotation.annotationType().getName().equals(rootAnnotation)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the classes of each bundle, in the dependency order
+	 */
+	public Map<String, List<String>> getBundles() {
+		return Collections.unmodifiableMap(bundles);
+	}
+
+	/**
+	 * @param entryPoint
+	 *            the name of an entry point class
+	 * @return the bundles to load for the given entry point, in the loading order
+	 * @throws java.lang.IllegalArgumentException
+	 *             if the class is not an entry point of the bundles
+	 */
+	public List<String> getBundlesToLoad(String entryPoint) {
+		int index = entryPoints.indexOf(entryPoint);
+		if (index < 0) {
+			throw new IllegalArgumentException("The class " + entryPoint + " is not an entry point of the bundles");
+		}
+		List<String> toLoad = new ArrayList<String>();
+		for (Map.Entry<String, BitSet> entry : bundleEntryPoints.entrySet()) {
+			if (entry.getValue().get(index)) {
+				toLoad.add(entry.getKey());
+			}
+		}
+		// the classes of a bundle only need classes of bundles shared by more entry points
+		Collections.sort(toLoad, new Comparator<String>() {
+			@Override
+			public int compare(String bundle1, String bundle2) {
+				int cmp = Integer.compare(bundleEntryPoints.get(bundle2).cardinality(), bundleEntryPoints.get(bundle1).cardinality());
+				return cmp != 0 ? cmp : bundle1.compareTo(bundle2);
+			}
+		});
+		return toLoad;
+	}
+
+	/**
+	 * writes the manifest of the bundles as a JSON object, listing the bundles to load for each entry point and the
+	 * classes of each bundle.
+	 *
+	 * @param writer
+	 *            a {@link java.io.Writer} object.
+	 * @throws java.io.IOException
+	 *             if any.
+	 */
+	public void writeManifest(Writer writer) throws IOException {
+		JsonObject entryPointsJson = new JsonObject();
+		for (String entryPoint : entryPoints) {
+			entryPointsJson.add(entryPoint, jsonArray(getBundlesToLoad(entryPoint), ".js"));
+		}
+		JsonObject bundlesJson = new JsonObject();
+		for (Map.Entry<String, List<String>> bundle : bundles.entrySet()) {
+			bundlesJson.add(bundle.getKey() + ".js", jsonArray(bundle.getValue(), ""));
+		}
+		JsonObject manifest = new JsonObject();
+		manifest.add("entryPoints", entryPointsJson);
+		manifest.add("bundles", bundlesJson);
+		try {
+			new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(manifest, writer);
+		}
+		catch (JsonIOException e) {
+			throw new IOException("Cannot write the manifest of the bundles:" + e, e);
+		}
+		writer.write('\n');
+	}
+
+	/**
+	 * removes from the given folder the bundles listed in the manifest of a previous build that are not bundles anymore,
+	 * for example after a change of the entry points.
+	 *
+	 * @param folder
+	 *            the folder of the bundles
+	 * @param manifest
+	 *            the manifest written by the previous build
+	 * @param currentBundles
+	 *            the names of the current bundles
+	 * @return the removed files
+	 * @throws java.io.IOException
+	 *             if the manifest cannot be read or a bundle cannot be removed
+	 */
+	public static List<File> deleteStaleBundles(File folder, File manifest, Collection<String> currentBundles) throws IOException {
+		List<File> removed = new ArrayList<File>();
+		if (!manifest.exists()) {
+			return removed;
+		}
+		JsonObject previousBundles;
+		try {
+			previousBundles = new JsonParser().parse(Files.toString(manifest, Charsets.UTF_8)).getAsJsonObject().getAsJsonObject("bundles");
+		}
+		catch (JsonParseException | IllegalStateException e) {
+			throw new IOException("Cannot read the bundles of " + manifest + ":" + e, e);
+		}
+		if (previousBundles == null) {
+			return removed;
+		}
+		for (Map.Entry<String, JsonElement> bundle : previousBundles.entrySet()) {
+			String bundleName = Files.getNameWithoutExtension(bundle.getKey());
+			if (currentBundles.contains(bundleName)) {
+				continue;
+			}
+			for (String extension : new String[]{ ".js", ".map" }) {
+				File file = new File(folder, bundleName + extension);
+				if (file.exists()) {
+					if (!file.delete()) {
+						throw new IOException("Cannot delete " + file);
+					}
+					removed.add(file);
+				}
+			}
+		}
+		return removed;
+	}
+
+	private static JsonArray jsonArray(List<String> values, String suffix) {
+		JsonArray array = new JsonArray();
+		for (String value : values) {
+			array.add(new JsonPrimitive(value + suffix));
+		}
+		return array;
+	}
+}
@@ -0,0 +1,260 @@
+/**
+ * Copyright 2011 Alexandru Craciun, Eyal Kaspi
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stjs.maven;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.codehaus.plexus.util.DirectoryScanner;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.io.Closeables;
+import com.google.common.io.Files;
+
+/**
+ * This class writes the compressed copies of the generated JavaScript files (the files of the classes, the pack file and
+ * the support file), next to them, so a web server can send them as they are instead of compressing them for each
+ * request. A compressed copy is written only if it is older than the JavaScript file, or if it was written with another
+ * compression level or another set of formats. It is removed when the JavaScript file is removed, or when its format is
+ * no longer configured. The level and the formats of the last update are kept in a stamp file. Each compressed copy is written in a temporary file that is then renamed, so a failed build never leaves a
+ * truncated copy that a server would send.
+ *
+ * @version $Id: $Id
+ */
+public class PrecompressedFiles {
+	private static final String JAVASCRIPT_FILES = "**/*.js";
+	private static final String TEMP_EXTENSION = ".tmp";
+
+	/**
+	 * The supported compression formats.
+	 */
+	public enum Format {
+		/** the gzip format, written as .js.gz */
+		GZIP(".gz"),
+		/** the zlib format used by the deflate content encoding, written as .js.deflate */
+		DEFLATE(".deflate");
+
+		private final String extension;
+
+		private Format(String extension) {
+			this.extension = extension;
+		}
+
+		public String getExtension() {
+			return extension;
+		}
+
+		/**
+		 * @param name
+		 *            the name of the format, as given in the plugin's configuration
+		 * @return the corresponding format
+		 */
+		public static Format forName(String name) {
+			try {
+				return valueOf(name.trim().toUpperCase(Locale.ENGLISH));
+			}
+			catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Unknown compression format:" + name + ". Use gzip or deflate", e);
+			}
+		}
+	}
+
+	private final Collection<Format> formats;
+	private final int level;
+	private final File stampFile;
+
+	/**
+	 * <p>
+	 * Constructor for PrecompressedFiles.
+	 * </p>
+	 *
+	 * @param formats
+	 *            the formats to write
+	 * @param level
+	 *            the compression level, from 1 (fastest) to 9 (smallest)
+	 * @param stampFile
+	 *            the file keeping the compression level and the formats of the last update
+	 */
+	public PrecompressedFiles(Collection<Format> formats, int level, File stampFile) {
+		if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+			throw new IllegalArgumentException("The compression level must be between 1 and 9, but it is:" + level);
+		}
+		this.formats = formats;
+		this.level = level;
+		this.stampFile = stampFile;
+	}
+
+	/**
+	 * writes the stale compressed files of the given folder and removes the ones whose JavaScript file was removed.
+	 *
+	 * @param folder
+	 *            the folder of the generated JavaScript files
+	 * @return the compressed files that were written
+	 * @throws java.io.IOException
+	 *             if any.
+	 */
+	public List<File> update(File folder) throws IOException {
+		List<File> written = new ArrayList<File>();
+		if (!folder.exists()) {
+			return written;
+		}
+		String stamp = getStamp();
+		boolean sameStamp = stamp.equals(readStamp());
+		for (String fileName : scan(folder, JAVASCRIPT_FILES)) {
+			File file = new File(folder, fileName);
+			for (Format format : formats) {
+				File compressed = new File(folder, fileName + format.getExtension());
+				if (!sameStamp || compressed.lastModified() < file.lastModified()) {
+					compress(file, compressed, format);
+					written.add(compressed);
+				}
+			}
+		}
+		removeOrphans(folder);
+		// written at the end, so the files are compressed again if the update fails
+		Files.createParentDirs(stampFile);
+		Files.write(stamp, stampFile, Charsets.UTF_8);
+		return written;
+	}
+
+	/**
+	 * @return the compression level and the formats of this update, in a stable order
+	 */
+	private String getStamp() {
+		return level + " " + Joiner.on(',').join(new TreeSet<Format>(formats));
+	}
+
+	/**
+	 * @return the compression level and the formats of the last update, or null if they are not known
+	 */
+	private String readStamp() {
+		try {
+			return stampFile.exists() ? Files.toString(stampFile, Charsets.UTF_8).trim() : null;
+		}
+		catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * removes the compressed files whose JavaScript file was removed. All the formats are scanned, so the copies of a
+	 * format that is no longer configured are removed too, instead of being sent with the content of an old file.
+	 */
+	private void removeOrphans(File folder) throws IOException {
+		for (Format format : Format.values()) {
+			boolean configured = formats.contains(format);
+			for (String fileName : scan(folder, JAVASCRIPT_FILES + format.getExtension())) {
+				String javascriptFile = fileName.substring(0, fileName.length() - format.getExtension().length());
+				File compressed = new File(folder, fileName);
+				if ((!configured || !new File(folder, javascriptFile).exists()) && !compressed.delete()) {
+					throw new IOException("Cannot delete " + compressed);
+				}
+			}
+		}
+	}
+
+	private static String[] scan(File folder, String include) {
+		DirectoryScanner ds = new DirectoryScanner();
+		ds.setBasedir(folder);
+		ds.setIncludes(new String[]{ include });
+		ds.scan();
+		return ds.getIncludedFiles();
+	}
+
+	private void compress(File file, File compressed, Format format) throws IOException {
+		File temp = new File(compressed.getParentFile(), compressed.getName() + TEMP_EXTENSION);
+		boolean done = false;
+		try {
+			write(file, temp, format);
+			move(temp, compressed);
+			done = true;
+		}
+		finally {
+			if (!done && temp.exists() && !temp.delete()) {
+				temp.deleteOnExit();
+			}
+		}
+	}
+
+	private void write(File file, File compressed, Format format) throws IOException {
+		OutputStream output = new FileOutputStream(compressed);
+		DeflaterOutputStream compressedOutput = null;
+		boolean threw = true;
+		try {
+			compressedOutput = format == Format.GZIP ? new LevelGZIPOutputStream(output, level) : new LevelDeflaterOutputStream(output,
+					level);
+			Files.copy(file, compressedOutput);
+			compressedOutput.finish();
+			threw = false;
+		}
+		finally {
+			if (compressedOutput != null) {
+				// also releases the native memory of the deflater
+				Closeables.close(compressedOutput, threw);
+			}
+			Closeables.close(output, threw);
+		}
+	}
+
+	private static void move(File source, File target) throws IOException {
+		try {
+			java.nio.file.Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (AtomicMoveNotSupportedException e) {
+			java.nio.file.Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * the gzip stream does not let choose the compression level otherwise.
+	 */
+	private static class LevelGZIPOutputStream extends GZIPOutputStream {
+		LevelGZIPOutputStream(OutputStream output, int level) throws IOException {
+			super(output);
+			def.setLevel(level);
+		}
+	}
+
+	/**
+	 * a deflater given to the stream is not ended when the stream is closed, so it is ended here.
+	 */
+	private static class LevelDeflaterOutputStream extends DeflaterOutputStream {
+		LevelDeflaterOutputStream(OutputStream output, int level) {
+			super(output, new Deflater(level));
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			}
+			finally {
+				def.end();
+			}
+		}
+	}
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright 2011 Alexandru Craciun, Eyal Kaspi
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stjs.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.codehaus.plexus.util.DirectoryScanner;
+import org.stjs.generator.STJSClass;
+import org.stjs.generator.name.DependencyType;
+
+/**
+ * This class holds the reverse dependency graph of the classes generated in a previous build, as it is stored in the
+ * .stjs files. Only the dependencies of type {@link DependencyType#EXTENDS} and {@link DependencyType#STATIC} are kept,
+ * as they are the only ones that can change the code generated for the dependent class.
+ *
+ * @version $Id: $Id
+ */
+public class ReverseDependencies {
+	private final Map<String, Set<String>> dependents = new HashMap<String, Set<String>>();
+
+	/**
+	 * loads the dependencies from all the .stjs files found in the given folder.
+	 *
+	 * @param buildOutputDirectory
+	 *            the folder containing the .stjs files
+	 * @return a {@link org.stjs.maven.ReverseDependencies} object.
+	 * @throws java.io.IOException
+	 *             if any.
+	 */
+	public static ReverseDependencies load(File buildOutputDirectory) throws IOException {
+		ReverseDependencies graph = new ReverseDependencies();
+		if (!buildOutputDirectory.exists()) {
+			return graph;
+		}
+
+		DirectoryScanner ds = new DirectoryScanner();
+		ds.setBasedir(buildOutputDirectory);
+		ds.setIncludes(new String[]{ "**/*.stjs" });
+		ds.scan();
+		for (String fileName : ds.getIncludedFiles()) {
+			String className = fileName.substring(0, fileName.length() - ".stjs".length()).replace(File.separatorChar, '.');
+			graph.addDependencies(className, STJSClass.readDependencies(new File(buildOutputDirectory, fileName)));
+		}
+		return graph;
+	}
+
+	/**
+	 * <p>
+	 * addDependencies.
+	 * </p>
+	 *
+	 * @param className
+	 *            the dependent class
+	 * @param dependencies
+	 *            the direct dependencies of the class
+	 */
+	public void addDependencies(String className, Map<String, DependencyType> dependencies) {
+		for (Map.Entry<String, DependencyType> dep : dependencies.entrySet()) {
+			if (dep.getValue() == DependencyType.OTHER) {
+				continue;
+			}
+			String depClassName = topLevelClassName(dep.getKey());
+			if (depClassName.equals(className)) {
+				continue;
+			}
+			Set<String> classDependents = dependents.get(depClassName);
+			if (classDependents == null) {
+				classDependents = new LinkedHashSet<String>();
+				dependents.put(depClassName, classDependents);
+			}
+			classDependents.add(className);
+		}
+	}
+
+	/**
+	 * @param classNames
+	 *            the classes that changed
+	 * @return all the classes that depend directly or transitively on the given classes, without the given classes
+	 *         themselves
+	 */
+	public Set<String> getTransitiveDependents(Collection<String> classNames) {
+		Set<String> result = new LinkedHashSet<String>();
+		Deque<String> toVisit = new ArrayDeque<String>(classNames);
+		while (!toVisit.isEmpty()) {
+			Set<String> classDependents = dependents.get(toVisit.poll());
+			for (String dependent : classDependents == null ? Collections.<String> emptySet() : classDependents) {
+				if (result.add(dependent)) {
+					toVisit.add(dependent);
+				}
+			}
+		}
+		result.removeAll(classNames);
+		return result;
+	}
+
+	private static String topLevelClassName(String className) {
+		// the .stjs files exist only for the top level classes
+		int pos = className.indexOf('$');
+		if (pos > 0 && className.charAt(pos - 1) != '.') {
+			return className.substring(0, pos);
+		}
+		return className;
+	}
+}
@@ -0,0 +1,258 @@
+/**
+ * Copyright 2011 Alexandru Craciun, Eyal Kaspi
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stjs.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.codehaus.plexus.util.DirectoryScanner;
+import org.codehaus.plexus.util.SelectorUtils;
+
+import com.google.common.base.Throwables;
+
+/**
+ * This class lists, once per build, the Java sources of the source roots of a project. The packages, the sources to
+ * check for staleness, the sources to pack and the content hashes of the incremental index are all taken from it, so
+ * the source folders are walked only once, which matters on network file systems.
+ * <p>
+ * The folders are walked with {@link java.nio.file.Files#walkFileTree(Path, java.util.Set, int, java.nio.file.FileVisitor)},
+ * following the symbolic links and skipping the files matched by the default excludes of the
+ * {@link org.codehaus.plexus.util.DirectoryScanner}, as the scanners used before did. A symbolic link to one of its
+ * own parent folders is skipped, instead of being walked again.
+ *
+ * @version $Id: $Id
+ */
+public class SourceIndex {
+	private static final String JAVA_SUFFIX = ".java";
+	private static final String[] DEFAULT_EXCLUDES = normalizePatterns(DirectoryScanner.DEFAULTEXCLUDES);
+
+	/** for each source root, the sources, relative to the root */
+	private final Map<File, Map<String, SourceFile>> roots;
+
+	private SourceIndex(Map<File, Map<String, SourceFile>> roots) {
+		this.roots = roots;
+	}
+
+	/**
+	 * walks the given source roots.
+	 *
+	 * @param sourceRoots
+	 *            the source roots of the project. The ones that don't exist are considered empty.
+	 * @param threads
+	 *            the number of roots walked at the same time
+	 * @return the index of the sources
+	 * @throws java.io.IOException
+	 *             if a folder cannot be read
+	 */
+	public static SourceIndex scan(List<File> sourceRoots, int threads) throws IOException {
+		Map<File, Map<String, SourceFile>> roots = new LinkedHashMap<File, Map<String, SourceFile>>();
+		if (threads <= 1 || sourceRoots.size() <= 1) {
+			for (File sourceRoot : sourceRoots) {
+				roots.put(sourceRoot, walk(sourceRoot));
+			}
+			return new SourceIndex(roots);
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, sourceRoots.size()));
+		try {
+			List<Future<Map<String, SourceFile>>> walks = new ArrayList<Future<Map<String, SourceFile>>>();
+			for (final File sourceRoot : sourceRoots) {
+				walks.add(executor.submit(new Callable<Map<String, SourceFile>>() {
+					@Override
+					public Map<String, SourceFile> call() throws IOException {
+						return walk(sourceRoot);
+					}
+				}));
+			}
+			for (int i = 0; i < sourceRoots.size(); ++i) {
+				roots.put(sourceRoots.get(i), walks.get(i).get());
+			}
+			return new SourceIndex(roots);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while scanning the source roots", e);
+		}
+		catch (ExecutionException e) {
+			Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+			throw Throwables.propagate(e.getCause());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static Map<String, SourceFile> walk(final File sourceRoot) throws IOException {
+		final Map<String, SourceFile> sources = new TreeMap<String, SourceFile>();
+		if (!sourceRoot.isDirectory()) {
+			return sources;
+		}
+		final Path root = sourceRoot.toPath();
+		java.nio.file.Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+				new SimpleFileVisitor<Path>() {
+					@Override
+					public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+						String path = root.relativize(file).toString();
+						if (attrs.isRegularFile() && path.endsWith(JAVA_SUFFIX) && !matches(DEFAULT_EXCLUDES, path)) {
+							sources.put(path, new SourceFile(new File(sourceRoot, path)));
+						}
+						return FileVisitResult.CONTINUE;
+					}
+
+					@Override
+					public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+						if (exc instanceof FileSystemLoopException) {
+							// the link's target is already walked
+							return FileVisitResult.CONTINUE;
+						}
+						throw exc;
+					}
+				});
+		return sources;
+	}
+
+	/**
+	 * @param sourceRoot
+	 *            a source root
+	 * @return the packages of the sources of the given root
+	 */
+	public Collection<String> getPackages(File sourceRoot) {
+		Collection<String> packages = new HashSet<String>();
+		for (String path : getSources(sourceRoot).keySet()) {
+			String parent = new File(path).getParent();
+			// Supports classes without packages
+			packages.add(parent == null ? "" : parent.replace(File.separatorChar, '.'));
+		}
+		return packages;
+	}
+
+	/**
+	 * @param sourceRoot
+	 *            a source root
+	 * @param includes
+	 *            the patterns of the sources to take. All the sources are taken if it's empty.
+	 * @param excludes
+	 *            the patterns of the sources to leave out
+	 * @return the paths of the sources of the given root, relative to the root, that match the given patterns, as they
+	 *         would be matched by a {@link org.codehaus.plexus.util.DirectoryScanner}
+	 */
+	public List<String> getSourcePaths(File sourceRoot, Set<String> includes, Set<String> excludes) {
+		String[] includePatterns = normalizePatterns(includes.toArray(new String[includes.size()]));
+		String[] excludePatterns = normalizePatterns(excludes.toArray(new String[excludes.size()]));
+		List<String> paths = new ArrayList<String>();
+		for (String path : getSources(sourceRoot).keySet()) {
+			if ((includePatterns.length == 0 || matches(includePatterns, path)) && !matches(excludePatterns, path)) {
+				paths.add(path);
+			}
+		}
+		return paths;
+	}
+
+	/**
+	 * @param sourceRoot
+	 *            a source root
+	 * @param path
+	 *            the path of a source, relative to the root
+	 * @return true if the given source exists in the given root
+	 */
+	public boolean contains(File sourceRoot, String path) {
+		return getSources(sourceRoot).containsKey(path);
+	}
+
+	/**
+	 * @param sourceRoot
+	 *            a source root
+	 * @param path
+	 *            the path of a source, relative to the root
+	 * @return the content hash of the source, computed once per build, as it is needed before and after its generation
+	 * @throws java.io.IOException
+	 *             if any.
+	 */
+	public String getHash(File sourceRoot, String path) throws IOException {
+		SourceFile source = getSources(sourceRoot).get(path);
+		if (source == null) {
+			return IncrementalBuildIndex.hash(new File(sourceRoot, path));
+		}
+		return source.getHash();
+	}
+
+	private Map<String, SourceFile> getSources(File sourceRoot) {
+		Map<String, SourceFile> sources = roots.get(sourceRoot);
+		if (sources == null) {
+			throw new IllegalArgumentException("The folder " + sourceRoot + " is not a source root of the index");
+		}
+		return sources;
+	}
+
+	private static boolean matches(String[] patterns, String path) {
+		for (String pattern : patterns) {
+			if (SelectorUtils.matchPath(pattern, path)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * the patterns are normalized the way the {@link org.codehaus.plexus.util.DirectoryScanner} does it.
+	 */
+	private static String[] normalizePatterns(String[] patterns) {
+		String[] normalized = new String[patterns.length];
+		for (int i = 0; i < patterns.length; ++i) {
+			String pattern = patterns[i].trim().replace('/', File.separatorChar).replace('\\', File.separatorChar);
+			if (pattern.endsWith(File.separator)) {
+				pattern += "**";
+			}
+			normalized[i] = pattern;
+		}
+		return normalized;
+	}
+
+	private static final class SourceFile {
+		private final File file;
+		private volatile String hash;
+
+		private SourceFile(File file) {
+			this.file = file;
+		}
+
+		private String getHash() throws IOException {
+			String h = hash;
+			if (h == null) {
+				h = IncrementalBuildIndex.hash(file);
+				hash = h;
+			}
+			return h;
+		}
+	}
+}
@@ -1,92 +1,187 @@
 package org.stjs.maven;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.util.List;
 
+import com.google.common.base.Charsets;
+import com.google.common.io.Closeables;
 import com.google.common.io.Files;
-import com.google.debugging.sourcemap.FilePosition;
-import com.google.debugging.sourcemap.SourceMapConsumerV3;
-import com.google.debugging.sourcemap.SourceMapConsumerV3.EntryVisitor;
-import com.google.debugging.sourcemap.SourceMapGeneratorV3;
-import com.google.debugging.sourcemap.SourceMapParseException;
+import com.google.debugging.sourcemap.SourceMapSection;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 
 /**
- * remake the source map merge of closure compiler in order to allow the rewrite of the original source map's path
+ * builds the pack file of a project and its source map. The JavaScript files are copied as they are, with a channel transfer, and the
+ * source map of each file becomes a section of the pack's index map, so the mappings are neither decoded nor encoded again.
  *
  * @author acraciun
  * @version $Id: $Id
  */
 public class SourceMapUtils {
+	private static final byte[] SOURCE_MAPPING_URL = "//# sourceMappingURL=".getBytes(Charsets.US_ASCII);
+	// the last line of a generated file is only the comment pointing to its source map
+	private static final int MAX_LAST_LINE_SIZE = 4096;
+	private static final int BUFFER_SIZE = 64 * 1024;
 
 	/**
-	 * <p>appendFileSkipSourceMap.</p>
+	 * appends the given file to the pack file, without the last line pointing to its own source map, and adds the source map of the file
+	 * to the sections of the pack's index map.
 	 *
-	 * @param gendir a {@link java.io.File} object.
-	 * @param allSourcesFile a {@link java.io.OutputStream} object.
+	 * @param gendir the folder of the generated files, where the pack's source map is written
+	 * @param pack the channel of the pack file
 	 * @param jsFile a {@link java.io.File} object.
-	 * @param currentLine a int.
-	 * @param packSourcemap a {@link com.google.debugging.sourcemap.SourceMapGeneratorV3} object.
-	 * @param charsetName a {@link java.lang.String} object.
-	 * @return a int.
+	 * @param currentLine the line of the pack where the file starts
+	 * @param sections the sections of the pack's index map
+	 * @param charsetName the charset of the source map files
+	 * @return the line of the pack after the file
 	 * @throws java.io.IOException if any.
-	 * @throws com.google.debugging.sourcemap.SourceMapParseException if any.
 	 */
-	public static int appendFileSkipSourceMap(File gendir, OutputStream allSourcesFile, File jsFile, int currentLine,
-			SourceMapGeneratorV3 packSourcemap, String charsetName) throws IOException, SourceMapParseException {
+	public static int appendFileSkipSourceMap(File gendir, FileChannel pack, File jsFile, int currentLine, List<SourceMapSection> sections,
+			String charsetName) throws IOException {
 		Charset charset = charsetName != null ? Charset.forName(charsetName) : Charset.defaultCharset();
-		List<String> lines = Files.readLines(jsFile, charset);
-		// remove the @SourceMap stuff
-		for (int i = 0; i < lines.size() - 1; ++i) {
-			allSourcesFile.write(lines.get(i).getBytes());
-			allSourcesFile.write('\n');
-		}
+		int lineCount = append(pack, jsFile, true);
 
+		// the sources of the file's map are relative to the map, whereas the ones of the sections are relative to the pack's map
 		File sourcemapFile = new File(jsFile.getParentFile(), Files.getNameWithoutExtension(jsFile.getName()) + ".map");
-		String relSourceMapFile = getRelativePath(jsFile, gendir);
-		mergeMapSection(new File(relSourceMapFile), packSourcemap, currentLine, 1, Files.toString(sourcemapFile, charset));
-		return currentLine + lines.size() - 1;
+		String sourceRoot = getRelativePath(jsFile.getParentFile(), gendir);
+		sections.add(SourceMapSection.forMap(addSourceRoot(Files.toString(sourcemapFile, charset), sourceRoot), currentLine, 0));
+		return currentLine + lineCount;
 	}
 
-	private static String getRelativePath(File file, File folder) {
-		// remove the common folder name from the target file name
-		return file.getAbsolutePath().substring(folder.getAbsolutePath().length() + 1);
+	/**
+	 * appends the whole given file to the pack file.
+	 *
+	 * @param pack the channel of the pack file
+	 * @param jsFile a {@link java.io.File} object.
+	 * @throws java.io.IOException if any.
+	 */
+	public static void appendFile(FileChannel pack, File jsFile) throws IOException {
+		append(pack, jsFile, false);
 	}
 
 	/**
-	 * <p>mergeMapSection.</p>
-	 *
-	 * @param sourceMapFile a {@link java.io.File} object.
-	 * @param packSourcemap a {@link com.google.debugging.sourcemap.SourceMapGeneratorV3} object.
-	 * @param line a int.
-	 * @param column a int.
-	 * @param mapSectionContents a {@link java.lang.String} object.
-	 * @throws com.google.debugging.sourcemap.SourceMapParseException if any.
+	 * @return the number of lines appended to the pack
 	 */
-	public static void mergeMapSection(File sourceMapFile, SourceMapGeneratorV3 packSourcemap, int line, int column, String mapSectionContents)
-			throws SourceMapParseException {
-		packSourcemap.setStartingPosition(line, column);
-		SourceMapConsumerV3 section = new SourceMapConsumerV3();
-		section.parse(mapSectionContents);
-		section.visitMappings(new ConsumerEntryVisitor(packSourcemap, sourceMapFile));
+	private static int append(FileChannel pack, File jsFile, boolean skipSourceMap) throws IOException {
+		FileInputStream input = new FileInputStream(jsFile);
+		try {
+			FileChannel js = input.getChannel();
+			long size = js.size();
+			long bodySize = skipSourceMap ? getSizeWithoutSourceMap(js, size) : size;
+			int lineCount = skipSourceMap ? countLines(js, bodySize) : 0;
+
+			long transferred = 0;
+			while (transferred < bodySize) {
+				transferred += js.transferTo(transferred, bodySize - transferred, pack);
+			}
+			if (skipSourceMap && bodySize > 0 && !endsWithNewLine(js, bodySize)) {
+				pack.write(ByteBuffer.wrap(new byte[]{ '\n' }));
+				lineCount++;
+			}
+			return lineCount;
+		}
+		finally {
+			Closeables.close(input, true);
+		}
+	}
+
+	/**
+	 * @return the size of the file without its last line, if this line is the one pointing to the file's source map
+	 */
+	private static long getSizeWithoutSourceMap(FileChannel js, long size) throws IOException {
+		int tailSize = (int) Math.min(size, MAX_LAST_LINE_SIZE);
+		ByteBuffer tail = ByteBuffer.allocate(tailSize);
+		readFully(js, tail, size - tailSize);
+
+		// skip the new line ending the file
+		int end = tailSize;
+		if (end > 0 && tail.get(end - 1) == '\n') {
+			end--;
+		}
+		int lastLineStart = end;
+		while (lastLineStart > 0 && tail.get(lastLineStart - 1) != '\n') {
+			lastLineStart--;
+		}
+		if (lastLineStart == 0 && tailSize < size) {
+			// the last line is too long to point to a source map
+			return size;
+		}
+		if (end - lastLineStart < SOURCE_MAPPING_URL.length) {
+			return size;
+		}
+		for (int i = 0; i < SOURCE_MAPPING_URL.length; ++i) {
+			if (tail.get(lastLineStart + i) != SOURCE_MAPPING_URL[i]) {
+				return size;
+			}
+		}
+		return size - tailSize + lastLineStart;
 	}
 
-	static class ConsumerEntryVisitor implements EntryVisitor {
-		private final SourceMapGeneratorV3 packSourcemap;
-		private final File sourceMapFile;
+	private static int countLines(FileChannel js, long size) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		int lines = 0;
+		long position = 0;
+		while (position < size) {
+			buffer.clear();
+			buffer.limit((int) Math.min(BUFFER_SIZE, size - position));
+			int read = js.read(buffer, position);
+			if (read < 0) {
+				break;
+			}
+			for (int i = 0; i < read; ++i) {
+				if (buffer.get(i) == '\n') {
+					lines++;
+				}
+			}
+			position += read;
+		}
+		return lines;
+	}
+
+	private static boolean endsWithNewLine(FileChannel js, long size) throws IOException {
+		ByteBuffer last = ByteBuffer.allocate(1);
+		readFully(js, last, size - 1);
+		return last.get(0) == '\n';
+	}
 
-		public ConsumerEntryVisitor(SourceMapGeneratorV3 packSourcemap, File sourceMapFile) {
-			this.packSourcemap = packSourcemap;
-			this.sourceMapFile = sourceMapFile;
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		long current = position;
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, current);
+			if (read < 0) {
+				throw new IOException("Unexpected end of file");
+			}
+			current += read;
 		}
+	}
+
+	private static String getRelativePath(File file, File folder) {
+		// remove the common folder name from the target file name
+		String path = file.getAbsolutePath();
+		String folderPath = folder.getAbsolutePath();
+		if (path.length() <= folderPath.length()) {
+			return "";
+		}
+		return path.substring(folderPath.length() + 1).replace(File.separatorChar, '/') + "/";
+	}
 
-		@Override
-		public void visit(String sourceName, String symbolName, FilePosition sourceStartPosition, FilePosition startPosition,
-				FilePosition endPosition) {
-			packSourcemap.addMapping(new File(sourceMapFile.getParentFile(), sourceName).getPath().replace(File.separatorChar, '/'), symbolName,
-					sourceStartPosition, startPosition, endPosition);
+	/**
+	 * the maps generated by ST-JS have no source root, so the folder of the map becomes their source root. A source root that is already
+	 * there is relative to this folder too.
+	 */
+	static String addSourceRoot(String sourceMap, String sourceRoot) {
+		if (sourceRoot.isEmpty()) {
+			return sourceMap;
 		}
+		JsonObject map = new JsonParser().parse(sourceMap).getAsJsonObject();
+		JsonElement previousRoot = map.get("sourceRoot");
+		map.addProperty("sourceRoot", previousRoot == null ? sourceRoot : sourceRoot + previousRoot.getAsString());
+		return map.toString();
 	}
 }
@@ -17,9 +17,11 @@ package org.stjs.maven;
  */
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -105,21 +107,30 @@ public class StaleClassSourceScanner extends AbstractSourceInclusionScanner {
 	// ----------------------------------------------------------------------
 
 	/** {@inheritDoc} */
-	@SuppressWarnings("unchecked")
 	public Set getIncludedSources(File sourceDir, File targetDir) throws InclusionScanException {
-		List srcMappings = getSourceMappings();
-
-		if (srcMappings.isEmpty()) {
+		if (getSourceMappings().isEmpty()) {
 			return Collections.EMPTY_SET;
 		}
 
-		String[] potentialIncludes = scanForSources(sourceDir, sourceIncludes, sourceExcludes);
+		return getStaleSources(sourceDir, Arrays.asList(scanForSources(sourceDir, sourceIncludes, sourceExcludes)), targetDir);
+	}
 
-		Set matchingSources = new HashSet();
+	/**
+	 * checks the given sources, already found in the source folder, instead of scanning the folder.
+	 *
+	 * @param sourceDir a {@link java.io.File} object.
+	 * @param potentialIncludes the paths of the sources to check, relative to the source folder
+	 * @param targetDir a {@link java.io.File} object.
+	 * @return the stale sources, as absolute files
+	 * @throws org.codehaus.plexus.compiler.util.scan.InclusionScanException if any.
+	 */
+	@SuppressWarnings("unchecked")
+	public Set<File> getStaleSources(File sourceDir, Collection<String> potentialIncludes, File targetDir) throws InclusionScanException {
+		List srcMappings = getSourceMappings();
 
-		for (int i = 0; i < potentialIncludes.length; i++) {
-			String path = potentialIncludes[i];
+		Set<File> matchingSources = new LinkedHashSet<File>();
 
+		for (String path : potentialIncludes) {
 			if (!path.endsWith(JAVA_CLASS_SUFFIX)) {
 				continue;
 			}
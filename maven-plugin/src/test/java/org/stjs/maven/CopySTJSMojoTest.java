@@ -0,0 +1,157 @@
+package org.stjs.maven;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+public class CopySTJSMojoTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File destination;
+	private File indexFile;
+	private File library;
+
+	@Before
+	public void createLibrary() throws IOException {
+		destination = new File(folder.getRoot(), "generated-js");
+		indexFile = new File(folder.getRoot(), "stjs-copy-js.index");
+		library = new File(folder.getRoot(), "library.jar");
+		writeJar(library, true, "org/lib/Lib.js", "var Lib = {};");
+	}
+
+	private static void writeJar(File jar, boolean stjsLibrary, String entryName, String content) throws IOException {
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		if (stjsLibrary) {
+			manifest.getMainAttributes().putValue("STJS-Library", "true");
+		}
+		JarOutputStream output = new JarOutputStream(new FileOutputStream(jar), manifest);
+		try {
+			output.putNextEntry(new JarEntry(entryName));
+			output.write(content.getBytes(Charsets.UTF_8));
+			output.closeEntry();
+			output.putNextEntry(new JarEntry(entryName.replace(".js", ".class")));
+			output.closeEntry();
+		}
+		finally {
+			output.close();
+		}
+	}
+
+	private int copy(File... jars) throws IOException {
+		List<String> classpath = new ArrayList<String>();
+		for (File jar : jars) {
+			classpath.add(jar.getAbsolutePath());
+		}
+		return new CopySTJSMojo().copyLibraries(classpath, destination, indexFile);
+	}
+
+	@Test
+	public void testCopy() throws IOException {
+		File other = new File(folder.getRoot(), "other.jar");
+		writeJar(other, false, "org/other/Other.js", "var Other = {};");
+
+		assertEquals(2, copy(library, other));
+		assertEquals("var Lib = {};", Files.toString(new File(destination, "org/lib/Lib.js"), Charsets.UTF_8));
+		assertFalse(new File(destination, "org/lib/Lib.class").exists());
+		// not a ST-JS library
+		assertFalse(new File(destination, "org/other/Other.js").exists());
+	}
+
+	@Test
+	public void testUnchangedLibraryIsSkipped() throws IOException {
+		assertEquals(1, copy(library));
+		assertEquals(0, copy(library));
+		assertTrue(new File(destination, "org/lib/Lib.js").exists());
+	}
+
+	@Test
+	public void testChangedLibraryIsCopiedAgain() throws IOException {
+		copy(library);
+		long lastModified = library.lastModified();
+		writeJar(library, true, "org/lib/Lib.js", "var Lib = {a:1};");
+		assertTrue(library.setLastModified(lastModified + 10000));
+
+		assertEquals(1, copy(library));
+		assertEquals("var Lib = {a:1};", Files.toString(new File(destination, "org/lib/Lib.js"), Charsets.UTF_8));
+	}
+
+	@Test
+	public void testDeletedFileIsCopiedAgain() throws IOException {
+		copy(library);
+		assertTrue(new File(destination, "org/lib/Lib.js").delete());
+
+		assertEquals(1, copy(library));
+		assertTrue(new File(destination, "org/lib/Lib.js").exists());
+	}
+
+	@Test
+	public void testRemovedLibraryFilesAreDeleted() throws IOException {
+		File other = new File(folder.getRoot(), "other.jar");
+		writeJar(other, true, "org/other/Other.js", "var Other = {};");
+		copy(library, other);
+		assertTrue(new File(destination, "org/other/Other.js").exists());
+
+		assertEquals(0, copy(library));
+		assertFalse(new File(destination, "org/other/Other.js").exists());
+		assertTrue(new File(destination, "org/lib/Lib.js").exists());
+	}
+
+	@Test
+	public void testCorruptIndex() throws IOException {
+		copy(library);
+		String content = Files.toString(indexFile, Charsets.UTF_8);
+		Files.write(content.replaceFirst("\t\\d+\t", "\tnot-a-size\t"), indexFile, Charsets.UTF_8);
+
+		// everything is copied again
+		assertEquals(1, copy(library));
+		assertEquals(0, copy(library));
+	}
+
+	@Test
+	public void testTruncatedIndex() throws IOException {
+		copy(library);
+		String content = Files.toString(indexFile, Charsets.UTF_8);
+		String firstLine = content.substring(0, content.indexOf('\n') + 1);
+		Files.write(firstLine + library.getAbsolutePath() + "\t12", indexFile, Charsets.UTF_8);
+
+		assertEquals(1, copy(library));
+	}
+
+	@Test
+	public void testIndexOfAnotherDestination() throws IOException {
+		CopiedLibrariesIndex index = new CopiedLibrariesIndex(indexFile, destination);
+		index.update(library, Collections.singletonList("org/lib/Lib.js"));
+		index.store();
+
+		CopiedLibrariesIndex otherIndex = new CopiedLibrariesIndex(indexFile, new File(folder.getRoot(), "other"));
+		otherIndex.load();
+		assertEquals(Collections.emptySet(), otherIndex.getAllCopiedFiles());
+
+		CopiedLibrariesIndex sameIndex = new CopiedLibrariesIndex(indexFile, destination);
+		sameIndex.load();
+		assertEquals(new HashSet<String>(Arrays.asList("org/lib/Lib.js")), sameIndex.getAllCopiedFiles());
+	}
+}
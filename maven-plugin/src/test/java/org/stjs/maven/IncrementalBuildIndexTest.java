@@ -0,0 +1,162 @@
+package org.stjs.maven;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+public class IncrementalBuildIndexTest {
+	private static final String SOURCE = "org/stjs/A.java";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File indexFile;
+	private File jsFile;
+	private File stjsFile;
+
+	@Before
+	public void createFiles() throws IOException {
+		indexFile = new File(folder.getRoot(), "stjs-classes.index");
+		jsFile = folder.newFile("A.js");
+		Files.write("var A = function(){};", jsFile, Charsets.UTF_8);
+		stjsFile = folder.newFile("A.stjs");
+	}
+
+	private IncrementalBuildIndex storeIndex(String fingerprint) throws IOException {
+		IncrementalBuildIndex index = new IncrementalBuildIndex(indexFile, fingerprint);
+		index.update(SOURCE, "sourceHash", jsFile);
+		index.store();
+		return index;
+	}
+
+	private IncrementalBuildIndex loadIndex(String fingerprint) throws IOException {
+		IncrementalBuildIndex index = new IncrementalBuildIndex(indexFile, fingerprint);
+		index.load();
+		return index;
+	}
+
+	@Test
+	public void testStoreAndLoad() throws IOException {
+		storeIndex("fingerprint");
+		assertTrue(loadIndex("fingerprint").isUpToDate(SOURCE, "sourceHash", jsFile, stjsFile));
+	}
+
+	@Test
+	public void testMissingIndexFile() throws IOException {
+		assertFalse(loadIndex("fingerprint").isUpToDate(SOURCE, "sourceHash", jsFile, stjsFile));
+	}
+
+	@Test
+	public void testFingerprintMismatch() throws IOException {
+		storeIndex("fingerprint");
+		assertFalse(loadIndex("otherFingerprint").isUpToDate(SOURCE, "sourceHash", jsFile, stjsFile));
+	}
+
+	@Test
+	public void testSourceHashMismatch() throws IOException {
+		storeIndex("fingerprint");
+		assertFalse(loadIndex("fingerprint").isUpToDate(SOURCE, "otherSourceHash", jsFile, stjsFile));
+	}
+
+	@Test
+	public void testModifiedOutput() throws IOException {
+		storeIndex("fingerprint");
+		Files.write("var A = function(){}; A.b = 1;", jsFile, Charsets.UTF_8);
+		assertFalse(loadIndex("fingerprint").isUpToDate(SOURCE, "sourceHash", jsFile, stjsFile));
+	}
+
+	@Test
+	public void testMissingOutput() throws IOException {
+		storeIndex("fingerprint");
+		assertTrue(stjsFile.delete());
+		assertFalse(loadIndex("fingerprint").isUpToDate(SOURCE, "sourceHash", jsFile, stjsFile));
+
+		assertTrue(jsFile.delete());
+		assertFalse(loadIndex("fingerprint").isUpToDate(SOURCE, "sourceHash", jsFile, stjsFile));
+	}
+
+	@Test
+	public void testBridgeHasNoOutput() throws IOException {
+		assertTrue(jsFile.delete());
+		assertTrue(stjsFile.delete());
+		storeIndex("fingerprint");
+		assertTrue(loadIndex("fingerprint").isUpToDate(SOURCE, "sourceHash", jsFile, stjsFile));
+	}
+
+	@Test
+	public void testRemove() throws IOException {
+		IncrementalBuildIndex index = storeIndex("fingerprint");
+		index.remove(SOURCE);
+		index.store();
+		assertFalse(loadIndex("fingerprint").isUpToDate(SOURCE, "sourceHash", jsFile, stjsFile));
+	}
+
+	@Test
+	public void testFingerprint() throws IOException {
+		File jar = folder.newFile("lib.jar");
+		String fingerprint = fingerprint(jar, true, "option");
+		assertEquals(fingerprint, fingerprint(jar, true, "option"));
+		assertFalse(fingerprint.equals(fingerprint(jar, false, "option")));
+
+		Files.write("modified", jar, Charsets.UTF_8);
+		assertFalse(fingerprint.equals(fingerprint(jar, true, "option")));
+	}
+
+	@Test
+	public void testFingerprintOfClassesFolder() throws IOException {
+		File classes = folder.newFolder("sibling-classes");
+		File classFile = new File(classes, "org/stjs/B.class");
+		File stjsFile = new File(classes, "org/stjs/B.stjs");
+		File manifest = new File(classes, "META-INF/stjs.manifest");
+		for (File file : Arrays.asList(classFile, stjsFile, manifest)) {
+			Files.createParentDirs(file);
+			Files.write("initial", file, Charsets.UTF_8);
+		}
+		String fingerprint = fingerprint(classes, "option");
+
+		// a modified annotation changes the content of the class
+		Files.write("modified", classFile, Charsets.UTF_8);
+		String classFingerprint = fingerprint(classes, "option");
+		assertFalse(fingerprint.equals(classFingerprint));
+
+		Files.write("modified", stjsFile, Charsets.UTF_8);
+		String stjsFingerprint = fingerprint(classes, "option");
+		assertFalse(classFingerprint.equals(stjsFingerprint));
+
+		Files.write("modified", manifest, Charsets.UTF_8);
+		String manifestFingerprint = fingerprint(classes, "option");
+		assertFalse(stjsFingerprint.equals(manifestFingerprint));
+
+		// the other files, and the timestamps, are not taken into account
+		Files.write("resource", new File(classes, "org/stjs/b.properties"), Charsets.UTF_8);
+		assertTrue(classFile.setLastModified(classFile.lastModified() + 10000));
+		assertEquals(manifestFingerprint, fingerprint(classes, "option"));
+	}
+
+	@Test
+	public void testFingerprintIgnoresOutputFolderContent() throws IOException {
+		File classes = folder.newFolder("classes");
+		String fingerprint = IncrementalBuildIndex.fingerprint(Collections.singletonList(classes.getPath()), classes, "option");
+
+		Files.write("generated", new File(classes, "A.stjs"), Charsets.UTF_8);
+		assertEquals(fingerprint, IncrementalBuildIndex.fingerprint(Collections.singletonList(classes.getPath()), classes, "option"));
+	}
+
+	private String fingerprint(File classpathElement, Object... options) throws IOException {
+		return IncrementalBuildIndex.fingerprint(Collections.singletonList(classpathElement.getPath()), new File(folder.getRoot(),
+				"classes"), options);
+	}
+}
@@ -0,0 +1,205 @@
+package org.stjs.maven;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+public class PackBundlesTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final Map<String, List<String>> dependencies = new HashMap<String, List<String>>();
+
+	private void dependsOn(String className, String... classDependencies) {
+		dependencies.put(className, Arrays.asList(classDependencies));
+	}
+
+	/**
+	 * P1 and P2 both need A, that needs C. Only P1 needs B, and D is not needed by any entry point.
+	 */
+	private PackBundles twoEntryPoints() {
+		dependsOn("C");
+		dependsOn("A", "C");
+		dependsOn("B");
+		dependsOn("D");
+		dependsOn("P1", "A", "B");
+		dependsOn("P2", "A");
+		return new PackBundles("app", Arrays.asList("P1", "P2"), dependencies, Arrays.asList("C", "A", "B", "D", "P1", "P2"));
+	}
+
+	@Test
+	public void testBundles() {
+		Map<String, List<String>> bundles = twoEntryPoints().getBundles();
+		assertEquals(3, bundles.size());
+		assertEquals(Arrays.asList("C", "A"), bundles.get("app-shared-0-1"));
+		assertEquals(Arrays.asList("B", "P1"), bundles.get("app-P1"));
+		assertEquals(Arrays.asList("P2"), bundles.get("app-P2"));
+	}
+
+	@Test
+	public void testBundlesToLoad() {
+		dependsOn("S");
+		dependsOn("A", "S");
+		dependsOn("B", "S");
+		dependsOn("P1", "A", "B");
+		dependsOn("P2", "A");
+		dependsOn("P3", "B");
+		PackBundles bundles =
+				new PackBundles("app", Arrays.asList("P1", "P2", "P3"), dependencies, Arrays.asList("S", "A", "B", "P1", "P2", "P3"));
+
+		// the bundles shared by more entry points are loaded first
+		assertEquals(Arrays.asList("app-shared-0-1-2", "app-shared-0-1", "app-shared-0-2", "app-P1"), bundles.getBundlesToLoad("P1"));
+		assertEquals(Arrays.asList("app-shared-0-1-2", "app-shared-0-1", "app-P2"), bundles.getBundlesToLoad("P2"));
+		assertEquals(Arrays.asList("app-shared-0-1-2", "app-shared-0-2", "app-P3"), bundles.getBundlesToLoad("P3"));
+	}
+
+	@Test
+	public void testEntryPointNotPacked() {
+		try {
+			new PackBundles("app", Collections.singletonList("P1"), dependencies, Collections.singletonList("A"));
+			fail("Expected " + IllegalArgumentException.class);
+		}
+		catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testBundlesToLoadOfUnknownEntryPoint() {
+		try {
+			twoEntryPoints().getBundlesToLoad("A");
+			fail("Expected " + IllegalArgumentException.class);
+		}
+		catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().startsWith("The class A "));
+		}
+	}
+
+	@Test
+	public void testManifest() throws IOException {
+		StringWriter writer = new StringWriter();
+		twoEntryPoints().writeManifest(writer);
+
+		JsonObject manifest = new JsonParser().parse(writer.toString()).getAsJsonObject();
+		assertEquals("[\"app-shared-0-1.js\",\"app-P1.js\"]", manifest.getAsJsonObject("entryPoints").get("P1").toString());
+		assertEquals("[\"app-shared-0-1.js\",\"app-P2.js\"]", manifest.getAsJsonObject("entryPoints").get("P2").toString());
+		assertEquals("[\"C\",\"A\"]", manifest.getAsJsonObject("bundles").get("app-shared-0-1.js").toString());
+		assertEquals(3, manifest.getAsJsonObject("bundles").entrySet().size());
+	}
+
+	@Test
+	public void testManifestEscaping() throws IOException {
+		String entryPoint = "P\"1\\\n\u0001";
+		dependsOn(entryPoint);
+		StringWriter writer = new StringWriter();
+		new PackBundles("app", Collections.singletonList(entryPoint), dependencies, Collections.singletonList(entryPoint))
+				.writeManifest(writer);
+
+		JsonObject manifest = new JsonParser().parse(writer.toString()).getAsJsonObject();
+		assertEquals(entryPoint, manifest.getAsJsonObject("entryPoints").entrySet().iterator().next().getKey());
+		assertFalse(writer.toString().contains("\u0001"));
+	}
+
+	@Test
+	public void testDeleteStaleBundles() throws IOException {
+		File manifest = folder.newFile("app-bundles.json");
+		StringWriter writer = new StringWriter();
+		twoEntryPoints().writeManifest(writer);
+		Files.write(writer.toString(), manifest, Charsets.UTF_8);
+		for (String name : Arrays.asList("app-shared-0-1", "app-P1", "app-P2")) {
+			folder.newFile(name + ".js");
+			folder.newFile(name + ".map");
+		}
+		File otherPack = folder.newFile("app-other.js");
+
+		List<File> removed = PackBundles.deleteStaleBundles(folder.getRoot(), manifest, Collections.singleton("app-P1"));
+
+		assertEquals(4, removed.size());
+		assertFalse(new File(folder.getRoot(), "app-shared-0-1.js").exists());
+		assertFalse(new File(folder.getRoot(), "app-P2.map").exists());
+		assertTrue(new File(folder.getRoot(), "app-P1.js").exists());
+		assertTrue(new File(folder.getRoot(), "app-P1.map").exists());
+		// only the bundles of the manifest are removed
+		assertTrue(otherPack.exists());
+	}
+
+	@Test
+	public void testDeleteStaleBundlesWithoutManifest() throws IOException {
+		assertTrue(PackBundles.deleteStaleBundles(folder.getRoot(), new File(folder.getRoot(), "app-bundles.json"),
+				Collections.<String> emptySet()).isEmpty());
+	}
+	@Retention(RetentionPolicy.RUNTIME)
+	public @interface Root {
+		// marks a root class in the tests
+	}
+
+	public static class StringArrayMain {
+		public static void main(String[] args) {
+			// a root
+		}
+	}
+
+	public static class IntMain {
+		public static void main(int arg) {
+			// not a main method
+		}
+	}
+
+	public static class InstanceMain {
+		public void main(String[] args) {
+			// not static
+		}
+	}
+
+	@Root
+	public static class AnnotatedClass {
+		// a root when the annotation is configured
+	}
+
+	@Test
+	public void testPackRoots() {
+		assertTrue(PackBundles.isPackRoot(StringArrayMain.class, null));
+		assertFalse(PackBundles.isPackRoot(IntMain.class, null));
+		assertFalse(PackBundles.isPackRoot(InstanceMain.class, null));
+		assertFalse(PackBundles.isPackRoot(AnnotatedClass.class, null));
+		assertTrue(PackBundles.isPackRoot(AnnotatedClass.class, Root.class.getName()));
+		assertFalse(PackBundles.isPackRoot(IntMain.class, Root.class.getName()));
+	}
+
+	@Test
+	public void testReachablePackedClasses() {
+		dependsOn("C");
+		dependsOn("A", "C", "X");
+		dependsOn("B");
+		dependsOn("D", "B");
+		dependsOn("P", "A");
+		List<String> packed = Arrays.asList("C", "B", "A", "D", "P");
+		assertEquals(Arrays.asList("C", "A", "P"), PackBundles.getReachablePackedClasses(packed, dependencies, Arrays.asList("P")));
+		assertEquals(Arrays.asList("C", "B", "A", "D", "P"),
+				PackBundles.getReachablePackedClasses(packed, dependencies, Arrays.asList("P", "D")));
+		assertEquals(Collections.<String> emptyList(),
+				PackBundles.getReachablePackedClasses(packed, dependencies, Collections.<String> emptyList()));
+	}
+}
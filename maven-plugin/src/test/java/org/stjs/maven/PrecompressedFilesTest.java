@@ -0,0 +1,138 @@
+package org.stjs.maven;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+public class PrecompressedFilesTest {
+	private static final String CONTENT = Strings.repeat("var a = function(){ return stjs.bind(this, 'method'); };\n", 100);
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File generated;
+	private File stampFile;
+	private File jsFile;
+
+	@Before
+	public void createFiles() throws IOException {
+		generated = folder.newFolder("generated-js");
+		stampFile = new File(folder.getRoot(), "stjs-classes.precompressed");
+		jsFile = new File(generated, "org/stjs/A.js");
+		Files.createParentDirs(jsFile);
+		Files.write(CONTENT, jsFile, Charsets.UTF_8);
+	}
+
+	private List<File> update(int level, PrecompressedFiles.Format... formats) throws IOException {
+		return new PrecompressedFiles(EnumSet.copyOf(Arrays.asList(formats)), level, stampFile).update(generated);
+	}
+
+	private static byte[] read(InputStream input) throws IOException {
+		try {
+			return ByteStreams.toByteArray(input);
+		}
+		finally {
+			input.close();
+		}
+	}
+
+	@Test
+	public void testGzipRoundTrip() throws IOException {
+		File compressed = new File(generated, "org/stjs/A.js.gz");
+		assertEquals(Collections.singletonList(compressed), update(9, PrecompressedFiles.Format.GZIP));
+
+		assertArrayEquals(Files.toByteArray(jsFile), read(new GZIPInputStream(new FileInputStream(compressed))));
+		assertTrue(compressed.length() < jsFile.length());
+		assertFalse(new File(generated, "org/stjs/A.js.gz.tmp").exists());
+	}
+
+	@Test
+	public void testDeflateRoundTrip() throws IOException {
+		File compressed = new File(generated, "org/stjs/A.js.deflate");
+		assertEquals(Collections.singletonList(compressed), update(9, PrecompressedFiles.Format.DEFLATE));
+
+		assertArrayEquals(Files.toByteArray(jsFile), read(new InflaterInputStream(new FileInputStream(compressed))));
+		assertTrue(compressed.length() < jsFile.length());
+	}
+
+	@Test
+	public void testUpToDateFilesAreSkipped() throws IOException {
+		assertEquals(2, update(9, PrecompressedFiles.Format.GZIP, PrecompressedFiles.Format.DEFLATE).size());
+		assertEquals(0, update(9, PrecompressedFiles.Format.GZIP, PrecompressedFiles.Format.DEFLATE).size());
+
+		assertTrue(jsFile.setLastModified(new File(generated, "org/stjs/A.js.gz").lastModified() + 10000));
+		assertEquals(2, update(9, PrecompressedFiles.Format.GZIP, PrecompressedFiles.Format.DEFLATE).size());
+	}
+
+	@Test
+	public void testLevelChange() throws IOException {
+		File compressed = new File(generated, "org/stjs/A.js.gz");
+		update(1, PrecompressedFiles.Format.GZIP);
+		long fastLength = compressed.length();
+
+		// the JavaScript file did not change, but the level did
+		assertEquals(Collections.singletonList(compressed), update(9, PrecompressedFiles.Format.GZIP));
+		assertTrue(compressed.length() <= fastLength);
+		assertArrayEquals(Files.toByteArray(jsFile), read(new GZIPInputStream(new FileInputStream(compressed))));
+		assertEquals(0, update(9, PrecompressedFiles.Format.GZIP).size());
+	}
+
+	@Test
+	public void testOrphansAreRemoved() throws IOException {
+		File compressed = new File(generated, "org/stjs/A.js.gz");
+		update(9, PrecompressedFiles.Format.GZIP);
+		assertTrue(compressed.exists());
+
+		assertTrue(jsFile.delete());
+		update(9, PrecompressedFiles.Format.GZIP);
+		assertFalse(compressed.exists());
+	}
+
+	@Test
+	public void testFormatChange() throws IOException {
+		File gzip = new File(generated, "org/stjs/A.js.gz");
+		File deflate = new File(generated, "org/stjs/A.js.deflate");
+		update(9, PrecompressedFiles.Format.GZIP, PrecompressedFiles.Format.DEFLATE);
+		assertTrue(deflate.exists());
+
+		// the copies of a format that is no longer configured are removed
+		assertEquals(Collections.singletonList(gzip), update(9, PrecompressedFiles.Format.GZIP));
+		assertTrue(gzip.exists());
+		assertFalse(deflate.exists());
+
+		assertEquals(2, update(9, PrecompressedFiles.Format.GZIP, PrecompressedFiles.Format.DEFLATE).size());
+		assertArrayEquals(Files.toByteArray(jsFile), read(new InflaterInputStream(new FileInputStream(deflate))));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidLevel() {
+		new PrecompressedFiles(EnumSet.of(PrecompressedFiles.Format.GZIP), 10, stampFile);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoCompressionLevel() {
+		new PrecompressedFiles(EnumSet.of(PrecompressedFiles.Format.GZIP), 0, stampFile);
+	}
+}
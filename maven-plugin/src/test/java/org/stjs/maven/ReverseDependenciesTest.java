@@ -0,0 +1,101 @@
+package org.stjs.maven;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.stjs.generator.name.DependencyType;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+public class ReverseDependenciesTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static Map<String, DependencyType> dependency(String className, DependencyType type) {
+		Map<String, DependencyType> dependencies = new HashMap<String, DependencyType>();
+		dependencies.put(className, type);
+		return dependencies;
+	}
+
+	private static Set<String> set(String... classNames) {
+		return new HashSet<String>(Arrays.asList(classNames));
+	}
+
+	@Test
+	public void testTransitiveDependents() {
+		ReverseDependencies graph = new ReverseDependencies();
+		graph.addDependencies("B", dependency("A", DependencyType.EXTENDS));
+		graph.addDependencies("C", dependency("B", DependencyType.STATIC));
+		graph.addDependencies("D", dependency("C", DependencyType.EXTENDS));
+
+		assertEquals(set("B", "C", "D"), graph.getTransitiveDependents(Collections.singleton("A")));
+		assertEquals(set("D"), graph.getTransitiveDependents(Collections.singleton("C")));
+		assertEquals(set(), graph.getTransitiveDependents(Collections.singleton("D")));
+	}
+
+	@Test
+	public void testOtherDependenciesAreIgnored() {
+		ReverseDependencies graph = new ReverseDependencies();
+		graph.addDependencies("B", dependency("A", DependencyType.OTHER));
+		graph.addDependencies("C", dependency("A", DependencyType.STATIC));
+
+		assertEquals(set("C"), graph.getTransitiveDependents(Collections.singleton("A")));
+	}
+
+	@Test
+	public void testModifiedClassesAreNotDependents() {
+		ReverseDependencies graph = new ReverseDependencies();
+		graph.addDependencies("A", dependency("B", DependencyType.STATIC));
+		graph.addDependencies("B", dependency("A", DependencyType.STATIC));
+		graph.addDependencies("C", dependency("B", DependencyType.EXTENDS));
+
+		assertEquals(set("B", "C"), graph.getTransitiveDependents(Collections.singleton("A")));
+		assertEquals(set("C"), graph.getTransitiveDependents(Arrays.asList("A", "B")));
+	}
+
+	@Test
+	public void testInnerClassDependencies() {
+		ReverseDependencies graph = new ReverseDependencies();
+		graph.addDependencies("B", dependency("A$Inner", DependencyType.EXTENDS));
+		// a class using its own inner classes does not depend on itself
+		graph.addDependencies("A", dependency("A$Other", DependencyType.STATIC));
+
+		assertEquals(set("B"), graph.getTransitiveDependents(Collections.singleton("A")));
+	}
+
+	@Test
+	public void testLoad() throws IOException {
+		writeStjsFile("a/B.stjs", "a.B", "[a.A]");
+		writeStjsFile("a/C.stjs", "a.C", "[s\\:a.B,o\\:a.D]");
+		writeStjsFile("a/D.stjs", "a.D", "[]");
+
+		ReverseDependencies graph = ReverseDependencies.load(folder.getRoot());
+		assertEquals(set("a.B", "a.C"), graph.getTransitiveDependents(Collections.singleton("a.A")));
+		assertEquals(set(), graph.getTransitiveDependents(Collections.singleton("a.D")));
+	}
+
+	@Test
+	public void testLoadMissingFolder() throws IOException {
+		ReverseDependencies graph = ReverseDependencies.load(new File(folder.getRoot(), "missing"));
+		assertTrue(graph.getTransitiveDependents(Collections.singleton("a.A")).isEmpty());
+	}
+
+	private void writeStjsFile(String path, String className, String dependencies) throws IOException {
+		File file = new File(folder.getRoot(), path);
+		Files.createParentDirs(file);
+		Files.write("class=" + className + "\njsNamespace=\ndependencies=" + dependencies + "\n", file, Charsets.UTF_8);
+	}
+}
@@ -0,0 +1,140 @@
+package org.stjs.maven;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.codehaus.plexus.util.DirectoryScanner;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+public class SourceIndexTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File root;
+
+	@Before
+	public void createSources() throws IOException {
+		root = folder.newFolder("src");
+		for (String path : Arrays.asList("Root.java", "a/A.java", "a/b/B.java", "a/b/c/C.java", "a/b/c/Other.txt", "b/B.java",
+				"b/a/A.java", "a/CVS/Cvs.java", ".svn/Svn.java", "a/.git/Git.java")) {
+			File file = new File(root, path.replace('/', File.separatorChar));
+			Files.createParentDirs(file);
+			Files.write("class X {}", file, Charsets.UTF_8);
+		}
+	}
+
+	private static Set<String> set(String... patterns) {
+		return new HashSet<String>(Arrays.asList(patterns));
+	}
+
+	/**
+	 * @return the Java sources found by a DirectoryScanner configured as the scanners replaced by the index
+	 */
+	private List<String> scanWithDirectoryScanner(Set<String> includes, Set<String> excludes) {
+		DirectoryScanner ds = new DirectoryScanner();
+		ds.setBasedir(root);
+		if (!includes.isEmpty()) {
+			ds.setIncludes(includes.toArray(new String[includes.size()]));
+		}
+		ds.setExcludes(excludes.toArray(new String[excludes.size()]));
+		ds.addDefaultExcludes();
+		ds.scan();
+		List<String> paths = new ArrayList<String>();
+		for (String path : ds.getIncludedFiles()) {
+			if (path.endsWith(".java")) {
+				paths.add(path);
+			}
+		}
+		Collections.sort(paths);
+		return paths;
+	}
+
+	private void assertSameAsDirectoryScanner(SourceIndex index, Set<String> includes, Set<String> excludes) {
+		List<String> paths = new ArrayList<String>(index.getSourcePaths(root, includes, excludes));
+		Collections.sort(paths);
+		assertEquals("includes " + includes + " excludes " + excludes, scanWithDirectoryScanner(includes, excludes), paths);
+	}
+
+	@Test
+	public void testSameSourcesAsDirectoryScanner() throws IOException {
+		SourceIndex index = SourceIndex.scan(Collections.singletonList(root), 1);
+
+		Set<String> none = Collections.emptySet();
+		assertSameAsDirectoryScanner(index, none, none);
+		assertSameAsDirectoryScanner(index, set("**/*.java"), none);
+		assertSameAsDirectoryScanner(index, set("*.java"), none);
+		assertSameAsDirectoryScanner(index, set("a/"), none);
+		assertSameAsDirectoryScanner(index, set("a\\"), none);
+		assertSameAsDirectoryScanner(index, set("a/**"), set("a/b/"));
+		assertSameAsDirectoryScanner(index, set("a/b/*.java"), none);
+		assertSameAsDirectoryScanner(index, set("**/b/**"), set("**/c/**"));
+		assertSameAsDirectoryScanner(index, set("**/a/*.java"), none);
+		assertSameAsDirectoryScanner(index, set(" Root.java ", "b/B.java"), none);
+		assertSameAsDirectoryScanner(index, none, set("**/A.java", "a/b/c/"));
+		assertSameAsDirectoryScanner(index, set("**/CVS/**", "**/.svn/**"), none);
+	}
+
+	@Test
+	public void testDefaultExcludes() throws IOException {
+		SourceIndex index = SourceIndex.scan(Collections.singletonList(root), 1);
+		assertTrue(index.contains(root, "Root.java"));
+		assertFalse(index.contains(root, "a" + File.separator + "CVS" + File.separator + "Cvs.java"));
+		assertFalse(index.contains(root, ".svn" + File.separator + "Svn.java"));
+	}
+
+	@Test
+	public void testPackages() throws IOException {
+		SourceIndex index = SourceIndex.scan(Collections.singletonList(root), 1);
+		assertEquals(set("", "a", "a.b", "a.b.c", "b", "b.a"), new HashSet<String>(index.getPackages(root)));
+	}
+
+	@Test
+	public void testParallelScan() throws IOException {
+		File other = folder.newFolder("other");
+		Files.write("class O {}", new File(other, "O.java"), Charsets.UTF_8);
+		File missing = new File(folder.getRoot(), "missing");
+
+		SourceIndex index = SourceIndex.scan(Arrays.asList(root, other, missing), 3);
+		assertTrue(index.contains(root, "Root.java"));
+		assertTrue(index.contains(other, "O.java"));
+		assertEquals(0, index.getSourcePaths(missing, set(), set()).size());
+	}
+
+	@Test
+	public void testSymbolicLinkLoopIsSkipped() throws IOException {
+		Path link = new File(root, "a" + File.separator + "loop").toPath();
+		try {
+			java.nio.file.Files.createSymbolicLink(link, root.toPath());
+		}
+		catch (UnsupportedOperationException e) {
+			Assume.assumeNoException(e);
+		}
+		catch (IOException e) {
+			// for example without the privilege to create links on Windows
+			Assume.assumeNoException(e);
+		}
+
+		SourceIndex index = SourceIndex.scan(Collections.singletonList(root), 1);
+		assertTrue(index.contains(root, "a" + File.separator + "A.java"));
+		// the link points to a folder that is already walked
+		assertFalse(index.contains(root, "a" + File.separator + "loop" + File.separator + "Root.java"));
+	}
+}
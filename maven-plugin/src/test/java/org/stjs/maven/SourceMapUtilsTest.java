@@ -0,0 +1,113 @@
+package org.stjs.maven;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.debugging.sourcemap.SourceMapFormat;
+import com.google.debugging.sourcemap.SourceMapGeneratorFactory;
+import com.google.debugging.sourcemap.SourceMapGeneratorV3;
+import com.google.debugging.sourcemap.SourceMapSection;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+public class SourceMapUtilsTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File writeFile(String path, String content) throws IOException {
+		File file = new File(folder.getRoot(), path);
+		Files.createParentDirs(file);
+		Files.write(content, file, Charsets.UTF_8);
+		return file;
+	}
+
+	private File writeGeneratedFile(String path, String content) throws IOException {
+		String name = Files.getNameWithoutExtension(new File(path).getName());
+		writeFile(path.replace(".js", ".map"), "{\"version\":3,\"file\":\"" + name + ".js\",\"lineCount\":1,\"mappings\":\"AAAA\","
+				+ "\"sources\":[\"" + name + ".java\"],\"names\":[]}");
+		return writeFile(path, content);
+	}
+
+	@Test
+	public void testPack() throws IOException {
+		List<File> files = new ArrayList<File>();
+		files.add(writeGeneratedFile("org/A.js", "var a = 1;\nvar b = 2;\n//# sourceMappingURL=A.map\n"));
+		// no new line at the end of the file
+		files.add(writeGeneratedFile("org/B.js", "var c = 3;\n//# sourceMappingURL=B.map"));
+		// no sourceMappingURL line
+		files.add(writeGeneratedFile("C.js", "var d = 4;"));
+		files.add(writeGeneratedFile("D.js", "var e = 5;\n"));
+
+		File packFile = new File(folder.getRoot(), "pack.js");
+		List<SourceMapSection> sections = new ArrayList<SourceMapSection>();
+		FileOutputStream pack = new FileOutputStream(packFile);
+		int line = 0;
+		try {
+			for (File file : files) {
+				line = SourceMapUtils.appendFileSkipSourceMap(folder.getRoot(), pack.getChannel(), file, line, sections, "UTF-8");
+			}
+		}
+		finally {
+			pack.close();
+		}
+
+		assertEquals("var a = 1;\nvar b = 2;\nvar c = 3;\nvar d = 4;\nvar e = 5;\n", Files.toString(packFile, Charsets.UTF_8));
+		assertEquals(5, line);
+
+		StringWriter indexMap = new StringWriter();
+		((SourceMapGeneratorV3) SourceMapGeneratorFactory.getInstance(SourceMapFormat.V3)).appendIndexMapTo(indexMap, "pack.js",
+				sections);
+		JsonArray jsonSections = new JsonParser().parse(indexMap.toString()).getAsJsonObject().getAsJsonArray("sections");
+		int[] offsets = { 0, 2, 3, 4 };
+		assertEquals(offsets.length, jsonSections.size());
+		for (int i = 0; i < offsets.length; ++i) {
+			JsonObject section = jsonSections.get(i).getAsJsonObject();
+			assertEquals(offsets[i], section.getAsJsonObject("offset").get("line").getAsInt());
+			assertEquals(0, section.getAsJsonObject("offset").get("column").getAsInt());
+		}
+		assertEquals("org/", jsonSections.get(0).getAsJsonObject().getAsJsonObject("map").get("sourceRoot").getAsString());
+		assertEquals("A.java", jsonSections.get(0).getAsJsonObject().getAsJsonObject("map").getAsJsonArray("sources").get(0)
+				.getAsString());
+		assertEquals(null, jsonSections.get(2).getAsJsonObject().getAsJsonObject("map").get("sourceRoot"));
+	}
+
+	@Test
+	public void testAppendWholeFile() throws IOException {
+		File file = writeGeneratedFile("A.js", "var a = 1;\n//# sourceMappingURL=A.map\n");
+		File packFile = new File(folder.getRoot(), "pack.js");
+		FileOutputStream pack = new FileOutputStream(packFile);
+		try {
+			SourceMapUtils.appendFile(pack.getChannel(), file);
+		}
+		finally {
+			pack.close();
+		}
+		assertEquals("var a = 1;\n//# sourceMappingURL=A.map\n", Files.toString(packFile, Charsets.UTF_8));
+	}
+
+	@Test
+	public void testAddSourceRoot() {
+		String map = "{\"version\":3,\"sources\":[\"A.java\"],\"names\":[\"sources\"]}";
+		JsonObject withRoot = new JsonParser().parse(SourceMapUtils.addSourceRoot(map, "org/")).getAsJsonObject();
+		assertEquals("org/", withRoot.get("sourceRoot").getAsString());
+		assertEquals("sources", withRoot.getAsJsonArray("names").get(0).getAsString());
+
+		String mapWithRoot = "{\"version\":3,\"sourceRoot\":\"src/\",\"sources\":[\"A.java\"],\"names\":[]}";
+		assertEquals("org/src/", new JsonParser().parse(SourceMapUtils.addSourceRoot(mapWithRoot, "org/")).getAsJsonObject()
+				.get("sourceRoot").getAsString());
+		assertEquals(map, SourceMapUtils.addSourceRoot(map, ""));
+	}
+}